@@ -0,0 +1,208 @@
+package rendimiento;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import modelo.Estudiante;
+import utiles.GeneradorDatos;
+import utiles.HibernateUtil;
+
+/**
+ * Estado compartido por todos los hilos de un benchmark: arranca Hibernate
+ * contra una base de datos H2 en memoria en modo de compatibilidad con MySQL y
+ * la rellena con {@link GeneradorDatos}: {@link #tamano} estudiantes repartidos
+ * entre las casas, más cursos, eventos, criaturas y profesores en proporción,
+ * con sus matrículas y asistencias.
+ *
+ * El esquema lo crean las mismas migraciones que en producción, de modo que los
+ * benchmarks miden las consultas sobre las mismas tablas e índices.
+ */
+@State(Scope.Benchmark)
+public class BaseDatos {
+
+	/**
+	 * Nombres de las casas mágicas que se crean.
+	 */
+	static final String[] CASAS = { "Gryffindor", "Hufflepuff", "Ravenclaw", "Slytherin" };
+
+	/**
+	 * Ubicaciones de los eventos mágicos que se crean.
+	 */
+	static final String[] UBICACIONES = { "Gran Comedor", "Campo de Quidditch", "Bosque Prohibido", "Hogsmeade" };
+
+	/**
+	 * Semilla de los datos generados, fija para que todos los ensayos midan los
+	 * mismos datos.
+	 */
+	static final long SEMILLA = 42;
+
+	/**
+	 * Número de estudiantes de la base de datos.
+	 */
+	@Param({ "1000", "10000" })
+	public int tamano;
+
+	/**
+	 * Identificadores de las casas mágicas creadas.
+	 */
+	int[] idsCasas;
+
+	/**
+	 * Identificadores de los estudiantes creados.
+	 */
+	int[] idsEstudiantes;
+
+	/**
+	 * Identificadores de los cursos mágicos creados.
+	 */
+	int[] idsCursos;
+
+	/**
+	 * Identificadores de los eventos mágicos creados.
+	 */
+	int[] idsEventos;
+
+	/**
+	 * Arranca Hibernate sobre una base de datos en memoria nueva y la rellena. Las
+	 * propiedades del sistema sustituyen a las de hibernate.cfg.xml.
+	 */
+	@Setup(Level.Trial)
+	public void arrancar() {
+		// Una base de datos por ensayo, aunque varios ensayos compartan la JVM
+		System.setProperty("hibernate.connection.url",
+				"jdbc:h2:mem:hogwarts" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		System.setProperty("hibernate.connection.username", "sa");
+		System.setProperty("hibernate.connection.password", "");
+		System.setProperty("hibernate.show_sql", "false");
+		System.setProperty("hibernate.format_sql", "false");
+		System.setProperty("hibernate.use_sql_comments", "false");
+		// Sin caché del arranque: cada ensayo usa una base de datos distinta
+		System.setProperty("hogwarts.arranque.cache", "");
+		configurar();
+		HibernateUtil.iniciar();
+		rellenar();
+	}
+
+	/**
+	 * Ajusta la configuración de Hibernate antes de arrancarlo. Los estados de los
+	 * benchmarks que comparan configuraciones lo redefinen para fijar sus
+	 * propiedades del sistema.
+	 */
+	protected void configurar() {
+	}
+
+	/**
+	 * Cierra Hibernate y libera la base de datos en memoria.
+	 */
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		HibernateUtil.shutdown();
+	}
+
+	/**
+	 * Devuelve un identificador de estudiante al azar.
+	 *
+	 * @return El identificador.
+	 */
+	int estudianteAlAzar() {
+		return idsEstudiantes[ThreadLocalRandom.current().nextInt(idsEstudiantes.length)];
+	}
+
+	/**
+	 * Devuelve un identificador de casa mágica al azar.
+	 *
+	 * @return El identificador.
+	 */
+	int casaAlAzar() {
+		return idsCasas[ThreadLocalRandom.current().nextInt(idsCasas.length)];
+	}
+
+	/**
+	 * Devuelve un identificador de curso mágico al azar.
+	 *
+	 * @return El identificador.
+	 */
+	int cursoAlAzar() {
+		return idsCursos[ThreadLocalRandom.current().nextInt(idsCursos.length)];
+	}
+
+	/**
+	 * Devuelve un identificador de evento mágico al azar.
+	 *
+	 * @return El identificador.
+	 */
+	int eventoAlAzar() {
+		return idsEventos[ThreadLocalRandom.current().nextInt(idsEventos.length)];
+	}
+
+	/**
+	 * Devuelve el nombre de una casa mágica al azar.
+	 *
+	 * @return El nombre.
+	 */
+	static String nombreCasaAlAzar() {
+		return CASAS[ThreadLocalRandom.current().nextInt(CASAS.length)];
+	}
+
+	/**
+	 * Devuelve una ubicación de evento al azar.
+	 *
+	 * @return La ubicación.
+	 */
+	static String ubicacionAlAzar() {
+		return UBICACIONES[ThreadLocalRandom.current().nextInt(UBICACIONES.length)];
+	}
+
+	/**
+	 * Devuelve una fecha al azar del periodo en que se generan los eventos.
+	 *
+	 * @return La fecha.
+	 */
+	static LocalDate fechaAlAzar() {
+		return GeneradorDatos.PRIMERA_FECHA
+				.plusDays(ThreadLocalRandom.current().nextInt(GeneradorDatos.DIAS_EVENTOS));
+	}
+
+	/**
+	 * Crea un estudiante sin casa con datos de prueba.
+	 *
+	 * @param nombre El nombre del estudiante.
+	 * @return El estudiante, sin persistir.
+	 */
+	static Estudiante nuevoEstudiante(String nombre) {
+		return new Estudiante(nombre, 11 + ThreadLocalRandom.current().nextInt(7), "Intermedio", "Roble");
+	}
+
+	/**
+	 * Rellena la base de datos con el generador de datos sintéticos y guarda los
+	 * identificadores creados.
+	 */
+	private void rellenar() {
+		new GeneradorDatos(SEMILLA, tamano).generar();
+		try (Session sesion = HibernateUtil.getFactoriaSession().openSession()) {
+			idsCasas = ids(sesion, "SELECT c.idCasaMagica FROM CasaMagica c");
+			idsEstudiantes = ids(sesion, "SELECT e.idEstudiante FROM Estudiante e");
+			idsCursos = ids(sesion, "SELECT c.idCursoMagico FROM CursoMagico c");
+			idsEventos = ids(sesion, "SELECT e.idEventoMagico FROM EventoMagico e");
+		}
+	}
+
+	/**
+	 * Obtiene los identificadores que devuelve una consulta.
+	 *
+	 * @param sesion La sesión.
+	 * @param hql    La consulta de identificadores.
+	 * @return Los identificadores.
+	 */
+	private static int[] ids(Session sesion, String hql) {
+		return sesion.createQuery(hql, Integer.class).getResultList().stream().mapToInt(Integer::intValue).toArray();
+	}
+}
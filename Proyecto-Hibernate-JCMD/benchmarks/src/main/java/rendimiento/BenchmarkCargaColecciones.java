@@ -0,0 +1,91 @@
+package rendimiento;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import modelo.Estudiante;
+import utiles.EstrategiasCarga;
+import utiles.HibernateUtil;
+
+/**
+ * Benchmark de las estrategias de carga de colecciones: lista todos los
+ * estudiantes y recorre sus cursos, cargados por unión en la misma consulta
+ * (join), por lotes de hibernate.default_batch_fetch_size (batch) o con una
+ * subconsulta (subselect). Para medir el listado de 10.000 estudiantes:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -p tamano=10000 BenchmarkCargaColecciones
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dlog4j2.configurationFile=log4j2-rendimiento.xml" })
+public class BenchmarkCargaColecciones {
+
+	/**
+	 * Propiedad que fija la estrategia de carga de los cursos de los estudiantes.
+	 */
+	private static final String PROPIEDAD_CURSOS = EstrategiasCarga.PREFIJO + "modelo.Estudiante.cursos";
+
+	/**
+	 * Base de datos arrancada con la estrategia de carga de cursos que se mide.
+	 */
+	@State(Scope.Benchmark)
+	public static class BaseDatosCarga extends BaseDatos {
+
+		/**
+		 * Estrategia de carga de los cursos de los estudiantes.
+		 */
+		@Param({ "join", "batch", "subselect" })
+		public String estrategia;
+
+		/**
+		 * Fija la estrategia de carga de los cursos antes de arrancar Hibernate. Las
+		 * estrategias join y batch usan la carga por lotes configurada por defecto.
+		 */
+		@Override
+		protected void configurar() {
+			if (EstrategiasCarga.SUBSELECT.equals(estrategia)) {
+				System.setProperty(PROPIEDAD_CURSOS, EstrategiasCarga.SUBSELECT);
+			} else {
+				System.clearProperty(PROPIEDAD_CURSOS);
+			}
+		}
+	}
+
+	/**
+	 * Lista todos los estudiantes y recorre sus cursos en una sesión nueva.
+	 *
+	 * @param bd El estado con la base de datos y la estrategia.
+	 * @return El número total de matrículas.
+	 */
+	@Benchmark
+	public long listarEstudiantesConCursos(BaseDatosCarga bd) {
+		try (Session sesion = HibernateUtil.getFactoriaSession().openSession()) {
+			Query<Estudiante> consulta = sesion.createQuery("FROM Estudiante", Estudiante.class);
+			if ("join".equals(bd.estrategia)) {
+				consulta.setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, sesion.getEntityGraph(Estudiante.GRAFO_CURSOS));
+			}
+			long matriculas = 0;
+			for (Estudiante estudiante : consulta.getResultList()) {
+				matriculas += estudiante.getCursos().size();
+			}
+			return matriculas;
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package rendimiento;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.CasaMagicaDao;
+import dao.CursoMagicoDao;
+import dao.EstudianteDao;
+import dao.EstudianteResumen;
+import dao.EventoMagicoDao;
+import dao.EventoResumen;
+import modelo.CasaMagica;
+import modelo.Estudiante;
+
+/**
+ * Benchmarks de las operaciones CRUD de {@link dao.AbstractDao} y de las
+ * consultas propias de cada DAO. Cada operación abre su propia sesión, igual que
+ * en la aplicación, así que el tiempo incluye el préstamo de la conexión del
+ * pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dlog4j2.configurationFile=log4j2-rendimiento.xml" })
+public class BenchmarkDao {
+
+	/**
+	 * DAO de casas mágicas.
+	 */
+	private final CasaMagicaDao casaMagicaDao = new CasaMagicaDao();
+
+	/**
+	 * DAO de cursos mágicos.
+	 */
+	private final CursoMagicoDao cursoMagicoDao = new CursoMagicoDao();
+
+	/**
+	 * DAO de estudiantes.
+	 */
+	private final EstudianteDao estudianteDao = new EstudianteDao();
+
+	/**
+	 * DAO de eventos mágicos.
+	 */
+	private final EventoMagicoDao eventoMagicoDao = new EventoMagicoDao();
+
+	/**
+	 * Estudiante recién creado por cada hilo para medir su borrado.
+	 */
+	@State(Scope.Thread)
+	public static class EstudianteNuevo {
+
+		/**
+		 * El estudiante que se borrará en la siguiente invocación.
+		 */
+		Estudiante estudiante;
+
+		/**
+		 * Crea el estudiante antes de cada invocación, fuera de la medición.
+		 *
+		 * @param bd El estado con la base de datos.
+		 */
+		@Setup(Level.Invocation)
+		public void crear(BaseDatos bd) {
+			estudiante = BaseDatos.nuevoEstudiante("Borrable");
+			new EstudianteDao().create(estudiante);
+		}
+	}
+
+	/**
+	 * Estudiante existente, distinto en cada hilo, para medir su actualización.
+	 */
+	@State(Scope.Thread)
+	public static class EstudianteExistente {
+
+		/**
+		 * El estudiante, desligado de cualquier sesión.
+		 */
+		Estudiante estudiante;
+
+		/**
+		 * Carga un estudiante al azar antes de cada iteración.
+		 *
+		 * @param bd El estado con la base de datos.
+		 */
+		@Setup(Level.Iteration)
+		public void cargar(BaseDatos bd) {
+			estudiante = new EstudianteDao().get(bd.estudianteAlAzar()).get();
+		}
+	}
+
+	// Operaciones CRUD de AbstractDao
+
+	/**
+	 * Inserta un estudiante en su propia transacción.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return El estudiante insertado.
+	 */
+	@Benchmark
+	public Estudiante create(BaseDatos bd) {
+		Estudiante estudiante = BaseDatos.nuevoEstudiante("Nuevo");
+		estudianteDao.create(estudiante);
+		return estudiante;
+	}
+
+	/**
+	 * Recupera un estudiante al azar por su identificador.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return El estudiante.
+	 */
+	@Benchmark
+	public Optional<Estudiante> get(BaseDatos bd) {
+		return estudianteDao.get(bd.estudianteAlAzar());
+	}
+
+	/**
+	 * Recupera todos los estudiantes.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los estudiantes.
+	 */
+	@Benchmark
+	public List<Estudiante> getAll(BaseDatos bd) {
+		return estudianteDao.getAll();
+	}
+
+	/**
+	 * Actualiza la edad de un estudiante existente.
+	 *
+	 * @param bd        El estado con la base de datos.
+	 * @param existente El estudiante que se actualiza.
+	 * @return El estudiante actualizado.
+	 */
+	@Benchmark
+	public Estudiante update(BaseDatos bd, EstudianteExistente existente) {
+		Estudiante estudiante = existente.estudiante;
+		estudiante.setEdadEstudiante(11 + ThreadLocalRandom.current().nextInt(7));
+		estudianteDao.update(estudiante);
+		return estudiante;
+	}
+
+	/**
+	 * Borra un estudiante creado justo antes, fuera de la medición.
+	 *
+	 * @param bd    El estado con la base de datos.
+	 * @param nuevo El estudiante que se borra.
+	 */
+	@Benchmark
+	public void delete(BaseDatos bd, EstudianteNuevo nuevo) {
+		estudianteDao.delete(nuevo.estudiante);
+	}
+
+	// Consultas de CasaMagicaDao
+
+	/**
+	 * Recupera una casa al azar por su nombre, resuelta con la caché de
+	 * identificadores naturales.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return La casa.
+	 */
+	@Benchmark
+	public Optional<CasaMagica> obtenerCasaPorNombre(BaseDatos bd) {
+		return casaMagicaDao.obtenerPorNombre(BaseDatos.nombreCasaAlAzar());
+	}
+
+	/**
+	 * Recupera la primera casa mágica.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return La casa.
+	 */
+	@Benchmark
+	public CasaMagica obtenerPrimeraCasaMagica(BaseDatos bd) {
+		return casaMagicaDao.obtenerPrimeraCasaMagica();
+	}
+
+	/**
+	 * Recupera los nombres de las casas con más de 100 puntos.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los nombres.
+	 */
+	@Benchmark
+	public List<String> obtenerCasasConPuntuacionMayor(BaseDatos bd) {
+		return casaMagicaDao.obtenerCasasConPuntuacionMayor(100);
+	}
+
+	/**
+	 * Recupera los nombres de las dos casas con más puntos.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los nombres.
+	 */
+	@Benchmark
+	public List<String> obtenerTopCasas(BaseDatos bd) {
+		return casaMagicaDao.obtenerTopCasas(2);
+	}
+
+	/**
+	 * Cambia la puntuación de una casa al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 */
+	@Benchmark
+	public void actualizarPuntuacionCasa(BaseDatos bd) {
+		casaMagicaDao.actualizarPuntuacionCasa(ThreadLocalRandom.current().nextInt(1000),
+				BaseDatos.nombreCasaAlAzar());
+	}
+
+	/**
+	 * Suma un punto a una casa al azar. Las sumas se combinan en memoria y se
+	 * escriben juntas, de modo que varios hilos no compiten por la fila de la casa.
+	 *
+	 * @param bd El estado con la base de datos.
+	 */
+	@Benchmark
+	public void sumarPuntos(BaseDatos bd) {
+		casaMagicaDao.sumarPuntos(BaseDatos.nombreCasaAlAzar(), 1);
+	}
+
+	// Consultas de CursoMagicoDao
+
+	/**
+	 * Cuenta los cursos mágicos.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return El número de cursos.
+	 */
+	@Benchmark
+	public Long contarCursosMagicos(BaseDatos bd) {
+		return cursoMagicoDao.contarCursosMagicos();
+	}
+
+	// Consultas de EstudianteDao
+
+	/**
+	 * Recupera los nombres de todos los estudiantes.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los nombres.
+	 */
+	@Benchmark
+	public List<String> obtenerNombresEstudiantes(BaseDatos bd) {
+		return estudianteDao.obtenerNombresEstudiantes();
+	}
+
+	/**
+	 * Recupera los nombres y las edades de todos los estudiantes.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los nombres y las edades.
+	 */
+	@Benchmark
+	public List<EstudianteResumen> obtenerNombresYEdadesEstudiantes(BaseDatos bd) {
+		return estudianteDao.obtenerNombresYEdadesEstudiantes();
+	}
+
+	/**
+	 * Recupera los estudiantes de una casa al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los estudiantes.
+	 */
+	@Benchmark
+	public List<String> obtenerEstudiantesPorCasa(BaseDatos bd) {
+		return estudianteDao.obtenerEstudiantesPorCasa(bd.casaAlAzar());
+	}
+
+	/**
+	 * Calcula la edad media de los estudiantes.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return La edad media.
+	 */
+	@Benchmark
+	public Double obtenerPromedioEdadEstudiantes(BaseDatos bd) {
+		return estudianteDao.obtenerPromedioEdadEstudiantes();
+	}
+
+	/**
+	 * Borra por nombre un estudiante que no existe, para medir solo la búsqueda.
+	 *
+	 * @param bd El estado con la base de datos.
+	 */
+	@Benchmark
+	public void eliminarEstudiantePorNombre(BaseDatos bd) {
+		estudianteDao.eliminarEstudiantePorNombre("Inexistente");
+	}
+
+	// Consultas de EventoMagicoDao
+
+	/**
+	 * Recupera los eventos de una ubicación al azar ordenados por fecha.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los eventos.
+	 */
+	@Benchmark
+	public List<EventoResumen> obtenerEventosPorUbicacionOrdenados(BaseDatos bd) {
+		return eventoMagicoDao.obtenerEventosPorUbicacionOrdenados(BaseDatos.ubicacionAlAzar());
+	}
+
+	/**
+	 * Recupera los eventos de un mes al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los nombres y fechas de los eventos.
+	 */
+	@Benchmark
+	public List<EventoResumen> obtenerEventosEntre(BaseDatos bd) {
+		LocalDate desde = BaseDatos.fechaAlAzar();
+		return eventoMagicoDao.obtenerEventosEntre(desde, desde.plusMonths(1));
+	}
+
+	/**
+	 * Recupera los diez eventos siguientes a una fecha al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los nombres y fechas de los eventos.
+	 */
+	@Benchmark
+	public List<EventoResumen> obtenerProximosEventos(BaseDatos bd) {
+		return eventoMagicoDao.obtenerProximosEventos(BaseDatos.fechaAlAzar(), 10);
+	}
+}
@@ -0,0 +1,179 @@
+package rendimiento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.Pagina;
+import modelo.CasaMagica;
+import modelo.CursoMagico;
+import modelo.Estudiante;
+import modelo.EventoMagico;
+import servicio.Servicio;
+
+/**
+ * Benchmarks de las operaciones de {@link Servicio} que usan los controladores:
+ * lecturas por identificador, paginación, inserción por lotes y las variantes
+ * asíncronas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dlog4j2.configurationFile=log4j2-rendimiento.xml" })
+public class BenchmarkServicio {
+
+	/**
+	 * Número de elementos de cada página.
+	 */
+	private static final int LIMITE_PAGINA = 50;
+
+	/**
+	 * Número de estudiantes de cada inserción por lotes.
+	 */
+	private static final int ESTUDIANTES_POR_LOTE = 100;
+
+	/**
+	 * Servicio medido.
+	 */
+	private final Servicio servicio = new Servicio();
+
+	/**
+	 * Obtiene un estudiante al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return El estudiante.
+	 */
+	@Benchmark
+	public Optional<Estudiante> obtenerEstudiante(BaseDatos bd) {
+		return servicio.obtenerEstudiante(bd.estudianteAlAzar());
+	}
+
+	/**
+	 * Obtiene un curso mágico al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return El curso.
+	 */
+	@Benchmark
+	public Optional<CursoMagico> obtenerCursoMagico(BaseDatos bd) {
+		return servicio.obtenerCursoMagico(bd.cursoAlAzar());
+	}
+
+	/**
+	 * Obtiene un evento mágico al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return El evento.
+	 */
+	@Benchmark
+	public Optional<EventoMagico> obtenerEventoMagico(BaseDatos bd) {
+		return servicio.obtenerEventoMagico(bd.eventoAlAzar());
+	}
+
+	/**
+	 * Obtiene una página de estudiantes ordenados por ID a partir de uno al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return La página.
+	 */
+	@Benchmark
+	public Pagina<Estudiante> obtenerPaginaEstudiantes(BaseDatos bd) {
+		return servicio.obtenerPaginaEstudiantes(bd.estudianteAlAzar(), LIMITE_PAGINA);
+	}
+
+	/**
+	 * Obtiene la primera página de estudiantes ordenados por nombre.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return La página.
+	 */
+	@Benchmark
+	public Pagina<Estudiante> obtenerPaginaEstudiantesPorNombre(BaseDatos bd) {
+		return servicio.obtenerPaginaEstudiantesPorNombre(null, 0, LIMITE_PAGINA);
+	}
+
+	/**
+	 * Crea un lote de estudiantes en una única transacción.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Los estudiantes creados.
+	 */
+	@Benchmark
+	public List<Estudiante> crearEstudiantes(BaseDatos bd) {
+		List<Estudiante> estudiantes = new ArrayList<>(ESTUDIANTES_POR_LOTE);
+		for (int i = 0; i < ESTUDIANTES_POR_LOTE; i++) {
+			estudiantes.add(BaseDatos.nuevoEstudiante("Lote " + i));
+		}
+		servicio.crearEstudiantes(estudiantes);
+		return estudiantes;
+	}
+
+	/**
+	 * Obtiene todas las casas mágicas con la variante asíncrona y espera el
+	 * resultado.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return Las casas.
+	 */
+	@Benchmark
+	public List<CasaMagica> obtenerTodasLasCasasMagicasAsync(BaseDatos bd) {
+		return servicio.obtenerTodasLasCasasMagicasAsync().join();
+	}
+
+	/**
+	 * Obtiene un estudiante al azar con la variante asíncrona y espera el
+	 * resultado.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return El estudiante.
+	 */
+	@Benchmark
+	public Optional<Estudiante> obtenerEstudianteAsync(BaseDatos bd) {
+		return servicio.obtenerEstudianteAsync(bd.estudianteAlAzar()).join();
+	}
+
+	/**
+	 * Obtiene la media de edad de los estudiantes.
+	 *
+	 * @param bd El estado con la base de datos.
+	 * @return La media.
+	 */
+	@Benchmark
+	public Double obtenerPromedioEdadEstudiantes(BaseDatos bd) {
+		return servicio.obtenerPromedioEdadEstudiantes();
+	}
+
+	/**
+	 * Cambia la puntuación de una casa al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 */
+	@Benchmark
+	public void actualizarPuntuacionCasa(BaseDatos bd) {
+		servicio.actualizarPuntuacionCasa(ThreadLocalRandom.current().nextInt(1000), BaseDatos.nombreCasaAlAzar());
+	}
+
+	/**
+	 * Suma un punto a una casa al azar.
+	 *
+	 * @param bd El estado con la base de datos.
+	 */
+	@Benchmark
+	public void sumarPuntos(BaseDatos bd) {
+		servicio.sumarPuntos(BaseDatos.nombreCasaAlAzar(), 1);
+	}
+}
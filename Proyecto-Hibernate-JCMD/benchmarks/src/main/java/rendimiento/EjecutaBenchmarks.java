@@ -0,0 +1,75 @@
+package rendimiento;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de los benchmarks. Admite las mismas opciones que JMH (por
+ * ejemplo -p tamano=1000 o -wi 1 -i 1) y, salvo que se indique -t, repite la
+ * ejecución con cada número de hilos de la propiedad del sistema {@value #HILOS}
+ * (1,4 por defecto). Los resultados de todas las ejecuciones se escriben juntos
+ * en un único fichero, en JSON salvo que se indique otro formato con -rf, en
+ * target/jmh-resultados.json o en la ruta indicada con -rff.
+ */
+public class EjecutaBenchmarks {
+
+	/**
+	 * Propiedad del sistema con los números de hilos separados por comas.
+	 */
+	public static final String HILOS = "hogwarts.rendimiento.hilos";
+
+	/**
+	 * Números de hilos por defecto.
+	 */
+	private static final String HILOS_POR_DEFECTO = "1,4";
+
+	/**
+	 * Método principal que lanza los benchmarks.
+	 *
+	 * @param args Las opciones de JMH.
+	 * @throws CommandLineOptionException Si las opciones no son válidas.
+	 * @throws RunnerException            Si falla la ejecución de los benchmarks.
+	 * @throws IOException                Si falla la ejecución de las opciones
+	 *                                    informativas.
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+		CommandLineOptions opciones = new CommandLineOptions(args);
+		if (opciones.shouldHelp() || opciones.shouldList() || opciones.shouldListProfilers()
+				|| opciones.shouldListResultFormats() || opciones.shouldListWithParams()) {
+			// Las opciones informativas las atiende directamente JMH
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		List<Integer> hilos = new ArrayList<>();
+		if (opciones.getThreads().hasValue()) {
+			hilos.add(opciones.getThreads().get());
+		} else {
+			for (String valor : System.getProperty(HILOS, HILOS_POR_DEFECTO).split(",")) {
+				hilos.add(Integer.valueOf(valor.trim()));
+			}
+		}
+
+		ResultFormatType formato = opciones.getResultFormat().orElse(ResultFormatType.JSON);
+		String fichero = opciones.getResult()
+				.orElse("target/jmh-resultados." + formato.toString().toLowerCase());
+
+		Collection<RunResult> resultados = new ArrayList<>();
+		for (int numeroHilos : hilos) {
+			resultados.addAll(new Runner(new OptionsBuilder().parent(opciones).threads(numeroHilos).build()).run());
+		}
+		ResultFormatFactory.getInstance(formato, fichero).writeOut(resultados);
+		System.out.println("Resultados de " + resultados.size() + " benchmarks en " + fichero);
+	}
+}
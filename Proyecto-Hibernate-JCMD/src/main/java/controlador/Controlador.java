@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import dao.EstudianteResumen;
+import dao.EventoResumen;
 import modelo.CasaMagica;
 import modelo.CriaturaMagica;
 import modelo.CursoMagico;
@@ -13,6 +15,8 @@ import modelo.Estudiante;
 import modelo.EventoMagico;
 import modelo.Profesor;
 import servicio.Servicio;
+import utiles.HibernateUtil;
+import utiles.UnidadDeTrabajo;
 
 /**
  * Clase principal del controlador que gestiona la creación, actualización y
@@ -36,173 +40,190 @@ public class Controlador {
 	 * @param args Argumentos de la línea de comandos (no utilizados en este caso).
 	 */
 	public static void main(String[] args) {
+		// Arrancamos Hibernate antes de atender la primera operación
+		HibernateUtil.iniciar();
+
 		// Instancia de la capa servicio
 		Servicio servicio = new Servicio();
 
-		// Crear casas mágicas
-		CasaMagica gryffindor = new CasaMagica("Gryffindor");
-		CasaMagica slytherin = new CasaMagica("Slytherin");
-
-		// Crear estudiantes
-		Estudiante harry = new Estudiante("Harry Potter", 14, "Intermedio", "Acebo y pluma de fénix");
-		Estudiante hermione = new Estudiante("Hermione Granger", 15, "Avanzado", "Vid y nervio de dragón");
-		Estudiante draco = new Estudiante("Draco Malfoy", 13, "Intermedio", "Espino y pelo de unicornio");
-
-		// Crear conjunto de estudiantes para casas mágicas
-		Set<Estudiante> estudiantesGryffindor = new HashSet<>();
-		estudiantesGryffindor.add(harry);
-		estudiantesGryffindor.add(hermione);
-
-		Set<Estudiante> estudiantesSlytherin = new HashSet<>();
-		estudiantesSlytherin.add(draco);
-
-		// Insertar datos en casas mágicas
-		gryffindor.setLemaCasaMagica("El valor y el coraje");
-		gryffindor.setPuntuacionTotalCasaMagica(100);
-		gryffindor.setEstudiantes(estudiantesGryffindor);
-		harry.setCasa(gryffindor);
-		hermione.setCasa(gryffindor);
-		slytherin.setLemaCasaMagica("La ambición y la astucia");
-		slytherin.setPuntuacionTotalCasaMagica(120);
-		slytherin.setEstudiantes(estudiantesSlytherin);
-		draco.setCasa(slytherin);
-
-		// Crear cursos mágicos
-		CursoMagico defensaOscuras = new CursoMagico("Defensa Contra las Artes Oscuras", "Avanzado", 6);
-		CursoMagico pociones = new CursoMagico("Pociones", "Intermedio", 6);
-
-		// Crear conjunto de estudiantes para cursos
-		Set<CursoMagico> cursosDumbledore = new HashSet<>();
-		cursosDumbledore.add(defensaOscuras);
-
-		Set<CursoMagico> cursosSnape = new HashSet<>();
-		cursosSnape.add(pociones);
-
-		// Relacionar estudiantes con cursos mágicos
-		harry.getCursos().add(defensaOscuras);
-		hermione.getCursos().add(defensaOscuras);
-		defensaOscuras.getEstudiantes().add(harry);
-		defensaOscuras.getEstudiantes().add(hermione);
-
-		// Crear profesores con cursos y casas mágicas
-		Profesor dumbledore = new Profesor("Albus Dumbledore", "Magia Avanzada", "Experto", 50, cursosDumbledore);
-		dumbledore.setCasa(gryffindor);
-		defensaOscuras.setProfesor(dumbledore);
-
-		Profesor snape = new Profesor("Severus Snape", "Pociones", "Experto", 25, cursosSnape);
-		snape.setCasa(slytherin);
-		pociones.setProfesor(snape);
-
-		// Crear criaturas mágicas
-		CriaturaMagica colacuernoHungaro = new CriaturaMagica("Colacuerno Húngaro", "Fantástica",
-				"Dragón muy agresivo con llamas mortales", "Montañas de Hungría");
-		CriaturaMagica hedwig = new CriaturaMagica("Hedwig", "Mágica",
-				"Lechuza blanca de ojos dorados que es la compañera leal de Harry Potter",
-				"Hogwarts y la casa de los Dursley");
-		CriaturaMagica basilisco = new CriaturaMagica("Basilisco", "Peligrosa", "Serpiente gigante letal",
-				"Cámara Secreta");
-
-		// Crear eventos mágicos
-		EventoMagico torneo = new EventoMagico("Torneo de los Tres Magos",
-				"Competencia estudiantil con desafíos mágicos variados", LocalDate.now().plusMonths(3).toString(),
-				"Campo de Quidditch");
-		EventoMagico halloween = new EventoMagico("Fiesta de Halloween",
-				"Celebración mágica con disfraces y comida especial", LocalDate.now().plusWeeks(1).toString(),
-				"Jardines de Hogwarts");
-		EventoMagico guerra = new EventoMagico("Guerra de Hogwarts",
-				"Guerra entre el ejército de Voldemort y el de Harry Potter", LocalDate.now().plusMonths(6).toString(),
-				"Hogwarts");
-
-		// Crear registros en la base de datos usando el servicio
-		servicio.crearCasaMagica(gryffindor);
-		servicio.crearCasaMagica(slytherin);
-
-		servicio.crearProfesor(dumbledore);
-		servicio.crearProfesor(snape);
-
-		servicio.crearCriaturaMagica(colacuernoHungaro);
-		servicio.crearCriaturaMagica(hedwig);
-		servicio.crearCriaturaMagica(basilisco);
-
-		servicio.crearEventoMagico(torneo);
-		servicio.crearEventoMagico(halloween);
-		servicio.crearEventoMagico(guerra);
-
-		// Asignar estudiantes a eventos
-		torneo.getEstudiantes().add(harry);
-		halloween.getEstudiantes().add(draco);
-		halloween.getEstudiantes().add(hermione);
-		guerra.getEstudiantes().add(harry);
-		guerra.getEstudiantes().add(hermione);
-		guerra.getEstudiantes().add(draco);
-
-		harry.getEventos().add(torneo);
-		hermione.getEventos().add(halloween);
-		draco.getEventos().add(halloween);
-		harry.getEventos().add(guerra);
-		hermione.getEventos().add(guerra);
-		draco.getEventos().add(guerra);
-
-		// Asignar criaturas a eventos
-		colacuernoHungaro.getEventos().add(torneo);
-		hedwig.getEventos().add(halloween);
-
-		torneo.getCriaturas().add(colacuernoHungaro);
-		halloween.getCriaturas().add(hedwig);
-
-		// Eliminar el basilisco de la base de datos
-		servicio.eliminarCriaturaMagica(basilisco);
-
-		// Actualizar registros en la base de datos usando el servicio
-		// Actualizar valores de las casas mágicas
-		gryffindor.setLemaCasaMagica("El coraje y la amistad son nuestra fuerza");
-		gryffindor.setPuntuacionTotalCasaMagica(49);
-		slytherin.setLemaCasaMagica("La astucia y la ambición nos definen");
-		// Actualizar casas mágicas
-		servicio.actualizarCasaMagica(gryffindor);
-		servicio.actualizarCasaMagica(slytherin);
-
-		// Actualizar valores de los profesores
-		dumbledore.setEspecialidadProfesor("Encantamientos y duelos mágicos");
-		dumbledore.setExperienciaProfesor(60);
-		snape.setEspecialidadProfesor("Pociones y magia oscura");
-		// Actualizar profesores
-		servicio.actualizarProfesor(dumbledore);
-		servicio.actualizarProfesor(snape);
-
-		// Actualizar valores de las criaturas mágicas
-		colacuernoHungaro.setDescripcionCriaturaMagica("Dragón feroz con escamas blindadas y fuego más intenso");
-		// Actualizar criaturas mágicas
-		servicio.actualizarCriaturaMagica(colacuernoHungaro);
-
-		// Actualizar valores de los eventos mágicos
-		torneo.setDescripcionEventoMagico("Competencia mágica peligrosa");
-		torneo.setUbicacionEventoMagico("Hogwarts");
-		halloween.setDescripcionEventoMagico("Celebración anual mágica");
-		halloween.setUbicacionEventoMagico("Gran Comedor");
-		// Actualizar eventos mágicos
-		servicio.actualizarEventoMagico(torneo);
-		servicio.actualizarEventoMagico(halloween);
-
-		// Actualizar valores de los estudiantes
-		harry.setNivelMagicoEstudiante("Avanzado");
-		harry.setVaritaEstudiante("Acebo y pluma de fénix (mejorada)");
-		hermione.setNivelMagicoEstudiante("Experto");
-		hermione.setVaritaEstudiante("Vid y nervio de dragón (potenciada)");
-		draco.setNivelMagicoEstudiante("Avanzado");
-		draco.setVaritaEstudiante("Espino y pelo de unicornio (reforzada)");
-		// Actualizar estudiantes
-		servicio.actualizarEstudiante(harry);
-		servicio.actualizarEstudiante(hermione);
-		servicio.actualizarEstudiante(draco);
-
-		// Actualizar valores de los cursos mágicos
-		defensaOscuras.setNivelCursoMagico("Experto");
-		defensaOscuras.setDuracionCursoMagico(12);
-		pociones.setNivelCursoMagico("Avanzado");
-		// Actualizar cursos mágicos
-		servicio.actualizarCursoMagico(defensaOscuras);
-		servicio.actualizarCursoMagico(pociones);
+		// Las casas y los cursos que ya existen siguen asociados a la sesión de la
+		// unidad de trabajo mientras se crean y actualizan los demás objetos
+		try (UnidadDeTrabajo unidad = HibernateUtil.abrirUnidadDeTrabajo()) {
+			// Buscar las casas mágicas por su nombre, que es único, y crearlas si no
+			// existen
+			CasaMagica gryffindor = obtenerOCrearCasa(servicio, "Gryffindor");
+			CasaMagica slytherin = obtenerOCrearCasa(servicio, "Slytherin");
+
+			// Crear estudiantes
+			Estudiante harry = new Estudiante("Harry Potter", 14, "Intermedio", "Acebo y pluma de fénix");
+			Estudiante hermione = new Estudiante("Hermione Granger", 15, "Avanzado", "Vid y nervio de dragón");
+			Estudiante draco = new Estudiante("Draco Malfoy", 13, "Intermedio", "Espino y pelo de unicornio");
+
+			// Crear conjunto de estudiantes para casas mágicas
+			Set<Estudiante> estudiantesGryffindor = new HashSet<>();
+			estudiantesGryffindor.add(harry);
+			estudiantesGryffindor.add(hermione);
+
+			Set<Estudiante> estudiantesSlytherin = new HashSet<>();
+			estudiantesSlytherin.add(draco);
+
+			// Insertar datos en casas mágicas
+			gryffindor.setLemaCasaMagica("El valor y el coraje");
+			gryffindor.setPuntuacionTotalCasaMagica(100);
+			gryffindor.setEstudiantes(estudiantesGryffindor);
+			harry.setCasa(gryffindor);
+			hermione.setCasa(gryffindor);
+			slytherin.setLemaCasaMagica("La ambición y la astucia");
+			slytherin.setPuntuacionTotalCasaMagica(120);
+			slytherin.setEstudiantes(estudiantesSlytherin);
+			draco.setCasa(slytherin);
+			// Las casas, con sus estudiantes, y cada profesor se guardan en cuanto se
+			// crean: un curso que ya existía se guarda en cada confirmación y no puede
+			// apuntar a un profesor sin guardar
+			servicio.crearCasaMagica(gryffindor);
+			servicio.crearCasaMagica(slytherin);
+
+			// Buscar los cursos mágicos por su nombre, también único, y crearlos si no
+			// existen
+			CursoMagico defensaOscuras = obtenerOCrearCurso(servicio, "Defensa Contra las Artes Oscuras", "Avanzado",
+					6);
+			CursoMagico pociones = obtenerOCrearCurso(servicio, "Pociones", "Intermedio", 6);
+
+			// Crear conjunto de estudiantes para cursos
+			Set<CursoMagico> cursosDumbledore = new HashSet<>();
+			cursosDumbledore.add(defensaOscuras);
+
+			Set<CursoMagico> cursosSnape = new HashSet<>();
+			cursosSnape.add(pociones);
+
+			// Relacionar estudiantes con cursos mágicos
+			harry.getCursos().add(defensaOscuras);
+			hermione.getCursos().add(defensaOscuras);
+			defensaOscuras.getEstudiantes().add(harry);
+			defensaOscuras.getEstudiantes().add(hermione);
+
+			// Crear profesores con cursos y casas mágicas
+			Profesor dumbledore = new Profesor("Albus Dumbledore", "Magia Avanzada", "Experto", 50, cursosDumbledore);
+			// Una casa que ya existía conserva a su jefe
+			if (gryffindor.getJefeCasa() == null) {
+				dumbledore.setCasa(gryffindor);
+			}
+			defensaOscuras.setProfesor(dumbledore);
+			servicio.crearProfesor(dumbledore);
+
+			Profesor snape = new Profesor("Severus Snape", "Pociones", "Experto", 25, cursosSnape);
+			if (slytherin.getJefeCasa() == null) {
+				snape.setCasa(slytherin);
+			}
+			pociones.setProfesor(snape);
+			servicio.crearProfesor(snape);
+
+			// Crear criaturas mágicas
+			CriaturaMagica colacuernoHungaro = new CriaturaMagica("Colacuerno Húngaro", "Fantástica",
+					"Dragón muy agresivo con llamas mortales", "Montañas de Hungría");
+			CriaturaMagica hedwig = new CriaturaMagica("Hedwig", "Mágica",
+					"Lechuza blanca de ojos dorados que es la compañera leal de Harry Potter",
+					"Hogwarts y la casa de los Dursley");
+			CriaturaMagica basilisco = new CriaturaMagica("Basilisco", "Peligrosa", "Serpiente gigante letal",
+					"Cámara Secreta");
+
+			// Crear eventos mágicos
+			EventoMagico torneo = new EventoMagico("Torneo de los Tres Magos",
+					"Competencia estudiantil con desafíos mágicos variados", LocalDate.now().plusMonths(3),
+					"Campo de Quidditch");
+			EventoMagico halloween = new EventoMagico("Fiesta de Halloween",
+					"Celebración mágica con disfraces y comida especial", LocalDate.now().plusWeeks(1),
+					"Jardines de Hogwarts");
+			EventoMagico guerra = new EventoMagico("Guerra de Hogwarts",
+					"Guerra entre el ejército de Voldemort y el de Harry Potter", LocalDate.now().plusMonths(6),
+					"Hogwarts");
+
+			// Crear registros en la base de datos usando el servicio
+			servicio.crearCriaturaMagica(colacuernoHungaro);
+			servicio.crearCriaturaMagica(hedwig);
+			servicio.crearCriaturaMagica(basilisco);
+
+			servicio.crearEventoMagico(torneo);
+			servicio.crearEventoMagico(halloween);
+			servicio.crearEventoMagico(guerra);
+
+			// Asignar estudiantes a eventos
+			torneo.getEstudiantes().add(harry);
+			halloween.getEstudiantes().add(draco);
+			halloween.getEstudiantes().add(hermione);
+			guerra.getEstudiantes().add(harry);
+			guerra.getEstudiantes().add(hermione);
+			guerra.getEstudiantes().add(draco);
+
+			harry.getEventos().add(torneo);
+			hermione.getEventos().add(halloween);
+			draco.getEventos().add(halloween);
+			harry.getEventos().add(guerra);
+			hermione.getEventos().add(guerra);
+			draco.getEventos().add(guerra);
+
+			// Asignar criaturas a eventos
+			colacuernoHungaro.getEventos().add(torneo);
+			hedwig.getEventos().add(halloween);
+
+			torneo.getCriaturas().add(colacuernoHungaro);
+			halloween.getCriaturas().add(hedwig);
+
+			// Eliminar el basilisco de la base de datos
+			servicio.eliminarCriaturaMagica(basilisco);
+
+			// Actualizar registros en la base de datos usando el servicio
+			// Actualizar valores de las casas mágicas
+			gryffindor.setLemaCasaMagica("El coraje y la amistad son nuestra fuerza");
+			gryffindor.setPuntuacionTotalCasaMagica(49);
+			slytherin.setLemaCasaMagica("La astucia y la ambición nos definen");
+			// Actualizar casas mágicas
+			servicio.actualizarCasaMagica(gryffindor);
+			servicio.actualizarCasaMagica(slytherin);
+
+			// Actualizar valores de los profesores
+			dumbledore.setEspecialidadProfesor("Encantamientos y duelos mágicos");
+			dumbledore.setExperienciaProfesor(60);
+			snape.setEspecialidadProfesor("Pociones y magia oscura");
+			// Actualizar profesores
+			servicio.actualizarProfesor(dumbledore);
+			servicio.actualizarProfesor(snape);
+
+			// Actualizar valores de las criaturas mágicas
+			colacuernoHungaro.setDescripcionCriaturaMagica("Dragón feroz con escamas blindadas y fuego más intenso");
+			// Actualizar criaturas mágicas
+			servicio.actualizarCriaturaMagica(colacuernoHungaro);
+
+			// Actualizar valores de los eventos mágicos
+			torneo.setDescripcionEventoMagico("Competencia mágica peligrosa");
+			torneo.setUbicacionEventoMagico("Hogwarts");
+			halloween.setDescripcionEventoMagico("Celebración anual mágica");
+			halloween.setUbicacionEventoMagico("Gran Comedor");
+			// Actualizar eventos mágicos
+			servicio.actualizarEventoMagico(torneo);
+			servicio.actualizarEventoMagico(halloween);
+
+			// Actualizar valores de los estudiantes
+			harry.setNivelMagicoEstudiante("Avanzado");
+			harry.setVaritaEstudiante("Acebo y pluma de fénix (mejorada)");
+			hermione.setNivelMagicoEstudiante("Experto");
+			hermione.setVaritaEstudiante("Vid y nervio de dragón (potenciada)");
+			draco.setNivelMagicoEstudiante("Avanzado");
+			draco.setVaritaEstudiante("Espino y pelo de unicornio (reforzada)");
+			// Actualizar estudiantes
+			servicio.actualizarEstudiante(harry);
+			servicio.actualizarEstudiante(hermione);
+			servicio.actualizarEstudiante(draco);
+
+			// Actualizar valores de los cursos mágicos
+			defensaOscuras.setNivelCursoMagico("Experto");
+			defensaOscuras.setDuracionCursoMagico(12);
+			pociones.setNivelCursoMagico("Avanzado");
+			// Actualizar cursos mágicos
+			servicio.actualizarCursoMagico(defensaOscuras);
+			servicio.actualizarCursoMagico(pociones);
+
+		}
 
 		// Leer todas las casas mágicas
 		List<CasaMagica> casasMagicas = servicio.obtenerTodasLasCasasMagicas();
@@ -211,11 +232,11 @@ public class Controlador {
 			System.out.println("Casa Mágica: " + casa.getNombreCasaMagica());
 		}
 
-		// Leer una casa mágica específica por ID (ejemplo: id 1)
-		Optional<CasaMagica> casaGryffindor = servicio.obtenerCasaMagica(1);
+		// Leer una casa mágica específica por su nombre
+		Optional<CasaMagica> casaGryffindor = servicio.obtenerCasaMagicaPorNombre("Gryffindor");
 		if (casaGryffindor.isPresent()) {
 			CasaMagica casa = casaGryffindor.get();
-			System.out.println("Casa Mágica (ID 1): " + casa.getNombreCasaMagica());
+			System.out.println("Casa Mágica (ID " + casa.getId() + "): " + casa.getNombreCasaMagica());
 		}
 
 		// Leer todos los profesores
@@ -295,15 +316,18 @@ public class Controlador {
 		List<String> casasConAltaPuntuacion = servicio.obtenerCasasConPuntuacionMayor(50);
 		System.out.println("Casas con puntuación mayor a 50: " + casasConAltaPuntuacion);
 
-		List<Estudiante> nombresEstudiantes = servicio.obtenerNombresEstudiantes();
+		List<String> mejoresCasas = servicio.obtenerTopCasas(3);
+		System.out.println("Tres casas con más puntuación: " + mejoresCasas);
+
+		List<String> nombresEstudiantes = servicio.obtenerNombresEstudiantes();
 		System.out.println("Nombres de los estudiantes: " + nombresEstudiantes);
 
-		List<Estudiante[]> nombresYEdades = servicio.obtenerNombresYEdadesEstudiantes();
-		for (Object[] datos : nombresYEdades) {
-			System.out.println("Estudiante: " + datos[0] + ", Edad: " + datos[1]);
+		List<EstudianteResumen> nombresYEdades = servicio.obtenerNombresYEdadesEstudiantes();
+		for (EstudianteResumen datos : nombresYEdades) {
+			System.out.println("Estudiante: " + datos.nombre() + ", Edad: " + datos.edad());
 		}
 
-		List<Estudiante> estudiantesDeCasa = servicio.obtenerEstudiantesPorCasa(1);
+		List<String> estudiantesDeCasa = servicio.obtenerEstudiantesPorCasa(1);
 		System.out.println("Estudiantes de la Casa con ID 1: " + estudiantesDeCasa);
 
 		Double promedioEdad = servicio.obtenerPromedioEdadEstudiantes();
@@ -312,15 +336,54 @@ public class Controlador {
 		Long totalCursos = servicio.contarCursosMagicos();
 		System.out.println("Total de cursos mágicos: " + totalCursos);
 
-		List<EventoMagico[]> eventosEnLugar = servicio.obtenerEventosPorUbicacionOrdenados("Hogwarts");
-		for (Object[] evento : eventosEnLugar) {
-			System.out.println("Evento: " + evento[0] + ", Fecha: " + evento[1]);
+		List<EventoResumen> eventosEnLugar = servicio.obtenerEventosPorUbicacionOrdenados("Hogwarts");
+		for (EventoResumen evento : eventosEnLugar) {
+			System.out.println("Evento: " + evento.nombre() + ", Fecha: " + evento.fecha());
 		}
 
+		List<EventoResumen> eventosDelAno = servicio.obtenerEventosEntre(LocalDate.now(), LocalDate.now().plusYears(1));
+		System.out.println("Eventos del próximo año: " + eventosDelAno);
+
+		List<EventoResumen> proximosEventos = servicio.obtenerProximosEventos(2);
+		System.out.println("Próximos dos eventos: " + proximosEventos);
+
 		// Llamada al servicio para los ejercicios con CriteriaBuilder
 		// Actualizar la puntuación de una casa mágica
 		servicio.actualizarPuntuacionCasa(200, "Gryffindor");
+		// Sumar puntos por los méritos de la jornada y escribirlos antes de consultar
+		servicio.sumarPuntos("Gryffindor", 50);
+		servicio.sumarPuntos("Gryffindor", 10);
+		servicio.sumarPuntos("Slytherin", -20);
+		servicio.volcarPuntosPendientes();
+		System.out.println("Casas con más puntos: " + servicio.obtenerTopCasas(2));
 		// Eliminar un estudiante pasándole el nombre
 		servicio.eliminarEstudiantePorNombre("Draco Malfoy");
 	}
+
+	/**
+	 * Obtiene una casa mágica por su nombre o, si no existe, crea una nueva sin
+	 * guardarla, de modo que el controlador puede ejecutarse varias veces sobre la
+	 * misma base de datos.
+	 * 
+	 * @param servicio El servicio.
+	 * @param nombre   El nombre de la casa mágica.
+	 * @return La casa mágica existente o una nueva.
+	 */
+	private static CasaMagica obtenerOCrearCasa(Servicio servicio, String nombre) {
+		return servicio.obtenerCasaMagicaPorNombre(nombre).orElseGet(() -> new CasaMagica(nombre));
+	}
+
+	/**
+	 * Obtiene un curso mágico por su nombre o, si no existe, crea uno nuevo sin
+	 * guardarlo.
+	 * 
+	 * @param servicio El servicio.
+	 * @param nombre   El nombre del curso mágico.
+	 * @param nivel    El nivel del curso si se crea.
+	 * @param duracion La duración del curso si se crea.
+	 * @return El curso mágico existente o uno nuevo.
+	 */
+	private static CursoMagico obtenerOCrearCurso(Servicio servicio, String nombre, String nivel, int duracion) {
+		return servicio.obtenerCursoMagicoPorNombre(nombre).orElseGet(() -> new CursoMagico(nombre, nivel, duracion));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package controlador;
+
+import java.util.Map;
+
+import utiles.GeneradorDatos;
+import utiles.HibernateUtil;
+
+/**
+ * Clase que rellena la base de datos con datos sintéticos de Hogwarts a la
+ * escala indicada, para probar la aplicación con volúmenes parecidos a los de
+ * producción. Las tablas existentes se conservan y los datos nuevos se añaden a
+ * los que haya.
+ */
+public class GeneraDatos {
+
+	/**
+	 * Número de estudiantes que se generan por defecto.
+	 */
+	private static final int ESTUDIANTES_POR_DEFECTO = 100_000;
+
+	/**
+	 * Semilla por defecto.
+	 */
+	private static final long SEMILLA_POR_DEFECTO = 42;
+
+	/**
+	 * Método principal que genera los datos.
+	 *
+	 * @param args Argumentos opcionales: el número de estudiantes, la semilla y el
+	 *             número de hilos.
+	 */
+	public static void main(String[] args) {
+		int estudiantes = args.length > 0 ? Integer.parseInt(args[0]) : ESTUDIANTES_POR_DEFECTO;
+		long semilla = args.length > 1 ? Long.parseLong(args[1]) : SEMILLA_POR_DEFECTO;
+
+		// Arrancamos Hibernate antes de atender la primera operación
+		HibernateUtil.iniciar();
+
+		GeneradorDatos generador = new GeneradorDatos(semilla, estudiantes);
+		if (args.length > 2) {
+			generador.setHilos(Integer.parseInt(args[2]));
+		}
+		long inicio = System.nanoTime();
+		Map<String, Long> filas = generador.generar();
+		long milisegundos = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+
+		long total = 0;
+		for (Map.Entry<String, Long> tabla : filas.entrySet()) {
+			System.out.printf("%-20s %,d filas%n", tabla.getKey(), tabla.getValue());
+			total += tabla.getValue();
+		}
+		System.out.printf("Total: %,d filas en %d ms (%,d filas/s) con %d hilos y la semilla %d%n", total,
+				milisegundos, total * 1000 / milisegundos, generador.getHilos(), semilla);
+
+		HibernateUtil.shutdown();
+	}
+}
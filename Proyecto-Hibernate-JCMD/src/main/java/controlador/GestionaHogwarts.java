@@ -14,6 +14,7 @@ import modelo.CursoMagico;
 import modelo.Estudiante;
 import modelo.EventoMagico;
 import modelo.Profesor;
+import utiles.HibernateUtil;
 
 /**
  * Clase principal para gestionar la creación y administración de objetos
@@ -31,6 +32,9 @@ public class GestionaHogwarts {
 	 * @param args
 	 */
 	public static void main(String[] args) {
+		// Arrancamos Hibernate antes de atender la primera operación
+		HibernateUtil.iniciar();
+
 		// Instancias de DAOs
 		CasaMagicaDao casaMagicaDao = new CasaMagicaDao();
 		ProfesorDao profesorDao = new ProfesorDao();
@@ -97,9 +101,9 @@ public class GestionaHogwarts {
 
 		// Crear eventos mágicos
 		EventoMagico torneo = new EventoMagico("Torneo de los Tres Magos", "Competencia mágica peligrosa",
-				LocalDate.now().plusMonths(3).toString(), "Hogwarts");
+				LocalDate.now().plusMonths(3), "Hogwarts");
 		EventoMagico halloween = new EventoMagico("Fiesta de Halloween", "Celebración anual mágica",
-				LocalDate.now().plusWeeks(1).toString(), "Gran Comedor");
+				LocalDate.now().plusWeeks(1), "Gran Comedor");
 
 		casaMagicaDao.create(gryffindor);
 		casaMagicaDao.create(slytherin);
@@ -0,0 +1,100 @@
+package controlador;
+
+import java.util.List;
+
+import org.hibernate.Session;
+
+import modelo.Estudiante;
+import modelo.EventoMagico;
+import utiles.GeneradorDatos;
+import utiles.HibernateUtil;
+
+/**
+ * Clase de medición del coste de las entidades gestionadas por una sesión:
+ * rellena la base de datos con {@link GeneradorDatos}, carga todos los
+ * estudiantes y eventos en una sesión y muestra por consola la memoria que
+ * ocupan y lo que tarda el flush, sin cambios y tras modificar uno de cada cien
+ * estudiantes. Permite comparar la comprobación de cambios contra la copia de
+ * cada entidad con el seguimiento de cambios del bytecode mejorado.
+ */
+public class MideContextoPersistencia {
+
+	/**
+	 * Número de estudiantes que se generan por defecto.
+	 */
+	private static final int ESTUDIANTES_POR_DEFECTO = 50_000;
+
+	/**
+	 * Número de veces que se repite cada flush para descontar el calentamiento.
+	 */
+	private static final int REPETICIONES = 20;
+
+	/**
+	 * Método principal que ejecuta la medición.
+	 *
+	 * @param args El primer argumento, opcional, indica el número de estudiantes
+	 *             que se generan.
+	 */
+	public static void main(String[] args) {
+		int estudiantes = args.length > 0 ? Integer.parseInt(args[0]) : ESTUDIANTES_POR_DEFECTO;
+		HibernateUtil.iniciar();
+		new GeneradorDatos(42, estudiantes).generar();
+
+		try (Session sesion = HibernateUtil.getFactoriaSession().openSession()) {
+			sesion.beginTransaction();
+			long antes = memoriaUsada();
+			List<Estudiante> cargados = sesion.createQuery("FROM Estudiante", Estudiante.class).getResultList();
+			List<EventoMagico> eventos = sesion.createQuery("FROM EventoMagico", EventoMagico.class).getResultList();
+			long despues = memoriaUsada();
+			System.out.printf("Entidades gestionadas: %d estudiantes y %d eventos, %d KB de memoria%n",
+					cargados.size(), eventos.size(), (despues - antes) / 1024);
+
+			System.out.printf("Flush sin cambios: %.2f ms%n", medirFlush(sesion, cargados, false));
+			System.out.printf("Flush con el 1%% de estudiantes modificados: %.2f ms%n",
+					medirFlush(sesion, cargados, true));
+			sesion.getTransaction().rollback();
+		}
+		HibernateUtil.shutdown();
+	}
+
+	/**
+	 * Mide el tiempo medio del flush de una sesión, descartando la primera
+	 * repetición.
+	 *
+	 * @param sesion     La sesión con las entidades cargadas.
+	 * @param cargados   Los estudiantes cargados en la sesión.
+	 * @param modificar  true para modificar uno de cada cien estudiantes antes de
+	 *                   cada flush.
+	 * @return El tiempo medio en milisegundos.
+	 */
+	private static double medirFlush(Session sesion, List<Estudiante> cargados, boolean modificar) {
+		long total = 0;
+		for (int i = 0; i <= REPETICIONES; i++) {
+			if (modificar) {
+				for (int j = i; j < cargados.size(); j += 100) {
+					Estudiante estudiante = cargados.get(j);
+					estudiante.setEdadEstudiante(estudiante.getEdadEstudiante() + 1);
+				}
+			}
+			long inicio = System.nanoTime();
+			sesion.flush();
+			if (i > 0) {
+				total += System.nanoTime() - inicio;
+			}
+		}
+		return total / (REPETICIONES * 1_000_000.0);
+	}
+
+	/**
+	 * Obtiene la memoria ocupada del montículo tras pedir una recolección.
+	 *
+	 * @return Los bytes ocupados.
+	 */
+	private static long memoriaUsada() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,83 @@
+package controlador;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dao.EstudianteDao;
+import modelo.Estudiante;
+import utiles.HibernateUtil;
+
+/**
+ * Clase de medición que compara el rendimiento de la inserción de estudiantes
+ * fila a fila ({@link EstudianteDao#create(Object)}) frente a la inserción por
+ * lotes ({@link EstudianteDao#createAll(java.util.Collection)}). Muestra por
+ * consola las filas por segundo obtenidas con cada método.
+ */
+public class MideInsercionEstudiantes {
+
+	/**
+	 * Número de estudiantes que se insertan por defecto en cada medición.
+	 */
+	private static final int FILAS_POR_DEFECTO = 5000;
+
+	/**
+	 * Método principal que ejecuta ambas mediciones.
+	 * 
+	 * @param args El primer argumento, opcional, indica el número de estudiantes
+	 *             que se insertan en cada medición.
+	 */
+	public static void main(String[] args) {
+		int filas = args.length > 0 ? Integer.parseInt(args[0]) : FILAS_POR_DEFECTO;
+		EstudianteDao estudianteDao = new EstudianteDao();
+
+		// Arrancamos Hibernate antes de medir para no incluir el arranque
+		HibernateUtil.iniciar();
+
+		// Inserción fila a fila: una sesión y una transacción por estudiante
+		List<Estudiante> estudiantes = generarEstudiantes("Fila", filas);
+		long inicio = System.nanoTime();
+		for (Estudiante estudiante : estudiantes) {
+			estudianteDao.create(estudiante);
+		}
+		long nanosFilaAFila = System.nanoTime() - inicio;
+
+		// Inserción por lotes: una sesión y una transacción para todos
+		estudiantes = generarEstudiantes("Lote", filas);
+		inicio = System.nanoTime();
+		estudianteDao.createAll(estudiantes);
+		long nanosPorLotes = System.nanoTime() - inicio;
+
+		System.out.printf("Fila a fila: %d filas en %d ms (%.1f filas/s)%n", filas, nanosFilaAFila / 1_000_000,
+				filasPorSegundo(filas, nanosFilaAFila));
+		System.out.printf("Por lotes (%d): %d filas en %d ms (%.1f filas/s)%n", estudianteDao.getTamanoLote(), filas,
+				nanosPorLotes / 1_000_000, filasPorSegundo(filas, nanosPorLotes));
+
+		HibernateUtil.shutdown();
+	}
+
+	/**
+	 * Genera una lista de estudiantes sin casa asignada.
+	 * 
+	 * @param prefijo Prefijo del nombre de los estudiantes.
+	 * @param filas   Número de estudiantes a generar.
+	 * @return La lista de estudiantes generados.
+	 */
+	private static List<Estudiante> generarEstudiantes(String prefijo, int filas) {
+		List<Estudiante> estudiantes = new ArrayList<>(filas);
+		for (int i = 0; i < filas; i++) {
+			estudiantes.add(new Estudiante(prefijo + " " + i, 11 + i % 7, "Principiante", "Varita " + i));
+		}
+		return estudiantes;
+	}
+
+	/**
+	 * Calcula las filas por segundo a partir del tiempo transcurrido.
+	 * 
+	 * @param filas Número de filas insertadas.
+	 * @param nanos Tiempo transcurrido en nanosegundos.
+	 * @return Las filas insertadas por segundo.
+	 */
+	private static double filasPorSegundo(int filas, long nanos) {
+		return filas * 1_000_000_000.0 / nanos;
+	}
+}
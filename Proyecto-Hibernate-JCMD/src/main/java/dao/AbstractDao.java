@@ -1,13 +1,36 @@
 package dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
-import org.hibernate.Transaction;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 
 import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.SingularAttribute;
 import utiles.HibernateUtil;
+import utiles.MetricaOperacion;
+import utiles.MetricasDao;
 
 /**
  * Clase base abstracta para operaciones de acceso a datos (DAO) en Hibernate.
@@ -15,16 +38,128 @@ import utiles.HibernateUtil;
  * Actualizar, Eliminar) sobre entidades genéricas utilizando la sesión de
  * Hibernate.
  *
+ * Cada método público registra su latencia y sus errores en una
+ * {@link MetricaOperacion} por DAO y método, publicada como MBean por
+ * {@link MetricasDao}. Las subclases miden sus consultas propias del mismo modo
+ * con {@link #metrica(String)} y {@link #enSesion(MetricaOperacion, Function)}.
+ *
  * @param <T> El tipo de la entidad que esta clase manejará, que debe ser una
  *            clase de entidad JPA.
  */
 public abstract class AbstractDao<T> implements InterfazDao<T> {
 
+	/**
+	 * Región de la caché de resultados de consultas usada por
+	 * {@link #cachearConsulta(TypedQuery)}.
+	 */
+	protected static final String REGION_CONSULTAS = "consultas";
+
+	/**
+	 * Número máximo de entidades de una página de {@link #getPage(int, int)} y
+	 * {@link #getPage(String, Object, int, int)}.
+	 */
+	public static final int MAX_LIMITE_PAGINA = 1000;
+
 	/**
 	 * Clase de la entidad sobre la cual se realizan las operaciones CRUD.
 	 */
 	private Class<T> clase;
 
+	/**
+	 * Número de entidades que se persisten antes de vaciar y limpiar la sesión en
+	 * las inserciones por lotes. Debe coincidir con la propiedad
+	 * hibernate.jdbc.batch_size para que cada vaciado envíe un único lote JDBC.
+	 */
+	private int tamanoLote = 50;
+
+	/**
+	 * Número de filas que se piden al servidor en cada viaje al recorrer una
+	 * tabla con {@link #stream()}. Cada vez que se procesa este número de filas se
+	 * limpia la sesión.
+	 */
+	private int tamanoFetch = 500;
+
+	/**
+	 * Nombre del atributo identificador de la entidad, obtenido del metamodelo la
+	 * primera vez que se necesita.
+	 */
+	private volatile String atributoId;
+
+	/**
+	 * Métricas de {@link #create(Object)}.
+	 */
+	private final MetricaOperacion metricaCreate = metrica("create");
+
+	/**
+	 * Métricas de {@link #createAll(Collection)}.
+	 */
+	private final MetricaOperacion metricaCreateAll = metrica("createAll");
+
+	/**
+	 * Métricas de {@link #get(int)}.
+	 */
+	private final MetricaOperacion metricaGet = metrica("get");
+
+	/**
+	 * Métricas de {@link #getAll()}.
+	 */
+	private final MetricaOperacion metricaGetAll = metrica("getAll");
+
+	/**
+	 * Métricas de {@link #get(int, PlanCarga)}.
+	 */
+	private final MetricaOperacion metricaGetConPlan = metrica("getConPlan");
+
+	/**
+	 * Métricas de {@link #getAll(PlanCarga)}.
+	 */
+	private final MetricaOperacion metricaGetAllConPlan = metrica("getAllConPlan");
+
+	/**
+	 * Métricas de {@link #updateWhere(Map, CondicionCriteria)}.
+	 */
+	private final MetricaOperacion metricaUpdateWhere = metrica("updateWhere");
+
+	/**
+	 * Métricas de {@link #deleteWhere(CondicionCriteria)}.
+	 */
+	private final MetricaOperacion metricaDeleteWhere = metrica("deleteWhere");
+
+	/**
+	 * Métricas de {@link #deleteById(int...)}.
+	 */
+	private final MetricaOperacion metricaDeleteById = metrica("deleteById");
+
+	/**
+	 * Métricas de {@link #getPage(int, int)}.
+	 */
+	private final MetricaOperacion metricaGetPage = metrica("getPage");
+
+	/**
+	 * Métricas de {@link #getPage(String, Object, int, int)}.
+	 */
+	private final MetricaOperacion metricaGetPageOrdenada = metrica("getPageOrdenada");
+
+	/**
+	 * Métricas de {@link #stream()}, que solo mide la apertura del cursor.
+	 */
+	private final MetricaOperacion metricaStream = metrica("stream");
+
+	/**
+	 * Métricas de {@link #forEach(Consumer)}, que mide el recorrido completo.
+	 */
+	private final MetricaOperacion metricaForEach = metrica("forEach");
+
+	/**
+	 * Métricas de {@link #update(Object)}.
+	 */
+	private final MetricaOperacion metricaUpdate = metrica("update");
+
+	/**
+	 * Métricas de {@link #delete(Object)}.
+	 */
+	private final MetricaOperacion metricaDelete = metrica("delete");
+
 	/**
 	 * Crea una nueva entidad en la base de datos. Este método inicia una
 	 * transacción y persiste la entidad en la base de datos.
@@ -33,7 +168,30 @@ public abstract class AbstractDao<T> implements InterfazDao<T> {
 	 */
 	@Override
 	public void create(T t) {
-		executeInsideTransaction(t);
+		enTransaccionSinResultado(metricaCreate, sesion -> sesion.persist(t));
+	}
+
+	/**
+	 * Crea varias entidades en la base de datos usando una única sesión y una
+	 * única transacción. Cada {@link #getTamanoLote()} entidades se vacía la sesión
+	 * para enviar el lote de sentencias INSERT y se limpia para que la memoria
+	 * ocupada por el contexto de persistencia se mantenga constante.
+	 *
+	 * @param elementos Las entidades que se desean crear.
+	 */
+	@Override
+	public void createAll(Collection<T> elementos) {
+		enTransaccionSinResultado(metricaCreateAll, sesion -> {
+			int contador = 0;
+			for (T elemento : elementos) {
+				sesion.persist(elemento);
+				if (++contador % tamanoLote == 0) {
+					// Enviamos el lote y liberamos las entidades ya insertadas
+					sesion.flush();
+					sesion.clear();
+				}
+			}
+		});
 	}
 
 	/**
@@ -44,8 +202,30 @@ public abstract class AbstractDao<T> implements InterfazDao<T> {
 	 */
 	@Override
 	public Optional<T> get(int id) {
-		Session sesion = HibernateUtil.getFactoriaSession().openSession();
-		return Optional.ofNullable(sesion.find(clase, id));
+		return enSesion(metricaGet, sesion -> Optional.ofNullable(sesion.find(clase, id)));
+	}
+
+	/**
+	 * Recupera una entidad por su identificador natural simple, el atributo
+	 * anotado con {@link org.hibernate.annotations.NaturalId}. Si la entidad tiene
+	 * caché de identificadores naturales y caché de segundo nivel, las búsquedas
+	 * repetidas no consultan su tabla.
+	 *
+	 * La referencia resuelve el identificador natural con una consulta que solo
+	 * lee la clave primaria, y la entidad se inicializa después por su clave. El
+	 * cargador completo por identificador natural de Hibernate 6.1 no detecta el
+	 * ciclo de asociaciones ansiosas entre CasaMagica y Profesor.
+	 *
+	 * @param metrica Las métricas del método que hace la búsqueda.
+	 * @param natural El valor del identificador natural.
+	 * @return La entidad si se encuentra, o vacío si no.
+	 */
+	protected Optional<T> getPorIdNatural(MetricaOperacion metrica, Object natural) {
+		return enSesion(metrica, sesion -> {
+			T referencia = sesion.bySimpleNaturalId(clase).getReference(natural);
+			Hibernate.initialize(referencia);
+			return Optional.ofNullable(referencia);
+		});
 	}
 
 	/**
@@ -55,80 +235,527 @@ public abstract class AbstractDao<T> implements InterfazDao<T> {
 	 */
 	@Override
 	public List<T> getAll() {
-		Session sesion = HibernateUtil.getFactoriaSession().openSession();
-		String queryString = "FROM " + clase.getName();
-		TypedQuery<T> query = sesion.createQuery(queryString, clase);
-		List<T> resultados = query.getResultList();
-		return resultados;
+		return enSesion(metricaGetAll, sesion -> {
+			String queryString = "FROM " + clase.getName();
+			TypedQuery<T> query = sesion.createQuery(queryString, clase);
+			return query.getResultList();
+		});
 	}
 
 	/**
-	 * Actualiza una entidad en la base de datos. Este método ejecuta una
-	 * transacción y fusiona los cambios de la entidad en la base de datos.
+	 * Recupera una entidad por su identificador junto con las asociaciones de un
+	 * plan de carga, en tantas consultas como grafos tenga el plan.
 	 *
-	 * @param t La entidad con los datos actualizados.
+	 * @param id   El identificador de la entidad a recuperar.
+	 * @param plan El plan de carga.
+	 * @return La entidad con sus asociaciones cargadas, o vacío si no existe.
 	 */
 	@Override
-	public void update(T t) {
-		Session sesion = HibernateUtil.getFactoriaSession().openSession();
-		executeInsideTransaction(sesion, sesion.merge(t));
+	public Optional<T> get(int id, PlanCarga<T> plan) {
+		return enSesion(metricaGetConPlan, sesion -> {
+			String hql = "FROM " + clase.getName() + " e WHERE e." + getAtributoId(sesion) + " = :id";
+			List<T> resultado = cargar(sesion, hql, id, plan);
+			return resultado.isEmpty() ? Optional.<T>empty() : Optional.of(resultado.get(0));
+		});
 	}
 
 	/**
-	 * Elimina una entidad de la base de datos. Este método inicia una transacción,
-	 * elimina la entidad y luego confirma la transacción.
+	 * Recupera todas las entidades junto con las asociaciones de un plan de carga,
+	 * en tantas consultas como grafos tenga el plan, sea cual sea el número de
+	 * entidades.
 	 *
-	 * @param t La entidad a eliminar.
+	 * @param plan El plan de carga.
+	 * @return Una lista de todas las entidades con sus asociaciones cargadas.
 	 */
 	@Override
-	public void delete(T t) {
-		Session sesion = HibernateUtil.getFactoriaSession().openSession();
-		// Registramos una transacción
-		Transaction tx = sesion.beginTransaction();
+	public List<T> getAll(PlanCarga<T> plan) {
+		return enSesion(metricaGetAllConPlan, sesion -> cargar(sesion, "FROM " + clase.getName() + " e", null, plan));
+	}
+
+	/**
+	 * Ejecuta una consulta una vez por cada grafo de un plan de carga. La primera
+	 * ejecución carga las entidades y las siguientes, al devolver las mismas
+	 * entidades del contexto de persistencia, solo inicializan las colecciones de
+	 * su grafo.
+	 *
+	 * @param sesion La sesión.
+	 * @param hql    La consulta, con un parámetro :id opcional.
+	 * @param id     El valor del parámetro :id, o null si la consulta no lo tiene.
+	 * @param plan   El plan de carga.
+	 * @return Las entidades de la primera ejecución.
+	 */
+	private List<T> cargar(Session sesion, String hql, Integer id, PlanCarga<T> plan) {
+		if (plan.getClase() != clase) {
+			throw new IllegalArgumentException(plan + " no es un plan de carga de " + clase.getSimpleName());
+		}
+		List<T> resultado = null;
+		for (String grafo : plan.getGrafos()) {
+			TypedQuery<T> query = sesion.createQuery(hql, clase);
+			if (id != null) {
+				query.setParameter("id", id);
+			}
+			query.setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, sesion.getEntityGraph(grafo));
+			List<T> entidades = query.getResultList();
+			if (resultado == null) {
+				resultado = entidades;
+			}
+		}
+		return resultado;
+	}
+
+	/**
+	 * Actualiza en una única sentencia UPDATE todas las entidades que cumplen una
+	 * condición, sin cargarlas. Al terminar se invalidan las cachés de la entidad.
+	 *
+	 * @param valores   Los nuevos valores, indexados por nombre de atributo.
+	 * @param condicion La condición que deben cumplir las entidades a actualizar.
+	 * @return El número de filas actualizadas.
+	 */
+	@Override
+	public int updateWhere(Map<String, Object> valores, CondicionCriteria<T> condicion) {
+		if (valores.isEmpty()) {
+			throw new IllegalArgumentException("Debe indicarse al menos un valor a actualizar");
+		}
+		long inicio = System.nanoTime();
 		try {
-			sesion.remove(t);
-			tx.commit();
+			int filas = HibernateUtil.enTransaccion(sesion -> {
+				CriteriaBuilder cb = sesion.getCriteriaBuilder();
+				CriteriaUpdate<T> update = cb.createCriteriaUpdate(clase);
+				Root<T> root = update.from(clase);
+
+				// Configuramos los campos a actualizar y la condición
+				for (Map.Entry<String, Object> valor : valores.entrySet()) {
+					update.set(valor.getKey(), valor.getValue());
+				}
+				update.where(condicion.crear(cb, root));
+
+				// Ejecutamos la consulta
+				return sesion.createMutationQuery(update).executeUpdate();
+			});
+			invalidarCaches();
+			return filas;
 		} catch (RuntimeException e) {
-			tx.rollback();
+			metricaUpdateWhere.registrarError();
 			throw e;
 		} finally {
-			if (sesion != null) {
-				sesion.close();
+			metricaUpdateWhere.registrar(inicio);
+		}
+	}
+
+	/**
+	 * Elimina en una única sentencia DELETE todas las entidades que cumplen una
+	 * condición, sin cargarlas. Al terminar se invalidan las cachés de la entidad.
+	 * Como en cualquier borrado masivo, no se aplican las cascadas de las
+	 * relaciones.
+	 *
+	 * @param condicion La condición que deben cumplir las entidades a eliminar.
+	 * @return El número de filas eliminadas.
+	 */
+	@Override
+	public int deleteWhere(CondicionCriteria<T> condicion) {
+		return borrar(metricaDeleteWhere, sesion -> condicion);
+	}
+
+	/**
+	 * Elimina en una única sentencia DELETE las entidades con los identificadores
+	 * indicados, sin cargarlas.
+	 *
+	 * @param ids Los identificadores de las entidades a eliminar.
+	 * @return El número de filas eliminadas.
+	 */
+	@Override
+	public int deleteById(int... ids) {
+		if (ids.length == 0) {
+			return 0;
+		}
+		List<Integer> lista = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			lista.add(id);
+		}
+		return borrar(metricaDeleteById, sesion -> {
+			String id = getAtributoId(sesion);
+			return (cb, root) -> root.get(id).in(lista);
+		});
+	}
+
+	/**
+	 * Ejecuta una sentencia DELETE con la condición indicada y registra su
+	 * latencia en las métricas del método que la pide. Al terminar se invalidan
+	 * las cachés de la entidad.
+	 *
+	 * @param metrica   Las métricas del método.
+	 * @param condicion La función que obtiene la condición del borrado a partir de
+	 *                  la sesión.
+	 * @return El número de filas eliminadas.
+	 */
+	private int borrar(MetricaOperacion metrica, Function<Session, CondicionCriteria<T>> condicion) {
+		long inicio = System.nanoTime();
+		try {
+			int filas = HibernateUtil.enTransaccion(sesion -> {
+				CriteriaBuilder cb = sesion.getCriteriaBuilder();
+				CriteriaDelete<T> delete = cb.createCriteriaDelete(clase);
+				Root<T> root = delete.from(clase);
+
+				// Configuramos la condición para el borrado
+				delete.where(condicion.apply(sesion).crear(cb, root));
+
+				// Ejecutamos la consulta
+				return sesion.createMutationQuery(delete).executeUpdate();
+			});
+			invalidarCaches();
+			return filas;
+		} catch (RuntimeException e) {
+			metrica.registrarError();
+			throw e;
+		} finally {
+			metrica.registrar(inicio);
+		}
+	}
+
+	/**
+	 * Invalida el contexto de persistencia de la sesión actual tras una operación
+	 * masiva, si la sesión se comparte en una unidad de trabajo, para que las
+	 * lecturas siguientes no devuelvan entidades con los valores anteriores. Antes
+	 * se vacían en la base de datos los cambios pendientes de la sesión: Hibernate
+	 * solo vacía antes de la sentencia masiva los de sus tablas, y al limpiar la
+	 * sesión se perderían los del resto. Las entidades que tuviera cargadas el
+	 * llamante quedan separadas de la sesión.
+	 *
+	 * La región de segundo nivel de la entidad y las de sus colecciones no se
+	 * tocan aquí: Hibernate ya las invalida al ejecutar cualquier sentencia
+	 * UPDATE o DELETE masiva.
+	 */
+	protected void invalidarCaches() {
+		Session actual = HibernateUtil.getSesionActual();
+		if (actual != null) {
+			if (actual.getTransaction().isActive()) {
+				actual.flush();
 			}
+			actual.clear();
+		}
+	}
+
+	/**
+	 * Marca una consulta para que su resultado se guarde en la caché de consultas.
+	 * Hibernate indexa cada resultado por el SQL y los valores de sus parámetros y
+	 * lo invalida en cuanto se confirma una escritura, unitaria o masiva, sobre
+	 * cualquiera de las tablas que lee la consulta.
+	 *
+	 * @param <R>   El tipo del resultado de la consulta.
+	 * @param query La consulta a cachear.
+	 * @return La misma consulta, para encadenar llamadas.
+	 */
+	protected static <R> TypedQuery<R> cachearConsulta(TypedQuery<R> query) {
+		query.setHint(HibernateHints.HINT_CACHEABLE, true);
+		query.setHint(HibernateHints.HINT_CACHE_REGION, REGION_CONSULTAS);
+		return query;
+	}
+
+	/**
+	 * Crea una consulta que construye un objeto de tipo {@code R} por fila con el
+	 * constructor que recibe las expresiones seleccionadas, normalmente un record.
+	 * Los resultados no son entidades: no pasan por el contexto de persistencia, no
+	 * se comprueban al hacer flush y no se crea ningún objeto intermedio por fila.
+	 *
+	 * @param <R>     El tipo de la proyección.
+	 * @param sesion  La sesión en la que se crea la consulta.
+	 * @param tipo    La clase de la proyección.
+	 * @param select  Las expresiones seleccionadas, en el orden del constructor.
+	 * @param resto   El resto de la consulta HQL, desde la cláusula FROM.
+	 * @return La consulta.
+	 */
+	protected static <R> TypedQuery<R> proyectar(Session sesion, Class<R> tipo, String select, String resto) {
+		String hql = "SELECT new " + tipo.getName() + "(" + select + ") " + resto;
+		return sesion.createQuery(hql, tipo);
+	}
+
+	/**
+	 * Obtiene las métricas de un método de este DAO. Deben guardarse en un campo
+	 * al crear el DAO para no buscarlas en cada llamada.
+	 *
+	 * @param metodo El nombre del método.
+	 * @return Las métricas del método.
+	 */
+	protected final MetricaOperacion metrica(String metodo) {
+		return MetricasDao.operacion(getClass(), metodo);
+	}
+
+	/**
+	 * Ejecuta una operación con {@link HibernateUtil#enSesion(Function)} y
+	 * registra su latencia y, si falla, el error en las métricas indicadas.
+	 *
+	 * @param <R>       El tipo del resultado de la operación.
+	 * @param metrica   Las métricas del método.
+	 * @param operacion La operación a ejecutar.
+	 * @return El resultado de la operación.
+	 */
+	protected static <R> R enSesion(MetricaOperacion metrica, Function<Session, R> operacion) {
+		long inicio = System.nanoTime();
+		try {
+			return HibernateUtil.enSesion(operacion);
+		} catch (RuntimeException e) {
+			metrica.registrarError();
+			throw e;
+		} finally {
+			metrica.registrar(inicio);
 		}
 	}
 
 	/**
-	 * Ejecuta una transacción en la que se persiste una entidad. Se utiliza para la
-	 * creación de nuevas entidades en la base de datos.
+	 * Ejecuta una operación con
+	 * {@link HibernateUtil#enTransaccionSinResultado(Consumer)} y registra su
+	 * latencia y, si falla, el error en las métricas indicadas.
 	 *
-	 * @param sesion La sesión de Hibernate para realizar la operación.
-	 * @param objeto La entidad a persistir.
+	 * @param metrica   Las métricas del método.
+	 * @param operacion La operación a ejecutar.
 	 */
-	private void executeInsideTransaction(Session sesion, T objeto) {
-		// Registramos una transacción
-		Transaction tx = sesion.beginTransaction();
+	protected static void enTransaccionSinResultado(MetricaOperacion metrica, Consumer<Session> operacion) {
+		long inicio = System.nanoTime();
 		try {
-			sesion.persist(objeto);
-			tx.commit();
+			HibernateUtil.enTransaccionSinResultado(operacion);
 		} catch (RuntimeException e) {
-			tx.rollback();
+			metrica.registrarError();
 			throw e;
 		} finally {
-			if (sesion != null) {
-				sesion.close();
+			metrica.registrar(inicio);
+		}
+	}
+
+	/**
+	 * Ejecuta una operación con
+	 * {@link HibernateUtil#enTransaccionNueva(Consumer)} y registra su latencia y,
+	 * si falla, el error en las métricas indicadas.
+	 *
+	 * @param metrica   Las métricas del método.
+	 * @param operacion La operación a ejecutar.
+	 */
+	protected static void enTransaccionNueva(MetricaOperacion metrica, Consumer<Session> operacion) {
+		long inicio = System.nanoTime();
+		try {
+			HibernateUtil.enTransaccionNueva(operacion);
+		} catch (RuntimeException e) {
+			metrica.registrarError();
+			throw e;
+		} finally {
+			metrica.registrar(inicio);
+		}
+	}
+
+	/**
+	 * Recupera una página de entidades mediante paginación por clave. La consulta
+	 * filtra por identificador mayor que el último de la página anterior y se
+	 * resuelve recorriendo la clave primaria desde ese punto, por lo que su coste
+	 * depende solo del tamaño de la página y no de su posición en la tabla.
+	 *
+	 * @param despuesDeId El identificador del último elemento de la página
+	 *                    anterior, o 0 para obtener la primera página.
+	 * @param limite      El número máximo de entidades de la página, entre 1 y
+	 *                    {@value #MAX_LIMITE_PAGINA}.
+	 * @return La página de entidades.
+	 * @throws IllegalArgumentException Si el límite está fuera de rango.
+	 */
+	@Override
+	public Pagina<T> getPage(int despuesDeId, int limite) {
+		comprobarLimite(limite);
+		return enSesion(metricaGetPage, sesion -> {
+			String id = getAtributoId(sesion);
+			String hql = "SELECT e, e." + id + " FROM " + clase.getName() + " e WHERE e." + id
+					+ " > :despuesDeId ORDER BY e." + id;
+			TypedQuery<Object[]> query = sesion.createQuery(hql, Object[].class);
+			query.setParameter("despuesDeId", despuesDeId);
+			// Pedimos una fila más para saber si hay página siguiente
+			query.setMaxResults(limite + 1);
+			return construirPagina(query.getResultList(), limite);
+		});
+	}
+
+	/**
+	 * Recupera una página de entidades ordenadas por un atributo y por
+	 * identificador, mediante paginación por clave. Para que cada página se
+	 * resuelva con un recorrido acotado, el atributo debe estar indexado junto con
+	 * el identificador.
+	 *
+	 * @param atributo       El nombre del atributo de ordenación, que no debe
+	 *                       contener valores nulos.
+	 * @param despuesDeValor El valor del atributo del último elemento de la página
+	 *                       anterior, o null para obtener la primera página.
+	 * @param despuesDeId    El identificador del último elemento de la página
+	 *                       anterior.
+	 * @param limite         El número máximo de entidades de la página, entre 1 y
+	 *                       {@value #MAX_LIMITE_PAGINA}.
+	 * @return La página de entidades.
+	 * @throws IllegalArgumentException Si la entidad no tiene el atributo
+	 *                                  indicado o el límite está fuera de rango.
+	 */
+	@Override
+	public Pagina<T> getPage(String atributo, Object despuesDeValor, int despuesDeId, int limite) {
+		comprobarLimite(limite);
+		return enSesion(metricaGetPageOrdenada, sesion -> {
+			// Validamos el atributo contra el metamodelo antes de usarlo en la consulta
+			String orden = sesion.getMetamodel().entity(clase).getSingularAttribute(atributo).getName();
+			String id = getAtributoId(sesion);
+			StringBuilder hql = new StringBuilder("SELECT e, e.").append(id).append(", e.").append(orden)
+					.append(" FROM ").append(clase.getName()).append(" e");
+			if (despuesDeValor != null) {
+				hql.append(" WHERE e.").append(orden).append(" > :valor OR (e.").append(orden)
+						.append(" = :valor AND e.").append(id).append(" > :despuesDeId)");
+			}
+			hql.append(" ORDER BY e.").append(orden).append(", e.").append(id);
+			TypedQuery<Object[]> query = sesion.createQuery(hql.toString(), Object[].class);
+			if (despuesDeValor != null) {
+				query.setParameter("valor", despuesDeValor);
+				query.setParameter("despuesDeId", despuesDeId);
+			}
+			// Pedimos una fila más para saber si hay página siguiente
+			query.setMaxResults(limite + 1);
+			return construirPagina(query.getResultList(), limite);
+		});
+	}
+
+	/**
+	 * Comprueba que el límite de una página esté entre 1 y
+	 * {@value #MAX_LIMITE_PAGINA}, lo que además garantiza que la fila de más que
+	 * se pide para saber si hay página siguiente no desborde un entero.
+	 *
+	 * @param limite El número máximo de entidades de la página.
+	 * @throws IllegalArgumentException Si el límite está fuera de rango.
+	 */
+	private static void comprobarLimite(int limite) {
+		if (limite < 1 || limite > MAX_LIMITE_PAGINA) {
+			throw new IllegalArgumentException(
+					"El límite de la página debe estar entre 1 y " + MAX_LIMITE_PAGINA + ": " + limite);
+		}
+	}
+
+	/**
+	 * Construye una página a partir de las filas de una consulta por clave. Cada
+	 * fila contiene la entidad, su identificador y, opcionalmente, el valor de la
+	 * clave de ordenación.
+	 *
+	 * @param filas  Las filas obtenidas, como máximo una más que el límite.
+	 * @param limite El número máximo de entidades de la página.
+	 * @return La página de entidades.
+	 */
+	@SuppressWarnings("unchecked")
+	private Pagina<T> construirPagina(List<Object[]> filas, int limite) {
+		boolean hayMas = filas.size() > limite;
+		int tamano = Math.min(filas.size(), limite);
+		List<T> elementos = new ArrayList<>(tamano);
+		for (int i = 0; i < tamano; i++) {
+			elementos.add((T) filas.get(i)[0]);
+		}
+		if (tamano == 0) {
+			return new Pagina<>(elementos, 0, null, false);
+		}
+		Object[] ultima = filas.get(tamano - 1);
+		return new Pagina<>(elementos, (Integer) ultima[1], ultima.length > 2 ? ultima[2] : null, hayMas);
+	}
+
+	/**
+	 * Obtiene el nombre del atributo identificador de la entidad a partir del
+	 * metamodelo.
+	 *
+	 * @param sesion La sesión desde la que se consulta el metamodelo.
+	 * @return El nombre del atributo identificador.
+	 */
+	private String getAtributoId(Session sesion) {
+		if (atributoId == null) {
+			for (SingularAttribute<? super T, ?> atributo : sesion.getMetamodel().entity(clase)
+					.getSingularAttributes()) {
+				if (atributo.isId()) {
+					atributoId = atributo.getName();
+				}
 			}
 		}
+		return atributoId;
+	}
+
+	/**
+	 * Recupera todas las entidades como un flujo respaldado por un cursor de solo
+	 * avance. Las filas se leen en bloques de {@link #getTamanoFetch()} y la
+	 * sesión se limpia tras cada bloque, por lo que la memoria ocupada no depende
+	 * del tamaño de la tabla. Las entidades se cargan en modo de solo lectura y
+	 * quedan desasociadas de la sesión tras cada limpieza. Sus asociaciones se
+	 * cargan de forma diferida aunque estén mapeadas como EAGER, porque la carga
+	 * por lotes de hibernate.default_batch_fetch_size las resolvería al cerrar el
+	 * cursor, sobre entidades que ya no están en la sesión.
+	 * 
+	 * El flujo mantiene abierta su propia sesión hasta que se cierra, por lo que
+	 * debe usarse con try-with-resources.
+	 *
+	 * @return Un flujo con todas las entidades.
+	 */
+	@Override
+	public Stream<T> stream() {
+		long inicio = System.nanoTime();
+		Session sesion = HibernateUtil.abrirSesion();
+		try {
+			String queryString = "FROM " + clase.getName();
+			ScrollableResults<T> resultados = sesion.createQuery(queryString, clase).setFetchSize(tamanoFetch)
+					.setReadOnly(true).setCacheMode(CacheMode.IGNORE)
+					// Un grafo vacío hace diferidas todas las asociaciones
+					.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, sesion.createEntityGraph(clase))
+					.scroll(ScrollMode.FORWARD_ONLY);
+			Iterator<T> iterador = new IteradorScroll<>(sesion, resultados, tamanoFetch);
+			return StreamSupport
+					.stream(Spliterators.spliteratorUnknownSize(iterador, Spliterator.ORDERED | Spliterator.NONNULL),
+							false)
+					.onClose(() -> {
+						try {
+							resultados.close();
+						} finally {
+							HibernateUtil.cerrarSesion(sesion);
+						}
+					});
+		} catch (RuntimeException e) {
+			metricaStream.registrarError();
+			HibernateUtil.cerrarSesion(sesion);
+			throw e;
+		} finally {
+			metricaStream.registrar(inicio);
+		}
 	}
 
 	/**
-	 * Ejecuta una transacción en la que se persiste una entidad. Este método
-	 * utiliza la fábrica de sesiones de Hibernate para abrir una nueva sesión.
+	 * Recorre todas las entidades con un flujo de {@link #stream()} y aplica una
+	 * acción a cada una, cerrando el flujo al terminar.
 	 *
-	 * @param objeto La entidad a persistir.
+	 * @param accion La acción a aplicar a cada entidad.
 	 */
-	private void executeInsideTransaction(T objeto) {
-		executeInsideTransaction(HibernateUtil.getFactoriaSession().openSession(), objeto);
+	@Override
+	public void forEach(Consumer<T> accion) {
+		long inicio = System.nanoTime();
+		try (Stream<T> entidades = stream()) {
+			entidades.forEach(accion);
+		} catch (RuntimeException e) {
+			metricaForEach.registrarError();
+			throw e;
+		} finally {
+			metricaForEach.registrar(inicio);
+		}
+	}
+
+	/**
+	 * Actualiza una entidad en la base de datos. Este método ejecuta una
+	 * transacción y fusiona los cambios de la entidad en la base de datos.
+	 *
+	 * @param t La entidad con los datos actualizados.
+	 */
+	@Override
+	public void update(T t) {
+		enTransaccionSinResultado(metricaUpdate, sesion -> sesion.merge(t));
+	}
+
+	/**
+	 * Elimina una entidad de la base de datos. Este método inicia una transacción,
+	 * elimina la entidad y luego confirma la transacción. Si la entidad no está
+	 * asociada a la sesión actual, se fusiona antes de eliminarla.
+	 *
+	 * @param t La entidad a eliminar.
+	 */
+	@Override
+	public void delete(T t) {
+		enTransaccionSinResultado(metricaDelete, sesion -> sesion.remove(sesion.contains(t) ? t : sesion.merge(t)));
 	}
 
 	/**
@@ -148,4 +775,125 @@ public abstract class AbstractDao<T> implements InterfazDao<T> {
 	public void setClase(Class<T> clase) {
 		this.clase = clase;
 	}
+
+	/**
+	 * Obtiene el número de entidades que forman cada lote en las inserciones
+	 * masivas.
+	 *
+	 * @return El tamaño del lote.
+	 */
+	public int getTamanoLote() {
+		return tamanoLote;
+	}
+
+	/**
+	 * Establece el número de entidades que forman cada lote en las inserciones
+	 * masivas.
+	 *
+	 * @param tamanoLote El tamaño del lote, mayor que cero.
+	 */
+	public void setTamanoLote(int tamanoLote) {
+		if (tamanoLote <= 0) {
+			throw new IllegalArgumentException("El tamaño del lote debe ser mayor que cero");
+		}
+		this.tamanoLote = tamanoLote;
+	}
+
+	/**
+	 * Obtiene el número de filas que se leen en cada bloque al recorrer una tabla
+	 * con {@link #stream()}.
+	 *
+	 * @return El tamaño de bloque de lectura.
+	 */
+	public int getTamanoFetch() {
+		return tamanoFetch;
+	}
+
+	/**
+	 * Establece el número de filas que se leen en cada bloque al recorrer una
+	 * tabla con {@link #stream()}.
+	 *
+	 * @param tamanoFetch El tamaño de bloque de lectura, mayor que cero.
+	 */
+	public void setTamanoFetch(int tamanoFetch) {
+		if (tamanoFetch <= 0) {
+			throw new IllegalArgumentException("El tamaño de bloque de lectura debe ser mayor que cero");
+		}
+		this.tamanoFetch = tamanoFetch;
+	}
+
+	/**
+	 * Iterador sobre un cursor de Hibernate que limpia la sesión cada cierto
+	 * número de filas para no acumular entidades en memoria.
+	 *
+	 * @param <E> El tipo de las entidades recorridas.
+	 */
+	private static final class IteradorScroll<E> implements Iterator<E> {
+
+		/**
+		 * Sesión a la que pertenece el cursor.
+		 */
+		private final Session sesion;
+
+		/**
+		 * Cursor de solo avance sobre los resultados.
+		 */
+		private final ScrollableResults<E> resultados;
+
+		/**
+		 * Número de filas tras el cual se limpia la sesión.
+		 */
+		private final int tamanoBloque;
+
+		/**
+		 * Número de filas devueltas hasta el momento.
+		 */
+		private long leidas;
+
+		/**
+		 * Indica si el cursor ya se ha avanzado a la siguiente fila.
+		 */
+		private boolean avanzado;
+
+		/**
+		 * Indica si el cursor está situado sobre una fila válida.
+		 */
+		private boolean hayFila;
+
+		/**
+		 * Crea el iterador sobre un cursor.
+		 *
+		 * @param sesion       La sesión a la que pertenece el cursor.
+		 * @param resultados   El cursor de solo avance.
+		 * @param tamanoBloque Número de filas tras el cual se limpia la sesión.
+		 */
+		private IteradorScroll(Session sesion, ScrollableResults<E> resultados, int tamanoBloque) {
+			this.sesion = sesion;
+			this.resultados = resultados;
+			this.tamanoBloque = tamanoBloque;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!avanzado) {
+				if (leidas > 0 && leidas % tamanoBloque == 0) {
+					// Liberamos las entidades del bloque ya procesado
+					sesion.clear();
+				}
+				hayFila = resultados.next();
+				avanzado = true;
+			}
+			return hayFila;
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			avanzado = false;
+			leidas++;
+			return resultados.get();
+		}
+	}
 }
\ No newline at end of file
@@ -1,17 +1,21 @@
 package dao;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
 
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.query.MutationQuery;
 
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaUpdate;
-import jakarta.persistence.criteria.Root;
 import modelo.CasaMagica;
+import utiles.AcumuladorPuntos;
 import utiles.HibernateUtil;
+import utiles.MetricaOperacion;
 
 /**
  * Clase DAO específica para manejar las operaciones CRUD de la entidad
@@ -24,6 +28,70 @@ import utiles.HibernateUtil;
  */
 public class CasaMagicaDao extends AbstractDao<CasaMagica> {
 
+	/**
+	 * Plan que carga las casas con su jefe. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<CasaMagica> PLAN_JEFE = PlanCarga.de(CasaMagica.class, CasaMagica.GRAFO_JEFE);
+
+	/**
+	 * Plan que carga las casas con su jefe y sus estudiantes. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<CasaMagica> PLAN_ESTUDIANTES = PlanCarga.de(
+			CasaMagica.class, CasaMagica.GRAFO_ESTUDIANTES);
+
+	/**
+	 * Propiedad de configuración con el tiempo, en milisegundos, entre dos
+	 * volcados de los puntos sumados con {@link #sumarPuntos(String, int)}.
+	 */
+	public static final String INTERVALO_PUNTOS = "hogwarts.puntos.intervalo_ms";
+
+	/**
+	 * Propiedad de configuración con el número de sumas pendientes que provoca un
+	 * volcado de los puntos sin esperar al intervalo.
+	 */
+	public static final String UMBRAL_PUNTOS = "hogwarts.puntos.umbral";
+
+	/**
+	 * Logger del DAO de casas mágicas.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(CasaMagicaDao.class);
+
+	/**
+	 * Acumulador de los puntos pendientes de cada casa, compartido por todos los
+	 * DAOs hasta que se cierra Hibernate.
+	 */
+	private static volatile AcumuladorPuntos acumuladorPuntos;
+
+	/**
+	 * Métricas de {@link #obtenerPorNombre(String)}.
+	 */
+	private final MetricaOperacion metricaObtenerPorNombre = metrica("obtenerPorNombre");
+
+	/**
+	 * Métricas de {@link #obtenerPrimeraCasaMagica()}.
+	 */
+	private final MetricaOperacion metricaObtenerPrimeraCasaMagica = metrica("obtenerPrimeraCasaMagica");
+
+	/**
+	 * Métricas de {@link #obtenerCasasConPuntuacionMayor(int)}.
+	 */
+	private final MetricaOperacion metricaObtenerCasasConPuntuacionMayor = metrica("obtenerCasasConPuntuacionMayor");
+
+	/**
+	 * Métricas de {@link #obtenerTopCasas(int)}.
+	 */
+	private final MetricaOperacion metricaObtenerTopCasas = metrica("obtenerTopCasas");
+
+	/**
+	 * Métricas de {@link #actualizarPuntuacionCasa(int, String)}.
+	 */
+	private final MetricaOperacion metricaActualizarPuntuacionCasa = metrica("actualizarPuntuacionCasa");
+
+	/**
+	 * Métricas de {@link #escribirPuntos(SortedMap)}.
+	 */
+	private final MetricaOperacion metricaVolcarPuntos = metrica("volcarPuntos");
+
 	/**
 	 * Constructor que configura la clase CasaMagica como la clase de entidad a
 	 * manejar por este DAO.
@@ -32,6 +100,18 @@ public class CasaMagicaDao extends AbstractDao<CasaMagica> {
 		setClase(CasaMagica.class);
 	}
 
+	/**
+	 * Obtiene una casa mágica por su nombre, su identificador natural. Tras la
+	 * primera búsqueda de cada nombre, las siguientes se resuelven con la caché de
+	 * identificadores naturales y la de entidades, sin consultar casas_magicas.
+	 * 
+	 * @param nombreCasa El nombre de la casa mágica.
+	 * @return La casa si existe, o vacío si no.
+	 */
+	public Optional<CasaMagica> obtenerPorNombre(String nombreCasa) {
+		return getPorIdNatural(metricaObtenerPorNombre, nombreCasa);
+	}
+
 	/**
 	 * Consulta que obtiene la primera casa mágica en la base de datos ordenada por
 	 * su identificador de forma ascendente.
@@ -39,72 +119,204 @@ public class CasaMagicaDao extends AbstractDao<CasaMagica> {
 	 * @return La primera instancia de CasaMagica ordenada por ID.
 	 */
 	public CasaMagica obtenerPrimeraCasaMagica() {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
+		return enSesion(metricaObtenerPrimeraCasaMagica, session -> {
 			String hql = "FROM CasaMagica c ORDER BY c.idCasaMagica ASC";
 			TypedQuery<CasaMagica> query = session.createQuery(hql, CasaMagica.class);
 			query.setMaxResults(1);
 			return query.getSingleResult();
-		} finally {
-			session.close();
-		}
+		});
 	}
 
 	/**
 	 * Consulta parametrizada que obtiene los nombres de las casas mágicas cuya
 	 * puntuación total sea mayor que un valor mínimo especificado.
 	 * 
+	 * La base de datos filtra y devuelve solo los nombres, recorriendo el rango del
+	 * índice idx_casas_puntuacion. El resultado se guarda en la caché de consultas.
+	 * 
 	 * @param minPuntuacion La puntuación mínima para filtrar las casas mágicas.
 	 * @return Una lista con los nombres de las casas mágicas que cumplen con el
 	 *         criterio.
 	 */
 	public List<String> obtenerCasasConPuntuacionMayor(int minPuntuacion) {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
-			String hql = "FROM CasaMagica c WHERE c.puntuacionTotalCasaMagica > :minPuntuacion";
-			TypedQuery<CasaMagica> query = session.createQuery(hql, CasaMagica.class);
+		return enSesion(metricaObtenerCasasConPuntuacionMayor, session -> {
+			String hql = "SELECT c.nombreCasaMagica FROM CasaMagica c WHERE c.puntuacionTotalCasaMagica > :minPuntuacion";
+			TypedQuery<String> query = cachearConsulta(session.createQuery(hql, String.class));
 			query.setParameter("minPuntuacion", minPuntuacion);
+			return query.getResultList();
+		});
+	}
 
-			List<CasaMagica> casas = query.getResultList();
-			List<String> nombres = new ArrayList<>();
-			for (CasaMagica casa : casas) {
-				nombres.add(casa.getNombreCasaMagica());
-			}
-			return nombres;
-		} finally {
-			session.close();
-		}
+	/**
+	 * Consulta que obtiene los nombres de las casas mágicas con mayor puntuación
+	 * total, de mayor a menor. Las casas empatadas se ordenan por nombre
+	 * descendente, de modo que la base de datos lee las k primeras entradas del
+	 * índice idx_casas_puntuacion en orden inverso, sin ordenar ni leer la tabla.
+	 * 
+	 * El resultado se guarda en la caché de consultas.
+	 * 
+	 * @param k El número máximo de casas a devolver.
+	 * @return Una lista con los nombres de las casas, de mayor a menor puntuación.
+	 */
+	public List<String> obtenerTopCasas(int k) {
+		return enSesion(metricaObtenerTopCasas, session -> {
+			String hql = "SELECT c.nombreCasaMagica FROM CasaMagica c "
+					+ "ORDER BY c.puntuacionTotalCasaMagica DESC, c.nombreCasaMagica DESC";
+			TypedQuery<String> query = cachearConsulta(session.createQuery(hql, String.class));
+			query.setMaxResults(k);
+			return query.getResultList();
+		});
 	}
 
 	/**
 	 * Operación de actualización que utiliza CriteriaBuilder para modificar la
 	 * puntuación total de una casa mágica específica identificada por su nombre.
+	 * Sustituye el valor anterior, por lo que dos escritores concurrentes pierden
+	 * una de las dos actualizaciones; para sumar puntos debe usarse
+	 * {@link #sumarPuntos(String, int)}.
 	 * 
 	 * @param nuevaPuntuacion La nueva puntuación total que se asignará a la casa.
 	 * @param nombreCasa      El nombre de la casa mágica que se actualizará.
 	 */
 	public void actualizarPuntuacionCasa(int nuevaPuntuacion, String nombreCasa) {
-		Session sesion = HibernateUtil.getFactoriaSession().openSession();
-		Transaction transaccion = sesion.beginTransaction();
+		long inicio = System.nanoTime();
 		try {
-			CriteriaBuilder cb = sesion.getCriteriaBuilder();
-			CriteriaUpdate<CasaMagica> update = cb.createCriteriaUpdate(CasaMagica.class);
-			Root<CasaMagica> root = update.from(CasaMagica.class);
-
+			// Los puntos sumados antes se aplican antes que la nueva puntuación
+			volcarPuntosPendientes();
 			// Configuramos el campo a actualizar y la condición
-			update.set(root.get("puntuacionTotalCasaMagica"), nuevaPuntuacion)
-					.where(cb.equal(root.get("nombreCasaMagica"), nombreCasa));
-
-			// Ejecutamos la consulta
-			sesion.createQuery(update).executeUpdate();
-			transaccion.commit();
+			updateWhere(Collections.singletonMap("puntuacionTotalCasaMagica", nuevaPuntuacion),
+					(cb, root) -> cb.equal(root.get("nombreCasaMagica"), nombreCasa));
 		} catch (Exception e) {
-			if (transaccion != null) {
-				transaccion.rollback();
-			}
-			e.printStackTrace();
+			metricaActualizarPuntuacionCasa.registrarError();
+			LOGGER.error("No se pudo actualizar la puntuación de la casa {} a {}", nombreCasa, nuevaPuntuacion, e);
 		} finally {
-			sesion.close();
+			metricaActualizarPuntuacionCasa.registrar(inicio);
+		}
+	}
+
+	/**
+	 * Suma puntos, o los resta si el delta es negativo, a una casa mágica. La suma
+	 * se hace en memoria sin bloquear a otros hilos; los puntos de cada casa se
+	 * combinan y se escriben con una única sentencia
+	 * {@code puntuacion = puntuacion + delta} en cada volcado: periódicamente,
+	 * según {@value #INTERVALO_PUNTOS}, en cuanto las sumas pendientes alcanzan
+	 * {@value #UMBRAL_PUNTOS} y al cerrar Hibernate. Hasta entonces las consultas
+	 * no ven los puntos sumados. Los puntos de una casa que no existe se descartan
+	 * al volcarlos.
+	 * 
+	 * @param nombreCasa El nombre de la casa mágica.
+	 * @param delta      Los puntos a sumar.
+	 * @throws IllegalStateException Si Hibernate no está arrancado o se está
+	 *                               cerrando.
+	 */
+	public void sumarPuntos(String nombreCasa, int delta) {
+		if (!acumuladorPuntos().sumar(nombreCasa, delta)) {
+			// El acumulador se detuvo al empezar a cerrarse Hibernate
+			throw new IllegalStateException("Hibernate se está cerrando: no se admiten más puntos");
+		}
+	}
+
+	/**
+	 * Escribe en la base de datos los puntos pendientes sumados con
+	 * {@link #sumarPuntos(String, int)}, sin esperar al siguiente volcado.
+	 * 
+	 * @return El número de casas cuya puntuación se ha actualizado.
+	 */
+	public int volcarPuntosPendientes() {
+		AcumuladorPuntos acumulador = acumuladorPuntos;
+		return acumulador != null ? acumulador.volcar() : 0;
+	}
+
+	/**
+	 * Obtiene el acumulador de puntos, creándolo si aún no existe. Se detiene, con
+	 * un último volcado, al cerrar Hibernate. A diferencia del resto de
+	 * operaciones, no arranca Hibernate: tras cerrarlo, sumar puntos falla en vez
+	 * de volver a arrancarlo.
+	 * 
+	 * @return El acumulador de puntos.
+	 * @throws IllegalStateException Si Hibernate no está arrancado o se está
+	 *                               cerrando.
+	 */
+	private AcumuladorPuntos acumuladorPuntos() {
+		AcumuladorPuntos acumulador = acumuladorPuntos;
+		if (acumulador == null) {
+			synchronized (CasaMagicaDao.class) {
+				acumulador = acumuladorPuntos;
+				if (acumulador == null) {
+					comprobarAbierto();
+					AcumuladorPuntos creado = new AcumuladorPuntos(this::escribirPuntos,
+							HibernateUtil.getPropiedadEntera(INTERVALO_PUNTOS, 200),
+							HibernateUtil.getPropiedadEntera(UMBRAL_PUNTOS, 10_000));
+					HibernateUtil.alCerrar(() -> {
+						synchronized (CasaMagicaDao.class) {
+							if (acumuladorPuntos == creado) {
+								acumuladorPuntos = null;
+							}
+						}
+						creado.detener();
+					});
+					if (HibernateUtil.seEstaCerrando() || !HibernateUtil.estaArrancado()) {
+						// El cierre empezó mientras se creaba y puede no ejecutar ya su tarea
+						creado.detener();
+						comprobarAbierto();
+					}
+					acumuladorPuntos = acumulador = creado;
+				}
+			}
+		}
+		return acumulador;
+	}
+
+	/**
+	 * Comprueba que Hibernate esté arrancado y no se esté cerrando, sin
+	 * arrancarlo.
+	 * 
+	 * @throws IllegalStateException Si no está arrancado o se está cerrando.
+	 */
+	private static void comprobarAbierto() {
+		if (!HibernateUtil.estaArrancado() || HibernateUtil.seEstaCerrando()) {
+			throw new IllegalStateException("Hibernate no está arrancado o se está cerrando: no se admiten puntos");
+		}
+	}
+
+	/**
+	 * Operación de actualización que suma a cada casa su delta de puntos en una
+	 * única transacción, con una sentencia relativa al valor actual de la fila, de
+	 * modo que no se pierden las escrituras concurrentes. Las casas se actualizan
+	 * en orden de nombre para que dos volcados no se bloqueen mutuamente.
+	 *
+	 * La transacción es siempre nueva: si se uniera a la del llamante y esta se
+	 * deshiciera, se perderían puntos que el acumulador ya da por escritos. Un
+	 * delta combinado que no cabe en un entero se aplica en varios pasos, en vez
+	 * de fallar y bloquear el volcado de todas las casas.
+	 *
+	 * Al confirmar se invalidan solo la región de segundo nivel de las casas y
+	 * los resultados de la caché de consultas que leen su tabla. La sesión del
+	 * hilo actual no se toca: puede ser la unidad de trabajo de un llamante que
+	 * nada tiene que ver con el volcado.
+	 * 
+	 * @param deltas Los puntos a sumar a cada casa, por nombre.
+	 * @throws IllegalStateException Si Hibernate ya se ha cerrado.
+	 */
+	private void escribirPuntos(SortedMap<String, Long> deltas) {
+		// Un volcado tardío no debe volver a arrancar Hibernate
+		if (!HibernateUtil.estaArrancado()) {
+			throw new IllegalStateException("Hibernate se ha cerrado: no se pueden escribir los puntos " + deltas);
 		}
+		enTransaccionNueva(metricaVolcarPuntos, session -> {
+			String hql = "UPDATE CasaMagica c SET c.puntuacionTotalCasaMagica = c.puntuacionTotalCasaMagica + :delta "
+					+ "WHERE c.nombreCasaMagica = :nombre";
+			MutationQuery update = session.createMutationQuery(hql);
+			deltas.forEach((nombre, delta) -> {
+				for (long restante = delta; restante != 0;) {
+					int paso = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, restante));
+					update.setParameter("delta", paso).setParameter("nombre", nombre).executeUpdate();
+					restante -= paso;
+				}
+			});
+			SharedSessionContractImplementor sesion = session.unwrap(SharedSessionContractImplementor.class);
+			BulkOperationCleanupAction.schedule(sesion,
+					sesion.getFactory().getMappingMetamodel().getEntityDescriptor(CasaMagica.class));
+		});
 	}
-}
\ No newline at end of file
+}
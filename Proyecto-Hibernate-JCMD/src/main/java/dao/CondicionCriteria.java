@@ -0,0 +1,25 @@
+package dao;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Condición que se construye con CriteriaBuilder sobre la raíz de una entidad.
+ * Se usa para indicar qué filas afectan las operaciones masivas de
+ * actualización y borrado de {@link AbstractDao}.
+ *
+ * @param <T> El tipo de la entidad sobre la que se aplica la condición.
+ */
+@FunctionalInterface
+public interface CondicionCriteria<T> {
+
+	/**
+	 * Construye el predicado de la condición.
+	 *
+	 * @param cb   El CriteriaBuilder de la sesión.
+	 * @param root La raíz de la entidad en la sentencia.
+	 * @return El predicado que deben cumplir las filas afectadas.
+	 */
+	Predicate crear(CriteriaBuilder cb, Root<T> root);
+}
@@ -13,6 +13,12 @@ import modelo.CriaturaMagica;
  */
 public class CriaturaMagicaDao extends AbstractDao<CriaturaMagica> {
 
+	/**
+	 * Plan que carga las criaturas con sus eventos. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<CriaturaMagica> PLAN_EVENTOS = PlanCarga.de(
+			CriaturaMagica.class, CriaturaMagica.GRAFO_EVENTOS);
+
 	/**
 	 * Constructor que configura la clase CriaturaMagica como la clase de entidad a
 	 * manejar por este DAO.
@@ -1,10 +1,10 @@
 package dao;
 
-import org.hibernate.Session;
+import java.util.Optional;
 
 import jakarta.persistence.TypedQuery;
 import modelo.CursoMagico;
-import utiles.HibernateUtil;
+import utiles.MetricaOperacion;
 
 /**
  * Clase DAO específica para manejar las operaciones CRUD de la entidad
@@ -17,6 +17,29 @@ import utiles.HibernateUtil;
  */
 public class CursoMagicoDao extends AbstractDao<CursoMagico> {
 
+	/**
+	 * Plan que carga los cursos con su profesor. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<CursoMagico> PLAN_PROFESOR = PlanCarga.de(
+			CursoMagico.class, CursoMagico.GRAFO_PROFESOR);
+
+	/**
+	 * Plan que carga los cursos con su profesor y sus estudiantes, con la casa de
+	 * cada estudiante. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<CursoMagico> PLAN_ESTUDIANTES = PlanCarga.de(
+			CursoMagico.class, CursoMagico.GRAFO_ESTUDIANTES);
+
+	/**
+	 * Métricas de {@link #obtenerPorNombre(String)}.
+	 */
+	private final MetricaOperacion metricaObtenerPorNombre = metrica("obtenerPorNombre");
+
+	/**
+	 * Métricas de {@link #contarCursosMagicos()}.
+	 */
+	private final MetricaOperacion metricaContarCursosMagicos = metrica("contarCursosMagicos");
+
 	/**
 	 * Constructor que configura la clase CursoMagico como la clase de entidad a
 	 * manejar por este DAO.
@@ -25,21 +48,32 @@ public class CursoMagicoDao extends AbstractDao<CursoMagico> {
 		setClase(CursoMagico.class);
 	}
 
+	/**
+	 * Obtiene un curso mágico por su nombre, su identificador natural. Tras la
+	 * primera búsqueda de cada nombre, las siguientes se resuelven con la caché de
+	 * identificadores naturales y la de entidades, sin consultar cursos_magicos.
+	 * 
+	 * @param nombreCurso El nombre del curso mágico.
+	 * @return El curso si existe, o vacío si no.
+	 */
+	public Optional<CursoMagico> obtenerPorNombre(String nombreCurso) {
+		return getPorIdNatural(metricaObtenerPorNombre, nombreCurso);
+	}
+
 	/**
 	 * Consulta que utiliza HQL para contar el número total de cursos mágicos
 	 * almacenados en la base de datos.
 	 * 
+	 * El resultado se guarda en la caché de consultas.
+	 * 
 	 * @return El número total de cursos mágicos como un valor de tipo Long.
 	 */
 	public Long contarCursosMagicos() {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
+		return enSesion(metricaContarCursosMagicos, session -> {
 			// Consulta HQL para contar el total de registros en la tabla CursoMagico
 			String hql = "SELECT COUNT(c) FROM CursoMagico c";
-			TypedQuery<Long> query = session.createQuery(hql, Long.class);
+			TypedQuery<Long> query = cachearConsulta(session.createQuery(hql, Long.class));
 			return query.getSingleResult();
-		} finally {
-			session.close();
-		}
+		});
 	}
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import utiles.EjecutorAsincrono;
+
+/**
+ * Implementación de {@link InterfazDaoAsync} que delega en un DAO síncrono y
+ * ejecuta cada operación con {@link EjecutorAsincrono}, en hilos virtuales y
+ * con la concurrencia limitada al tamaño del pool de conexiones.
+ *
+ * @param <T> El tipo de la entidad que maneja el DAO.
+ */
+public class DaoAsync<T> implements InterfazDaoAsync<T> {
+
+	/**
+	 * DAO síncrono en el que se delegan las operaciones.
+	 */
+	private final InterfazDao<T> dao;
+
+	/**
+	 * Crea un DAO asíncrono sobre un DAO síncrono.
+	 *
+	 * @param dao El DAO síncrono en el que se delegan las operaciones.
+	 */
+	public DaoAsync(InterfazDao<T> dao) {
+		this.dao = dao;
+	}
+
+	@Override
+	public CompletableFuture<Void> create(T t) {
+		return EjecutorAsincrono.ejecutar(() -> dao.create(t));
+	}
+
+	@Override
+	public CompletableFuture<Void> createAll(Collection<T> elementos) {
+		return EjecutorAsincrono.ejecutar(() -> dao.createAll(elementos));
+	}
+
+	@Override
+	public CompletableFuture<Optional<T>> get(int id) {
+		return EjecutorAsincrono.ejecutar(() -> dao.get(id));
+	}
+
+	@Override
+	public CompletableFuture<List<T>> getAll() {
+		return EjecutorAsincrono.ejecutar(() -> dao.getAll());
+	}
+
+	@Override
+	public CompletableFuture<Optional<T>> get(int id, PlanCarga<T> plan) {
+		return EjecutorAsincrono.ejecutar(() -> dao.get(id, plan));
+	}
+
+	@Override
+	public CompletableFuture<List<T>> getAll(PlanCarga<T> plan) {
+		return EjecutorAsincrono.ejecutar(() -> dao.getAll(plan));
+	}
+
+	@Override
+	public CompletableFuture<Pagina<T>> getPage(int despuesDeId, int limite) {
+		return EjecutorAsincrono.ejecutar(() -> dao.getPage(despuesDeId, limite));
+	}
+
+	@Override
+	public CompletableFuture<Pagina<T>> getPage(String atributo, Object despuesDeValor, int despuesDeId,
+			int limite) {
+		return EjecutorAsincrono.ejecutar(() -> dao.getPage(atributo, despuesDeValor, despuesDeId, limite));
+	}
+
+	@Override
+	public CompletableFuture<Void> forEach(Consumer<T> accion) {
+		return EjecutorAsincrono.ejecutar(() -> dao.forEach(accion));
+	}
+
+	@Override
+	public CompletableFuture<Void> update(T t) {
+		return EjecutorAsincrono.ejecutar(() -> dao.update(t));
+	}
+
+	@Override
+	public CompletableFuture<Void> delete(T t) {
+		return EjecutorAsincrono.ejecutar(() -> dao.delete(t));
+	}
+
+	@Override
+	public CompletableFuture<Integer> updateWhere(Map<String, Object> valores, CondicionCriteria<T> condicion) {
+		return EjecutorAsincrono.ejecutar(() -> dao.updateWhere(valores, condicion));
+	}
+
+	@Override
+	public CompletableFuture<Integer> deleteWhere(CondicionCriteria<T> condicion) {
+		return EjecutorAsincrono.ejecutar(() -> dao.deleteWhere(condicion));
+	}
+
+	@Override
+	public CompletableFuture<Integer> deleteById(int... ids) {
+		return EjecutorAsincrono.ejecutar(() -> dao.deleteById(ids));
+	}
+}
@@ -2,15 +2,12 @@ package dao;
 
 import java.util.List;
 
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaDelete;
-import jakarta.persistence.criteria.Root;
 import modelo.Estudiante;
-import utiles.HibernateUtil;
+import utiles.MetricaOperacion;
 
 /**
  * Clase DAO específica para manejar las operaciones CRUD de la entidad
@@ -23,6 +20,62 @@ import utiles.HibernateUtil;
  */
 public class EstudianteDao extends AbstractDao<Estudiante> {
 
+	/**
+	 * Plan que carga los estudiantes con su casa y el jefe de esta. Ejecuta 1
+	 * consulta.
+	 */
+	public static final PlanCarga<Estudiante> PLAN_CASA = PlanCarga.de(Estudiante.class, Estudiante.GRAFO_CASA);
+
+	/**
+	 * Plan que carga los estudiantes con su casa y sus cursos, con el profesor de
+	 * cada curso. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<Estudiante> PLAN_CURSOS = PlanCarga.de(Estudiante.class, Estudiante.GRAFO_CURSOS);
+
+	/**
+	 * Plan que carga los estudiantes con su casa y sus eventos. Ejecuta 1
+	 * consulta.
+	 */
+	public static final PlanCarga<Estudiante> PLAN_EVENTOS = PlanCarga.de(Estudiante.class, Estudiante.GRAFO_EVENTOS);
+
+	/**
+	 * Plan que carga los estudiantes con su casa, sus cursos y sus eventos.
+	 * Ejecuta 2 consultas, una por colección.
+	 */
+	public static final PlanCarga<Estudiante> PLAN_CURSOS_Y_EVENTOS = PlanCarga.de(
+			Estudiante.class, Estudiante.GRAFO_CURSOS, Estudiante.GRAFO_EVENTOS);
+
+	/**
+	 * Logger del DAO de estudiantes.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(EstudianteDao.class);
+
+	/**
+	 * Métricas de {@link #obtenerNombresEstudiantes()}.
+	 */
+	private final MetricaOperacion metricaObtenerNombresEstudiantes = metrica("obtenerNombresEstudiantes");
+
+	/**
+	 * Métricas de {@link #obtenerNombresYEdadesEstudiantes()}.
+	 */
+	private final MetricaOperacion metricaObtenerNombresYEdadesEstudiantes = metrica(
+			"obtenerNombresYEdadesEstudiantes");
+
+	/**
+	 * Métricas de {@link #obtenerEstudiantesPorCasa(int)}.
+	 */
+	private final MetricaOperacion metricaObtenerEstudiantesPorCasa = metrica("obtenerEstudiantesPorCasa");
+
+	/**
+	 * Métricas de {@link #obtenerPromedioEdadEstudiantes()}.
+	 */
+	private final MetricaOperacion metricaObtenerPromedioEdadEstudiantes = metrica("obtenerPromedioEdadEstudiantes");
+
+	/**
+	 * Métricas de {@link #eliminarEstudiantePorNombre(String)}.
+	 */
+	private final MetricaOperacion metricaEliminarEstudiantePorNombre = metrica("eliminarEstudiantePorNombre");
+
 	/**
 	 * Constructor que configura la clase Estudiante como la clase de entidad a
 	 * manejar por este DAO.
@@ -35,35 +88,28 @@ public class EstudianteDao extends AbstractDao<Estudiante> {
 	 * Consulta que devuelve los nombres de todos los estudiantes almacenados en la
 	 * base de datos.
 	 * 
-	 * @return Una lista de estudiantes con sus nombres.
+	 * @return Una lista con los nombres de los estudiantes.
 	 */
-	public List<Estudiante> obtenerNombresEstudiantes() {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
+	public List<String> obtenerNombresEstudiantes() {
+		return enSesion(metricaObtenerNombresEstudiantes, session -> {
 			String hql = "SELECT e.nombreEstudiante FROM Estudiante e";
-			TypedQuery<Estudiante> query = session.createQuery(hql, Estudiante.class);
+			TypedQuery<String> query = session.createQuery(hql, String.class);
 			return query.getResultList();
-		} finally {
-			session.close();
-		}
+		});
 	}
 
 	/**
 	 * Consulta que devuelve los nombres y edades de todos los estudiantes
 	 * almacenados en la base de datos.
 	 * 
-	 * @return Una lista de arrays de estudiantes donde cada array contiene el
-	 *         nombre y la edad de un estudiante.
+	 * @return Una lista de resúmenes con el nombre y la edad de cada estudiante.
 	 */
-	public List<Estudiante[]> obtenerNombresYEdadesEstudiantes() {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
-			String hql = "SELECT e.nombreEstudiante, e.edadEstudiante FROM Estudiante e";
-			TypedQuery<Estudiante[]> query = session.createQuery(hql, Estudiante[].class);
+	public List<EstudianteResumen> obtenerNombresYEdadesEstudiantes() {
+		return enSesion(metricaObtenerNombresYEdadesEstudiantes, session -> {
+			TypedQuery<EstudianteResumen> query = proyectar(session, EstudianteResumen.class,
+					"e.nombreEstudiante, e.edadEstudiante", "FROM Estudiante e");
 			return query.getResultList();
-		} finally {
-			session.close();
-		}
+		});
 	}
 
 	/**
@@ -72,35 +118,32 @@ public class EstudianteDao extends AbstractDao<Estudiante> {
 	 * 
 	 * @param idCasa El identificador de la casa mágica para filtrar los
 	 *               estudiantes.
-	 * @return Una lista de estudiantes que pertenecen a la casa indicada.
+	 * @return Una lista con los nombres de los estudiantes que pertenecen a la
+	 *         casa indicada.
 	 */
-	public List<Estudiante> obtenerEstudiantesPorCasa(int idCasa) {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
+	public List<String> obtenerEstudiantesPorCasa(int idCasa) {
+		return enSesion(metricaObtenerEstudiantesPorCasa, session -> {
 			String hql = "SELECT e.nombreEstudiante FROM Estudiante e WHERE e.casa.idCasaMagica = :idCasa";
-			TypedQuery<Estudiante> query = session.createQuery(hql, Estudiante.class);
+			TypedQuery<String> query = session.createQuery(hql, String.class);
 			query.setParameter("idCasa", idCasa);
 			return query.getResultList();
-		} finally {
-			session.close();
-		}
+		});
 	}
 
 	/**
 	 * Consulta que calcula y devuelve el promedio de edad de los estudiantes
 	 * almacenados en la base de datos.
 	 * 
+	 * El resultado se guarda en la caché de consultas.
+	 * 
 	 * @return El promedio de edad de los estudiantes como un valor decimal.
 	 */
 	public Double obtenerPromedioEdadEstudiantes() {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
+		return enSesion(metricaObtenerPromedioEdadEstudiantes, session -> {
 			String hql = "SELECT AVG(e.edadEstudiante) FROM Estudiante e";
-			TypedQuery<Double> query = session.createQuery(hql, Double.class);
+			TypedQuery<Double> query = cachearConsulta(session.createQuery(hql, Double.class));
 			return query.getSingleResult();
-		} finally {
-			session.close();
-		}
+		});
 	}
 
 	/**
@@ -110,26 +153,15 @@ public class EstudianteDao extends AbstractDao<Estudiante> {
 	 * @param nombreEstudiante El nombre del estudiante que se desea eliminar.
 	 */
 	public void eliminarEstudiantePorNombre(String nombreEstudiante) {
-		Session sesion = HibernateUtil.getFactoriaSession().openSession();
-		Transaction transaccion = sesion.beginTransaction();
+		long inicio = System.nanoTime();
 		try {
-			CriteriaBuilder cb = sesion.getCriteriaBuilder();
-			CriteriaDelete<Estudiante> delete = cb.createCriteriaDelete(Estudiante.class);
-			Root<Estudiante> root = delete.from(Estudiante.class);
-
 			// Configuramos la condición para el borrado
-			delete.where(cb.equal(root.get("nombreEstudiante"), nombreEstudiante));
-
-			// Ejecutamos la consulta
-			sesion.createQuery(delete).executeUpdate();
-			transaccion.commit();
+			deleteWhere((cb, root) -> cb.equal(root.get("nombreEstudiante"), nombreEstudiante));
 		} catch (Exception e) {
-			if (transaccion != null) {
-				transaccion.rollback();
-			}
-			e.printStackTrace();
+			metricaEliminarEstudiantePorNombre.registrarError();
+			LOGGER.error("No se pudo eliminar el estudiante {}", nombreEstudiante, e);
 		} finally {
-			sesion.close();
+			metricaEliminarEstudiantePorNombre.registrar(inicio);
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package dao;
+
+/**
+ * Proyección de un estudiante con su nombre y su edad. La construye la propia
+ * consulta a partir de las columnas, sin cargar la entidad Estudiante.
+ *
+ * @param nombre El nombre del estudiante.
+ * @param edad   La edad del estudiante.
+ */
+public record EstudianteResumen(String nombre, int edad) {
+}
@@ -1,12 +1,11 @@
 package dao;
 
+import java.time.LocalDate;
 import java.util.List;
 
-import org.hibernate.Session;
-
 import jakarta.persistence.TypedQuery;
 import modelo.EventoMagico;
-import utiles.HibernateUtil;
+import utiles.MetricaOperacion;
 
 /**
  * Clase DAO específica para manejar las operaciones CRUD de la entidad
@@ -19,6 +18,42 @@ import utiles.HibernateUtil;
  */
 public class EventoMagicoDao extends AbstractDao<EventoMagico> {
 
+	/**
+	 * Plan que carga los eventos con sus asistentes y la casa de cada uno. Ejecuta
+	 * 1 consulta.
+	 */
+	public static final PlanCarga<EventoMagico> PLAN_ESTUDIANTES = PlanCarga.de(
+			EventoMagico.class, EventoMagico.GRAFO_ESTUDIANTES);
+
+	/**
+	 * Plan que carga los eventos con sus criaturas. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<EventoMagico> PLAN_CRIATURAS = PlanCarga.de(
+			EventoMagico.class, EventoMagico.GRAFO_CRIATURAS);
+
+	/**
+	 * Plan que carga los eventos con sus asistentes y sus criaturas. Ejecuta 2
+	 * consultas, una por colección.
+	 */
+	public static final PlanCarga<EventoMagico> PLAN_ESTUDIANTES_Y_CRIATURAS = PlanCarga.de(
+			EventoMagico.class, EventoMagico.GRAFO_ESTUDIANTES, EventoMagico.GRAFO_CRIATURAS);
+
+	/**
+	 * Métricas de {@link #obtenerEventosPorUbicacionOrdenados(String)}.
+	 */
+	private final MetricaOperacion metricaObtenerEventosPorUbicacionOrdenados = metrica(
+			"obtenerEventosPorUbicacionOrdenados");
+
+	/**
+	 * Métricas de {@link #obtenerEventosEntre(LocalDate, LocalDate)}.
+	 */
+	private final MetricaOperacion metricaObtenerEventosEntre = metrica("obtenerEventosEntre");
+
+	/**
+	 * Métricas de {@link #obtenerProximosEventos(LocalDate, int)}.
+	 */
+	private final MetricaOperacion metricaObtenerProximosEventos = metrica("obtenerProximosEventos");
+
 	/**
 	 * Constructor que configura la clase EventoMagico como la clase de entidad a
 	 * manejar por este DAO.
@@ -33,20 +68,74 @@ public class EventoMagicoDao extends AbstractDao<EventoMagico> {
 	 * 
 	 * @param ubicacion La ubicación específica en la que se encuentran los eventos
 	 *                  mágicos.
-	 * @return Una lista de arreglos de objetos donde cada arreglo contiene el
-	 *         nombre del evento y su fecha.
+	 * @return Una lista de resúmenes con el nombre y la fecha de cada evento.
 	 */
-	public List<EventoMagico[]> obtenerEventosPorUbicacionOrdenados(String ubicacion) {
-		Session session = HibernateUtil.getFactoriaSession().openSession();
-		try {
+	public List<EventoResumen> obtenerEventosPorUbicacionOrdenados(String ubicacion) {
+		return enSesion(metricaObtenerEventosPorUbicacionOrdenados, session -> {
 			// Consulta HQL para filtrar por ubicación y ordenar por fecha
-			String hql = "SELECT e.nombreEventoMagico, e.fechaEventoMagico FROM EventoMagico e "
-					+ "WHERE e.ubicacionEventoMagico = :ubicacion ORDER BY e.fechaEventoMagico ASC";
-			TypedQuery<EventoMagico[]> query = session.createQuery(hql, EventoMagico[].class);
+			TypedQuery<EventoResumen> query = proyectar(session, EventoResumen.class,
+					"e.nombreEventoMagico, e.fechaEventoMagico",
+					"FROM EventoMagico e WHERE e.ubicacionEventoMagico = :ubicacion ORDER BY e.fechaEventoMagico ASC");
 			query.setParameter("ubicacion", ubicacion);
 			return query.getResultList();
-		} finally {
-			session.close();
-		}
+		});
+	}
+
+	/**
+	 * Consulta que obtiene los eventos mágicos celebrados entre dos fechas,
+	 * incluidas ambas, ordenados por fecha y nombre.
+	 * 
+	 * La base de datos recorre solo el rango de fechas del índice
+	 * idx_eventos_fecha, que contiene también el nombre, sin leer la tabla ni
+	 * ordenar.
+	 * 
+	 * @param desde La primera fecha del rango.
+	 * @param hasta La última fecha del rango.
+	 * @return Una lista de resúmenes con el nombre y la fecha de cada evento.
+	 */
+	public List<EventoResumen> obtenerEventosEntre(LocalDate desde, LocalDate hasta) {
+		return enSesion(metricaObtenerEventosEntre, session -> {
+			TypedQuery<EventoResumen> query = proyectar(session, EventoResumen.class,
+					"e.nombreEventoMagico, e.fechaEventoMagico",
+					"FROM EventoMagico e WHERE e.fechaEventoMagico BETWEEN :desde AND :hasta "
+							+ "ORDER BY e.fechaEventoMagico, e.nombreEventoMagico");
+			query.setParameter("desde", desde);
+			query.setParameter("hasta", hasta);
+			return query.getResultList();
+		});
+	}
+
+	/**
+	 * Consulta que obtiene los próximos eventos mágicos a partir de una fecha,
+	 * incluida, ordenados por fecha y nombre.
+	 * 
+	 * La base de datos lee las primeras entradas del índice idx_eventos_fecha a
+	 * partir de la fecha, sin leer la tabla ni ordenar.
+	 * 
+	 * @param desde  La fecha a partir de la cual se buscan eventos.
+	 * @param limite El número máximo de eventos a devolver.
+	 * @return Una lista de resúmenes con el nombre y la fecha de cada evento.
+	 */
+	public List<EventoResumen> obtenerProximosEventos(LocalDate desde, int limite) {
+		return enSesion(metricaObtenerProximosEventos, session -> {
+			TypedQuery<EventoResumen> query = proyectar(session, EventoResumen.class,
+					"e.nombreEventoMagico, e.fechaEventoMagico",
+					"FROM EventoMagico e WHERE e.fechaEventoMagico >= :desde "
+							+ "ORDER BY e.fechaEventoMagico, e.nombreEventoMagico");
+			query.setParameter("desde", desde);
+			query.setMaxResults(limite);
+			return query.getResultList();
+		});
+	}
+
+	/**
+	 * Consulta que obtiene los próximos eventos mágicos a partir de hoy.
+	 * 
+	 * @param limite El número máximo de eventos a devolver.
+	 * @return Una lista de resúmenes con el nombre y la fecha de cada evento.
+	 * @see #obtenerProximosEventos(LocalDate, int)
+	 */
+	public List<EventoResumen> obtenerProximosEventos(int limite) {
+		return obtenerProximosEventos(LocalDate.now(), limite);
 	}
-}
\ No newline at end of file
+}
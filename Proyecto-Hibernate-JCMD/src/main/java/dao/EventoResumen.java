@@ -0,0 +1,13 @@
+package dao;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección de un evento mágico con su nombre y su fecha. La construye la
+ * propia consulta a partir de las columnas, sin cargar la entidad EventoMagico.
+ *
+ * @param nombre El nombre del evento.
+ * @param fecha  La fecha del evento.
+ */
+public record EventoResumen(String nombre, LocalDate fecha) {
+}
@@ -1,7 +1,11 @@
 package dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Esta interfaz define las operaciones básicas del patrón CRUD (Crear, Leer,
@@ -23,6 +27,14 @@ public interface InterfazDao<T> {
 	 */
 	void create(T t);
 
+	/**
+	 * Crea varios elementos en la base de datos dentro de una misma sesión y
+	 * transacción, agrupando las inserciones en lotes.
+	 *
+	 * @param elementos la colección de objetos que se desea crear.
+	 */
+	void createAll(Collection<T> elementos);
+
 	/**
 	 * Obtiene un elemento de la base de datos por su identificador único.
 	 * 
@@ -40,6 +52,68 @@ public interface InterfazDao<T> {
 	 */
 	List<T> getAll();
 
+	/**
+	 * Obtiene un elemento por su identificador único junto con las asociaciones
+	 * de un plan de carga, en un número fijo de consultas.
+	 *
+	 * @param id   el identificador único del elemento a obtener.
+	 * @param plan el plan de carga que indica qué asociaciones se cargan.
+	 * @return puede contener el objeto encontrado o estar vacío si no se encuentra.
+	 */
+	Optional<T> get(int id, PlanCarga<T> plan);
+
+	/**
+	 * Obtiene todos los elementos junto con las asociaciones de un plan de carga,
+	 * en un número fijo de consultas que no depende del número de elementos.
+	 *
+	 * @param plan el plan de carga que indica qué asociaciones se cargan.
+	 * @return una lista de objetos que representa todos los elementos almacenados.
+	 */
+	List<T> getAll(PlanCarga<T> plan);
+
+	/**
+	 * Obtiene una página de elementos ordenados por identificador, empezando
+	 * después del identificador indicado.
+	 *
+	 * @param despuesDeId el identificador del último elemento de la página
+	 *                    anterior, o 0 para obtener la primera página.
+	 * @param limite      el número máximo de elementos de la página.
+	 * @return la página de elementos.
+	 */
+	Pagina<T> getPage(int despuesDeId, int limite);
+
+	/**
+	 * Obtiene una página de elementos ordenados por un atributo y, a igualdad de
+	 * este, por identificador, empezando después de la clave indicada.
+	 *
+	 * @param atributo       el nombre del atributo de ordenación, que no debe
+	 *                       contener valores nulos.
+	 * @param despuesDeValor el valor del atributo del último elemento de la página
+	 *                       anterior, o null para obtener la primera página.
+	 * @param despuesDeId    el identificador del último elemento de la página
+	 *                       anterior.
+	 * @param limite         el número máximo de elementos de la página.
+	 * @return la página de elementos.
+	 */
+	Pagina<T> getPage(String atributo, Object despuesDeValor, int despuesDeId, int limite);
+
+	/**
+	 * Obtiene todos los elementos de la base de datos como un flujo que los lee
+	 * bajo demanda, sin cargarlos todos en memoria. El flujo debe cerrarse para
+	 * liberar la sesión que lo respalda.
+	 *
+	 * @return un flujo con todos los elementos almacenados.
+	 */
+	Stream<T> stream();
+
+	/**
+	 * Recorre todos los elementos de la base de datos leyéndolos bajo demanda y
+	 * aplica una acción a cada uno.
+	 *
+	 * @param accion la acción a aplicar a cada elemento.
+	 */
+	void forEach(Consumer<T> accion);
+
 	/**
 	 * Actualiza un elemento existente en la base de datos.
 	 * 
@@ -53,4 +127,32 @@ public interface InterfazDao<T> {
 	 * @param t el objeto que se desea eliminar.
 	 */
 	void delete(T t);
+
+	/**
+	 * Actualiza en una única sentencia todos los elementos que cumplen una
+	 * condición, sin cargarlos en memoria.
+	 *
+	 * @param valores   los nuevos valores, indexados por nombre de atributo.
+	 * @param condicion la condición que deben cumplir los elementos a actualizar.
+	 * @return el número de elementos actualizados.
+	 */
+	int updateWhere(Map<String, Object> valores, CondicionCriteria<T> condicion);
+
+	/**
+	 * Elimina en una única sentencia todos los elementos que cumplen una
+	 * condición, sin cargarlos en memoria.
+	 *
+	 * @param condicion la condición que deben cumplir los elementos a eliminar.
+	 * @return el número de elementos eliminados.
+	 */
+	int deleteWhere(CondicionCriteria<T> condicion);
+
+	/**
+	 * Elimina en una única sentencia los elementos con los identificadores
+	 * indicados, sin cargarlos en memoria.
+	 *
+	 * @param ids los identificadores de los elementos a eliminar.
+	 * @return el número de elementos eliminados.
+	 */
+	int deleteById(int... ids);
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Versión asíncrona de {@link InterfazDao}. Cada operación devuelve
+ * inmediatamente un {@link CompletableFuture} que se completa cuando termina el
+ * acceso a la base de datos, lo que permite lanzar muchas consultas a la vez sin
+ * reservar un hilo por petición.
+ * 
+ * No incluye {@link InterfazDao#stream()}: el flujo mantiene abierta una sesión
+ * que no debe pasar del hilo que la abre a otro, así que los recorridos
+ * asíncronos se hacen con {@link #forEach(Consumer)}, que abre y cierra la suya
+ * en el mismo hilo.
+ * 
+ * @param <T> el tipo de la entidad sobre la que se realizarán las operaciones
+ *            CRUD.
+ */
+public interface InterfazDaoAsync<T> {
+
+	/**
+	 * Crea un nuevo elemento en la base de datos.
+	 *
+	 * @param t el objeto que se desea crear.
+	 * @return un futuro que se completa al terminar la creación.
+	 */
+	CompletableFuture<Void> create(T t);
+
+	/**
+	 * Crea varios elementos en la base de datos dentro de una misma sesión y
+	 * transacción, agrupando las inserciones en lotes.
+	 *
+	 * @param elementos la colección de objetos que se desea crear.
+	 * @return un futuro que se completa al terminar la creación.
+	 */
+	CompletableFuture<Void> createAll(Collection<T> elementos);
+
+	/**
+	 * Obtiene un elemento de la base de datos por su identificador único.
+	 *
+	 * @param id el identificador único del elemento a obtener.
+	 * @return un futuro con el objeto encontrado, o vacío si no se encuentra.
+	 */
+	CompletableFuture<Optional<T>> get(int id);
+
+	/**
+	 * Obtiene todos los elementos de la base de datos.
+	 *
+	 * @return un futuro con la lista de todos los elementos almacenados.
+	 */
+	CompletableFuture<List<T>> getAll();
+
+	/**
+	 * Obtiene un elemento por su identificador único junto con las asociaciones
+	 * de un plan de carga.
+	 *
+	 * @param id   el identificador único del elemento a obtener.
+	 * @param plan el plan de carga que indica qué asociaciones se cargan.
+	 * @return un futuro con el objeto encontrado, o vacío si no se encuentra.
+	 */
+	CompletableFuture<Optional<T>> get(int id, PlanCarga<T> plan);
+
+	/**
+	 * Obtiene todos los elementos junto con las asociaciones de un plan de carga.
+	 *
+	 * @param plan el plan de carga que indica qué asociaciones se cargan.
+	 * @return un futuro con la lista de todos los elementos almacenados.
+	 */
+	CompletableFuture<List<T>> getAll(PlanCarga<T> plan);
+
+	/**
+	 * Obtiene una página de elementos ordenados por identificador, empezando
+	 * después del identificador indicado.
+	 *
+	 * @param despuesDeId el identificador del último elemento de la página
+	 *                    anterior, o 0 para obtener la primera página.
+	 * @param limite      el número máximo de elementos de la página.
+	 * @return un futuro con la página de elementos.
+	 */
+	CompletableFuture<Pagina<T>> getPage(int despuesDeId, int limite);
+
+	/**
+	 * Obtiene una página de elementos ordenados por un atributo y, a igualdad de
+	 * este, por identificador, empezando después de la clave indicada.
+	 *
+	 * @param atributo       el nombre del atributo de ordenación, que no debe
+	 *                       contener valores nulos.
+	 * @param despuesDeValor el valor del atributo del último elemento de la página
+	 *                       anterior, o null para obtener la primera página.
+	 * @param despuesDeId    el identificador del último elemento de la página
+	 *                       anterior.
+	 * @param limite         el número máximo de elementos de la página.
+	 * @return un futuro con la página de elementos.
+	 */
+	CompletableFuture<Pagina<T>> getPage(String atributo, Object despuesDeValor, int despuesDeId, int limite);
+
+	/**
+	 * Recorre todos los elementos de la base de datos leyéndolos bajo demanda y
+	 * aplica una acción a cada uno. La acción se ejecuta en el hilo de la
+	 * operación asíncrona.
+	 *
+	 * @param accion la acción a aplicar a cada elemento.
+	 * @return un futuro que se completa al terminar el recorrido.
+	 */
+	CompletableFuture<Void> forEach(Consumer<T> accion);
+
+	/**
+	 * Actualiza un elemento existente en la base de datos.
+	 * 
+	 * @param t el objeto con los nuevos datos a actualizar.
+	 * @return un futuro que se completa al terminar la actualización.
+	 */
+	CompletableFuture<Void> update(T t);
+
+	/**
+	 * Elimina un elemento de la base de datos.
+	 * 
+	 * @param t el objeto que se desea eliminar.
+	 * @return un futuro que se completa al terminar el borrado.
+	 */
+	CompletableFuture<Void> delete(T t);
+
+	/**
+	 * Actualiza en una única sentencia todos los elementos que cumplen una
+	 * condición, sin cargarlos en memoria.
+	 *
+	 * @param valores   los nuevos valores, indexados por nombre de atributo.
+	 * @param condicion la condición que deben cumplir los elementos a actualizar.
+	 * @return un futuro con el número de elementos actualizados.
+	 */
+	CompletableFuture<Integer> updateWhere(Map<String, Object> valores, CondicionCriteria<T> condicion);
+
+	/**
+	 * Elimina en una única sentencia todos los elementos que cumplen una
+	 * condición, sin cargarlos en memoria.
+	 *
+	 * @param condicion la condición que deben cumplir los elementos a eliminar.
+	 * @return un futuro con el número de elementos eliminados.
+	 */
+	CompletableFuture<Integer> deleteWhere(CondicionCriteria<T> condicion);
+
+	/**
+	 * Elimina en una única sentencia los elementos con los identificadores
+	 * indicados, sin cargarlos en memoria.
+	 *
+	 * @param ids los identificadores de los elementos a eliminar.
+	 * @return un futuro con el número de elementos eliminados.
+	 */
+	CompletableFuture<Integer> deleteById(int... ids);
+}
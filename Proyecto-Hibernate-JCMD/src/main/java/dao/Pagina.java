@@ -0,0 +1,87 @@
+package dao;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtenida mediante paginación por clave (keyset). En lugar
+ * de un desplazamiento, la página guarda la clave de su último elemento, que se
+ * pasa como punto de partida para pedir la página siguiente.
+ *
+ * @param <T> El tipo de los elementos de la página.
+ */
+public class Pagina<T> {
+
+	/**
+	 * Elementos de la página, en orden.
+	 */
+	private final List<T> elementos;
+
+	/**
+	 * Identificador del último elemento de la página.
+	 */
+	private final int ultimoId;
+
+	/**
+	 * Valor de la clave de ordenación del último elemento de la página, o null si
+	 * la página se ordena solo por identificador.
+	 */
+	private final Object ultimoValor;
+
+	/**
+	 * Indica si existen más elementos después de esta página.
+	 */
+	private final boolean hayMas;
+
+	/**
+	 * Crea una página de resultados.
+	 *
+	 * @param elementos   Los elementos de la página.
+	 * @param ultimoId    El identificador del último elemento.
+	 * @param ultimoValor El valor de la clave de ordenación del último elemento.
+	 * @param hayMas      true si existen más elementos después de esta página.
+	 */
+	public Pagina(List<T> elementos, int ultimoId, Object ultimoValor, boolean hayMas) {
+		this.elementos = elementos;
+		this.ultimoId = ultimoId;
+		this.ultimoValor = ultimoValor;
+		this.hayMas = hayMas;
+	}
+
+	/**
+	 * Obtiene los elementos de la página.
+	 *
+	 * @return La lista de elementos.
+	 */
+	public List<T> getElementos() {
+		return elementos;
+	}
+
+	/**
+	 * Obtiene el identificador del último elemento, que debe usarse como punto de
+	 * partida para pedir la página siguiente.
+	 *
+	 * @return El identificador del último elemento.
+	 */
+	public int getUltimoId() {
+		return ultimoId;
+	}
+
+	/**
+	 * Obtiene el valor de la clave de ordenación del último elemento, que debe
+	 * usarse junto con {@link #getUltimoId()} para pedir la página siguiente.
+	 *
+	 * @return El valor de la clave de ordenación, o null si no hay.
+	 */
+	public Object getUltimoValor() {
+		return ultimoValor;
+	}
+
+	/**
+	 * Indica si existen más elementos después de esta página.
+	 *
+	 * @return true si hay más elementos, false si es la última página.
+	 */
+	public boolean hayMas() {
+		return hayMas;
+	}
+}
@@ -0,0 +1,99 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plan de carga de una entidad: la secuencia de grafos de entidad con nombre
+ * (declarados con {@link jakarta.persistence.NamedEntityGraph} en la entidad)
+ * que se aplican para traer de una vez la entidad y sus asociaciones.
+ *
+ * Cada grafo se resuelve con una única consulta que une las asociaciones que
+ * contiene, y todas las consultas del plan se ejecutan en la misma sesión, de
+ * modo que la segunda y siguientes completan las colecciones de las entidades
+ * ya cargadas por la primera. Así el número de consultas es fijo, igual al
+ * número de grafos del plan, sea cual sea el número de filas, y se evita el
+ * producto cartesiano que produciría unir dos colecciones en la misma consulta.
+ *
+ * @param <T> El tipo de la entidad a la que se aplica el plan.
+ */
+public final class PlanCarga<T> {
+
+	/**
+	 * Clase de la entidad a la que se aplica el plan.
+	 */
+	private final Class<T> clase;
+
+	/**
+	 * Nombres de los grafos de entidad, en el orden en que se aplican.
+	 */
+	private final List<String> grafos;
+
+	/**
+	 * Constructor del plan de carga.
+	 *
+	 * @param clase  La clase de la entidad.
+	 * @param grafos Los nombres de los grafos de entidad.
+	 */
+	private PlanCarga(Class<T> clase, List<String> grafos) {
+		this.clase = clase;
+		this.grafos = grafos;
+	}
+
+	/**
+	 * Crea un plan de carga a partir de uno o varios grafos de entidad con nombre.
+	 *
+	 * @param <T>    El tipo de la entidad.
+	 * @param clase  La clase de la entidad.
+	 * @param grafo  El nombre del primer grafo, que determina las asociaciones
+	 *               que se cargan junto con la entidad.
+	 * @param otros  Los nombres de los grafos que completan otras colecciones, en
+	 *               una consulta cada uno.
+	 * @return El plan de carga.
+	 */
+	public static <T> PlanCarga<T> de(Class<T> clase, String grafo, String... otros) {
+		List<String> grafos = new ArrayList<>(1 + otros.length);
+		grafos.add(grafo);
+		Collections.addAll(grafos, otros);
+		return new PlanCarga<>(clase, Collections.unmodifiableList(grafos));
+	}
+
+	/**
+	 * Obtiene la clase de la entidad a la que se aplica el plan.
+	 *
+	 * @return La clase de la entidad.
+	 */
+	public Class<T> getClase() {
+		return clase;
+	}
+
+	/**
+	 * Obtiene los nombres de los grafos de entidad del plan.
+	 *
+	 * @return Los nombres, en el orden en que se aplican.
+	 */
+	public List<String> getGrafos() {
+		return grafos;
+	}
+
+	/**
+	 * Obtiene el número de consultas que ejecuta el plan, una por grafo, con la
+	 * caché de segundo nivel vacía.
+	 *
+	 * @return El número de consultas.
+	 */
+	public int getConsultas() {
+		return grafos.size();
+	}
+
+	/**
+	 * Devuelve una representación textual del plan.
+	 *
+	 * @return Los grafos del plan.
+	 */
+	@Override
+	public String toString() {
+		return "PlanCarga " + grafos;
+	}
+}
@@ -13,6 +13,17 @@ import modelo.Profesor;
  */
 public class ProfesorDao extends AbstractDao<Profesor> {
 
+	/**
+	 * Plan que carga los profesores con la casa de la que son jefes. Ejecuta 1
+	 * consulta.
+	 */
+	public static final PlanCarga<Profesor> PLAN_CASA = PlanCarga.de(Profesor.class, Profesor.GRAFO_CASA);
+
+	/**
+	 * Plan que carga los profesores con su casa y sus cursos. Ejecuta 1 consulta.
+	 */
+	public static final PlanCarga<Profesor> PLAN_CURSOS = PlanCarga.de(Profesor.class, Profesor.GRAFO_CURSOS);
+
 	/**
 	 * Constructor que configura la clase Profesor como la clase de entidad a
 	 * manejar por este DAO.
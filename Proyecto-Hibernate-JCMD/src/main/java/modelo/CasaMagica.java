@@ -4,34 +4,80 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Representa una casa mágica en el sistema. Una casa mágica tiene un nombre, un
  * lema, una puntuación total, un conjunto de estudiantes que pertenecen a ella
  * y un profesor encargado de la casa.
  */
+@NamedEntityGraphs({
+		@NamedEntityGraph(name = CasaMagica.GRAFO_JEFE, attributeNodes = @NamedAttributeNode("jefeCasa")),
+		@NamedEntityGraph(name = CasaMagica.GRAFO_ESTUDIANTES, attributeNodes = { @NamedAttributeNode("jefeCasa"),
+				@NamedAttributeNode("estudiantes") }) })
 @Entity
-@Table(name = "casas_magicas")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "casas_magicas")
+@NaturalIdCache(region = "casas_magicas.nombre")
+@Table(
+		name = "casas_magicas",
+		uniqueConstraints = @UniqueConstraint(name = "uk_casas_nombre", columnNames = "nombreCasaMagica"),
+		indexes = @Index(name = "idx_casas_puntuacion", columnList = "puntuacionTotalCasaMagica, nombreCasaMagica"))
 public class CasaMagica {
 
 	/**
-	 * Identificador único de la casa mágica en la base de datos.
+	 * Grafo de entidad con el jefe de la casa.
+	 */
+	public static final String GRAFO_JEFE = "CasaMagica.jefeCasa";
+
+	/**
+	 * Grafo de entidad con el jefe y los estudiantes de la casa.
+	 */
+	public static final String GRAFO_ESTUDIANTES = "CasaMagica.estudiantes";
+
+	/**
+	 * Identificador único de la casa mágica en la base de datos. Se reserva en
+	 * bloques de 50 valores desde la tabla generador_ids.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "ids_casas_magicas")
+	@TableGenerator(
+			name = "ids_casas_magicas",
+			table = "generador_ids",
+			pkColumnName = "entidad",
+			valueColumnName = "siguiente_id",
+			pkColumnValue = "casas_magicas",
+			allocationSize = 50)
 	private int idCasaMagica;
 
 	/**
-	 * Nombre de la casa mágica.
+	 * Nombre de la casa mágica, su identificador natural: es único y no cambia,
+	 * por lo que solo se asigna en el constructor. La caché de identificadores
+	 * naturales resuelve cada nombre a su identificador sin consultar la base de
+	 * datos.
 	 */
+	@NaturalId
 	private String nombreCasaMagica;
 
 	/**
@@ -40,14 +86,19 @@ public class CasaMagica {
 	private String lemaCasaMagica;
 
 	/**
-	 * Puntuación total acumulada por la casa mágica.
+	 * Puntuación total acumulada por la casa mágica. El índice idx_casas_puntuacion
+	 * la cubre junto con el nombre.
 	 */
 	private int puntuacionTotalCasaMagica;
 
 	/**
-	 * Conjunto de estudiantes que pertenecen a esta casa mágica.
+	 * Conjunto de estudiantes que pertenecen a esta casa mágica. Como hay pocas
+	 * casas y se suelen recorrer todas, al inicializar la colección de una se
+	 * cargan en una subconsulta las de todas las casas de la misma consulta.
 	 */
 	@OneToMany(mappedBy = "casa", cascade = CascadeType.ALL)
+	@Fetch(FetchMode.SUBSELECT)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "casas_magicas.estudiantes")
 	private Set<Estudiante> estudiantes = new HashSet<>();
 
 	/**
@@ -108,15 +159,6 @@ public class CasaMagica {
 		return nombreCasaMagica;
 	}
 
-	/**
-	 * Establece el nombre de la casa mágica.
-	 * 
-	 * @param nombreCasaMagica El nombre de la casa mágica.
-	 */
-	public void setNombreCasaMagica(String nombreCasaMagica) {
-		this.nombreCasaMagica = nombreCasaMagica;
-	}
-
 	/**
 	 * Obtiene el lema de la casa mágica.
 	 * 
@@ -190,18 +232,19 @@ public class CasaMagica {
 	}
 
 	/**
-	 * Calcula el código hash de la casa mágica.
+	 * Calcula el código hash de la casa mágica a partir de su nombre, su
+	 * identificador natural, que no cambia una vez guardada en la base de datos.
 	 * 
 	 * @return El código hash de la casa mágica.
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(estudiantes, idCasaMagica, jefeCasa, lemaCasaMagica, nombreCasaMagica,
-				puntuacionTotalCasaMagica);
+		return Objects.hashCode(nombreCasaMagica);
 	}
 
 	/**
-	 * Compara dos objetos de tipo CasaMagica para determinar si son iguales.
+	 * Compara dos objetos de tipo CasaMagica por su nombre, su identificador
+	 * natural.
 	 * 
 	 * @param obj El objeto a comparar con la casa mágica.
 	 * @return true si los objetos son iguales, false en caso contrario.
@@ -210,14 +253,10 @@ public class CasaMagica {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof CasaMagica))
 			return false;
 		CasaMagica other = (CasaMagica) obj;
-		return Objects.equals(estudiantes, other.estudiantes) && Objects.equals(idCasaMagica, other.idCasaMagica)
-				&& Objects.equals(jefeCasa, other.jefeCasa) && Objects.equals(lemaCasaMagica, other.lemaCasaMagica)
-				&& Objects.equals(nombreCasaMagica, other.nombreCasaMagica)
-				&& Objects.equals(puntuacionTotalCasaMagica, other.puntuacionTotalCasaMagica);
+		// Los getters permiten comparar con los proxies de Hibernate
+		return nombreCasaMagica != null && nombreCasaMagica.equals(other.getNombreCasaMagica());
 	}
 }
\ No newline at end of file
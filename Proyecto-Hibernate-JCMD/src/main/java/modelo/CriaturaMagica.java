@@ -1,32 +1,68 @@
 package modelo;
 
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 /**
  * Representa una criatura mágica en el sistema. Cada criatura tiene un nombre,
  * tipo, descripción, hábitat y puede estar asociada a varios eventos mágicos
  * mediante una relación de muchos a muchos.
  */
+@NamedEntityGraph(name = CriaturaMagica.GRAFO_EVENTOS, attributeNodes = @NamedAttributeNode("eventos"))
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "criaturas_magicas")
 @Table(name = "criaturas_magicas")
 public class CriaturaMagica {
 
 	/**
-	 * Identificador único de la criatura mágica en la base de datos.
+	 * Grafo de entidad con los eventos en los que participa la criatura.
+	 */
+	public static final String GRAFO_EVENTOS = "CriaturaMagica.eventos";
+
+	/**
+	 * Identificador único de la criatura mágica en la base de datos. Se reserva en
+	 * bloques de 50 valores desde la tabla generador_ids.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "ids_criaturas_magicas")
+	@TableGenerator(
+			name = "ids_criaturas_magicas",
+			table = "generador_ids",
+			pkColumnName = "entidad",
+			valueColumnName = "siguiente_id",
+			pkColumnValue = "criaturas_magicas",
+			allocationSize = 50)
 	private int idCriaturaMagica;
 
+	/**
+	 * Clave de negocio de la criatura mágica: un UUID que se asigna al crearla y
+	 * se guarda con ella. A diferencia del identificador, ya existe antes de
+	 * guardarla y no cambia al hacerlo, por lo que sirve de base a equals y
+	 * hashCode. Al cargarla de la base de datos, Hibernate sustituye el valor
+	 * inicial por el guardado.
+	 */
+	@Column(length = 36, nullable = false, updatable = false)
+	private String uuidCriaturaMagica = UUID.randomUUID().toString();
+
 	/**
 	 * Nombre de la criatura mágica.
 	 */
@@ -38,8 +74,10 @@ public class CriaturaMagica {
 	private String tipoCriaturaMagica;
 
 	/**
-	 * Descripción detallada de la criatura mágica.
+	 * Descripción detallada de la criatura mágica. Es perezosa: no se lee al
+	 * cargar la criatura, sino al acceder a ella por primera vez.
 	 */
+	@Basic(fetch = FetchType.LAZY)
 	private String descripcionCriaturaMagica;
 
 	/**
@@ -87,6 +125,15 @@ public class CriaturaMagica {
 		return idCriaturaMagica;
 	}
 
+	/**
+	 * Obtiene la clave de negocio de la criatura mágica.
+	 * 
+	 * @return El UUID de la criatura mágica.
+	 */
+	public String getUuid() {
+		return uuidCriaturaMagica;
+	}
+
 	/**
 	 * Obtiene el nombre de la criatura mágica.
 	 * 
@@ -178,17 +225,23 @@ public class CriaturaMagica {
 	}
 
 	/**
-	 * Calcula el código hash de la criatura mágica.
+	 * Calcula el código hash de la criatura mágica a partir de su clave de
+	 * negocio, que no cambia al asignarle el identificador, de modo que puede
+	 * estar en un HashSet antes y después de guardarla y las criaturas mágicas
+	 * se reparten entre los buckets. Sobre un proxy sin inicializar, lo
+	 * inicializa.
 	 * 
 	 * @return El código hash de la criatura mágica.
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(descripcionCriaturaMagica, habitatCriaturaMagica, nombreCriaturaMagica, tipoCriaturaMagica);
+		return getUuid().hashCode();
 	}
 
 	/**
-	 * Compara dos objetos de tipo CriaturaMagica para determinar si son iguales.
+	 * Compara dos objetos de tipo CriaturaMagica por su clave de negocio, igual
+	 * que hashCode, de modo que la igualdad no cambia al guardar la criatura
+	 * mágica ni al cargarla de nuevo en otra sesión.
 	 * 
 	 * @param obj El objeto a comparar con la criatura mágica.
 	 * @return true si los objetos son iguales, false en caso contrario.
@@ -197,14 +250,10 @@ public class CriaturaMagica {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof CriaturaMagica))
 			return false;
 		CriaturaMagica other = (CriaturaMagica) obj;
-		return Objects.equals(descripcionCriaturaMagica, other.descripcionCriaturaMagica)
-				&& Objects.equals(habitatCriaturaMagica, other.habitatCriaturaMagica)
-				&& Objects.equals(nombreCriaturaMagica, other.nombreCriaturaMagica)
-				&& Objects.equals(tipoCriaturaMagica, other.tipoCriaturaMagica);
+		// El getter permite comparar con los proxies de Hibernate
+		return getUuid().equals(other.getUuid());
 	}
 }
\ No newline at end of file
@@ -4,6 +4,12 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -12,26 +18,75 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Representa un curso mágico en el sistema. Cada curso tiene un nombre, nivel,
  * duración, un profesor asignado y una lista de estudiantes inscritos.
  */
+@NamedEntityGraphs({
+		@NamedEntityGraph(
+				name = CursoMagico.GRAFO_PROFESOR,
+				attributeNodes = @NamedAttributeNode(value = "profesor", subgraph = "profesor"),
+				subgraphs = @NamedSubgraph(name = "profesor", attributeNodes = @NamedAttributeNode("casa"))),
+		@NamedEntityGraph(
+				name = CursoMagico.GRAFO_ESTUDIANTES,
+				attributeNodes = {
+						@NamedAttributeNode(value = "profesor", subgraph = "profesor"),
+						@NamedAttributeNode(value = "estudiantes", subgraph = "estudiantes") },
+				subgraphs = {
+						@NamedSubgraph(name = "profesor", attributeNodes = @NamedAttributeNode("casa")),
+						@NamedSubgraph(
+								name = "estudiantes",
+								attributeNodes = @NamedAttributeNode(value = "casa", subgraph = "casa")),
+						@NamedSubgraph(name = "casa", attributeNodes = @NamedAttributeNode("jefeCasa")) }) })
 @Entity
-@Table(name = "cursos_magicos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cursos_magicos")
+@NaturalIdCache(region = "cursos_magicos.nombre")
+@Table(
+		name = "cursos_magicos",
+		uniqueConstraints = @UniqueConstraint(name = "uk_cursos_nombre", columnNames = "nombreCursoMagico"))
 public class CursoMagico {
 
 	/**
-	 * Identificador único del curso mágico en la base de datos.
+	 * Grafo de entidad con el profesor del curso.
+	 */
+	public static final String GRAFO_PROFESOR = "CursoMagico.profesor";
+
+	/**
+	 * Grafo de entidad con el profesor y los estudiantes del curso, con sus casas.
+	 */
+	public static final String GRAFO_ESTUDIANTES = "CursoMagico.estudiantes";
+
+	/**
+	 * Identificador único del curso mágico en la base de datos. Se reserva en
+	 * bloques de 50 valores desde la tabla generador_ids.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "ids_cursos_magicos")
+	@TableGenerator(
+			name = "ids_cursos_magicos",
+			table = "generador_ids",
+			pkColumnName = "entidad",
+			valueColumnName = "siguiente_id",
+			pkColumnValue = "cursos_magicos",
+			allocationSize = 50)
 	private int idCursoMagico;
 
 	/**
-	 * Nombre del curso mágico.
+	 * Nombre del curso mágico, su identificador natural: es único y no cambia, por
+	 * lo que solo se asigna en el constructor. La caché de identificadores
+	 * naturales resuelve cada nombre a su identificador sin consultar la base de
+	 * datos.
 	 */
+	@NaturalId
 	private String nombreCursoMagico;
 
 	/**
@@ -57,7 +112,10 @@ public class CursoMagico {
 	 * muchos.
 	 */
 	@ManyToMany
-	@JoinTable(name = "estudiantes_cursos", joinColumns = @JoinColumn(name = "curso_id"), inverseJoinColumns = @JoinColumn(name = "estudiante_id"))
+	@JoinTable(
+			name = "estudiantes_cursos",
+			joinColumns = @JoinColumn(name = "curso_id"),
+			inverseJoinColumns = @JoinColumn(name = "estudiante_id"))
 	private Set<Estudiante> estudiantes = new HashSet<>();
 
 	/**
@@ -99,15 +157,6 @@ public class CursoMagico {
 		return nombreCursoMagico;
 	}
 
-	/**
-	 * Establece el nombre del curso mágico.
-	 * 
-	 * @param nombreCursoMagico El nombre del curso mágico.
-	 */
-	public void setNombreCursoMagico(String nombreCursoMagico) {
-		this.nombreCursoMagico = nombreCursoMagico;
-	}
-
 	/**
 	 * Obtiene el nivel del curso mágico.
 	 * 
@@ -181,17 +230,19 @@ public class CursoMagico {
 	}
 
 	/**
-	 * Calcula el código hash del curso mágico.
+	 * Calcula el código hash del curso mágico a partir de su nombre, su
+	 * identificador natural, que no cambia una vez guardado en la base de datos.
 	 * 
 	 * @return El código hash del curso mágico.
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(duracionCursoMagico, nivelCursoMagico, nombreCursoMagico);
+		return Objects.hashCode(nombreCursoMagico);
 	}
 
 	/**
-	 * Compara dos objetos de tipo CursoMagico para determinar si son iguales.
+	 * Compara dos objetos de tipo CursoMagico por su nombre, su identificador
+	 * natural.
 	 * 
 	 * @param obj El objeto a comparar con el curso mágico.
 	 * @return true si los objetos son iguales, false en caso contrario.
@@ -200,13 +251,10 @@ public class CursoMagico {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof CursoMagico))
 			return false;
 		CursoMagico other = (CursoMagico) obj;
-		return duracionCursoMagico == other.duracionCursoMagico
-				&& Objects.equals(nivelCursoMagico, other.nivelCursoMagico)
-				&& Objects.equals(nombreCursoMagico, other.nombreCursoMagico);
+		// Los getters permiten comparar con los proxies de Hibernate
+		return nombreCursoMagico != null && nombreCursoMagico.equals(other.getNombreCursoMagico());
 	}
 }
\ No newline at end of file
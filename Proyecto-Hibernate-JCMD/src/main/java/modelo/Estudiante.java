@@ -1,36 +1,95 @@
 package modelo;
 
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 /**
  * Representa a un estudiante en el sistema. Un estudiante tiene un nombre,
  * edad, nivel mágico, una varita, una casa asignada y está inscrito en varios
  * cursos y eventos mágicos.
  */
+@NamedEntityGraphs({
+		@NamedEntityGraph(
+				name = Estudiante.GRAFO_CASA,
+				attributeNodes = @NamedAttributeNode(value = "casa", subgraph = "casa"),
+				subgraphs = @NamedSubgraph(name = "casa", attributeNodes = @NamedAttributeNode("jefeCasa"))),
+		@NamedEntityGraph(
+				name = Estudiante.GRAFO_CURSOS,
+				attributeNodes = {
+						@NamedAttributeNode(value = "casa", subgraph = "casa"),
+						@NamedAttributeNode(value = "cursos", subgraph = "cursos") },
+				subgraphs = {
+						@NamedSubgraph(name = "casa", attributeNodes = @NamedAttributeNode("jefeCasa")),
+						@NamedSubgraph(name = "cursos", attributeNodes = @NamedAttributeNode("profesor")) }),
+		@NamedEntityGraph(
+				name = Estudiante.GRAFO_EVENTOS,
+				attributeNodes = {
+						@NamedAttributeNode(value = "casa", subgraph = "casa"),
+						@NamedAttributeNode("eventos") },
+				subgraphs = @NamedSubgraph(name = "casa", attributeNodes = @NamedAttributeNode("jefeCasa"))) })
 @Entity
-@Table(name = "estudiantes")
+@Table(name = "estudiantes", indexes = @Index(name = "idx_estudiantes_nombre", columnList = "nombreEstudiante"))
 public class Estudiante {
 
 	/**
-	 * Identificador único del estudiante en la base de datos.
+	 * Grafo de entidad con la casa del estudiante y su jefe.
+	 */
+	public static final String GRAFO_CASA = "Estudiante.casa";
+
+	/**
+	 * Grafo de entidad con la casa y los cursos del estudiante, con sus profesores.
+	 */
+	public static final String GRAFO_CURSOS = "Estudiante.cursos";
+
+	/**
+	 * Grafo de entidad con la casa y los eventos del estudiante.
+	 */
+	public static final String GRAFO_EVENTOS = "Estudiante.eventos";
+
+	/**
+	 * Identificador único del estudiante en la base de datos. Se reserva en bloques
+	 * de 50 valores desde la tabla generador_ids.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "ids_estudiantes")
+	@TableGenerator(
+			name = "ids_estudiantes",
+			table = "generador_ids",
+			pkColumnName = "entidad",
+			valueColumnName = "siguiente_id",
+			pkColumnValue = "estudiantes",
+			allocationSize = 50)
 	private int idEstudiante;
 
 	/**
-	 * Nombre del estudiante.
+	 * Clave de negocio del estudiante: un UUID que se asigna al crearlo y se
+	 * guarda con él. A diferencia del identificador, ya existe antes de guardarlo
+	 * y no cambia al hacerlo, por lo que sirve de base a equals y hashCode. Al
+	 * cargarlo de la base de datos, Hibernate sustituye el valor inicial por el
+	 * guardado.
+	 */
+	@Column(length = 36, nullable = false, updatable = false)
+	private String uuidEstudiante = UUID.randomUUID().toString();
+
+	/**
+	 * Nombre del estudiante, indexado por idx_estudiantes_nombre.
 	 */
 	private String nombreEstudiante;
 
@@ -104,6 +163,15 @@ public class Estudiante {
 		return idEstudiante;
 	}
 
+	/**
+	 * Obtiene la clave de negocio del estudiante.
+	 * 
+	 * @return El UUID del estudiante.
+	 */
+	public String getUuid() {
+		return uuidEstudiante;
+	}
+
 	/**
 	 * Obtiene el nombre del estudiante.
 	 * 
@@ -231,17 +299,22 @@ public class Estudiante {
 	}
 
 	/**
-	 * Calcula el código hash del estudiante.
+	 * Calcula el código hash del estudiante a partir de su clave de negocio,
+	 * que no cambia al asignarle el identificador, de modo que puede estar en
+	 * un HashSet antes y después de guardarlo y los estudiantes se reparten
+	 * entre los buckets. Sobre un proxy sin inicializar, lo inicializa.
 	 * 
 	 * @return El código hash del estudiante.
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(edadEstudiante, nivelMagicoEstudiante, nombreEstudiante, varitaEstudiante);
+		return getUuid().hashCode();
 	}
 
 	/**
-	 * Compara dos objetos de tipo Estudiante para determinar si son iguales.
+	 * Compara dos objetos de tipo Estudiante por su clave de negocio, igual que
+	 * hashCode, de modo que la igualdad no cambia al guardar el estudiante ni al
+	 * cargarlo de nuevo en otra sesión.
 	 * 
 	 * @param obj El objeto a comparar con el estudiante.
 	 * @return true si los objetos son iguales, false en caso contrario.
@@ -250,14 +323,10 @@ public class Estudiante {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof Estudiante))
 			return false;
 		Estudiante other = (Estudiante) obj;
-		return edadEstudiante == other.edadEstudiante
-				&& Objects.equals(nivelMagicoEstudiante, other.nivelMagicoEstudiante)
-				&& Objects.equals(nombreEstudiante, other.nombreEstudiante)
-				&& Objects.equals(varitaEstudiante, other.varitaEstudiante);
+		// El getter permite comparar con los proxies de Hibernate
+		return getUuid().equals(other.getUuid());
 	}
 }
\ No newline at end of file
@@ -1,17 +1,27 @@
 package modelo;
 
+import java.time.LocalDate;
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 /**
  * Representa un evento mágico en el sistema. Un evento tiene un nombre,
@@ -19,34 +29,94 @@ import jakarta.persistence.Table;
  * que participan en él. Los estudiantes y las criaturas mágicas pueden estar
  * asociados a múltiples eventos mágicos.
  */
+@NamedEntityGraphs({
+		@NamedEntityGraph(
+				name = EventoMagico.GRAFO_ESTUDIANTES,
+				attributeNodes = @NamedAttributeNode(value = "estudiantes", subgraph = "estudiantes"),
+				subgraphs = {
+						@NamedSubgraph(
+								name = "estudiantes",
+								attributeNodes = @NamedAttributeNode(value = "casa", subgraph = "casa")),
+						@NamedSubgraph(name = "casa", attributeNodes = @NamedAttributeNode("jefeCasa")) }),
+		@NamedEntityGraph(
+				name = EventoMagico.GRAFO_CRIATURAS,
+				attributeNodes = @NamedAttributeNode("criaturas")) })
 @Entity
-@Table(name = "eventos_magicos")
+@Table(
+		name = "eventos_magicos",
+		indexes = {
+				@Index(name = "idx_eventos_ubicacion_dia", columnList = "ubicacionEventoMagico, diaEventoMagico"),
+				@Index(name = "idx_eventos_dia", columnList = "diaEventoMagico, nombreEventoMagico") })
 public class EventoMagico {
 
 	/**
-	 * Identificador único del evento mágico en la base de datos.
+	 * Grafo de entidad con los estudiantes que asisten al evento, con sus casas.
+	 */
+	public static final String GRAFO_ESTUDIANTES = "EventoMagico.estudiantes";
+
+	/**
+	 * Grafo de entidad con las criaturas que participan en el evento.
+	 */
+	public static final String GRAFO_CRIATURAS = "EventoMagico.criaturas";
+
+	/**
+	 * Identificador único del evento mágico en la base de datos. Se reserva en
+	 * bloques de 50 valores desde la tabla generador_ids.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "ids_eventos_magicos")
+	@TableGenerator(
+			name = "ids_eventos_magicos",
+			table = "generador_ids",
+			pkColumnName = "entidad",
+			valueColumnName = "siguiente_id",
+			pkColumnValue = "eventos_magicos",
+			allocationSize = 50)
 	private int idEventoMagico;
 
+	/**
+	 * Clave de negocio del evento mágico: un UUID que se asigna al crearlo y se
+	 * guarda con él. A diferencia del identificador, ya existe antes de guardarlo
+	 * y no cambia al hacerlo, por lo que sirve de base a equals y hashCode. Al
+	 * cargarlo de la base de datos, Hibernate sustituye el valor inicial por el
+	 * guardado.
+	 */
+	@Column(length = 36, nullable = false, updatable = false)
+	private String uuidEventoMagico = UUID.randomUUID().toString();
+
 	/**
 	 * Nombre del evento mágico.
 	 */
 	private String nombreEventoMagico;
 
 	/**
-	 * Descripción del evento mágico.
+	 * Descripción del evento mágico. Es perezosa: no se lee al cargar el evento,
+	 * sino al acceder a ella por primera vez.
 	 */
+	@Basic(fetch = FetchType.LAZY)
 	private String descripcionEventoMagico;
 
 	/**
-	 * Fecha en la que se celebra el evento mágico.
+	 * Fecha en la que se celebra el evento mágico, guardada en la columna DATE
+	 * diaEventoMagico e indexada por idx_eventos_dia. Los eventos que escriben
+	 * las versiones anteriores a la migración V4 mientras siguen en marcha no la
+	 * tienen hasta que se aplica su contracción, V7.
 	 */
-	private String fechaEventoMagico;
+	@Column(name = "diaEventoMagico")
+	private LocalDate fechaEventoMagico;
 
 	/**
-	 * Ubicación en la que se lleva a cabo el evento mágico.
+	 * Fecha del evento mágico en texto ('yyyy-MM-dd'), en la columna varchar que
+	 * leen las versiones anteriores a la migración V4. Se escribe junto con
+	 * {@link #fechaEventoMagico} y no se lee nunca; desaparece con la columna en
+	 * la migración V7.
+	 */
+	@Column(name = "fechaEventoMagico")
+	private String fechaEventoMagicoTexto;
+
+	/**
+	 * Ubicación en la que se lleva a cabo el evento mágico. El índice
+	 * idx_eventos_ubicacion_fecha la cubre junto con la fecha.
 	 */
 	private String ubicacionEventoMagico;
 
@@ -55,7 +125,10 @@ public class EventoMagico {
 	 * muchos a muchos con la clase Estudiante.
 	 */
 	@ManyToMany
-	@JoinTable(name = "eventos_estudiantes", joinColumns = @JoinColumn(name = "id_evento_magico"), inverseJoinColumns = @JoinColumn(name = "id_estudiante"))
+	@JoinTable(
+			name = "eventos_estudiantes",
+			joinColumns = @JoinColumn(name = "id_evento_magico"),
+			inverseJoinColumns = @JoinColumn(name = "id_estudiante"))
 	private Set<Estudiante> estudiantes = new HashSet<>();
 
 	/**
@@ -63,7 +136,10 @@ public class EventoMagico {
 	 * muchos con la clase CriaturaMagica.
 	 */
 	@ManyToMany
-	@JoinTable(name = "eventos_criaturas", joinColumns = @JoinColumn(name = "id_evento_magico"), inverseJoinColumns = @JoinColumn(name = "id_criatura_magica"))
+	@JoinTable(
+			name = "eventos_criaturas",
+			joinColumns = @JoinColumn(name = "id_evento_magico"),
+			inverseJoinColumns = @JoinColumn(name = "id_criatura_magica"))
 	private Set<CriaturaMagica> criaturas = new HashSet<>();
 
 	/**
@@ -81,12 +157,12 @@ public class EventoMagico {
 	 * @param fechaEventoMagico       La fecha en que se realiza el evento.
 	 * @param ubicacionEventoMagico   La ubicación del evento.
 	 */
-	public EventoMagico(String nombreEventoMagico, String descripcionEventoMagico, String fechaEventoMagico,
+	public EventoMagico(String nombreEventoMagico, String descripcionEventoMagico, LocalDate fechaEventoMagico,
 			String ubicacionEventoMagico) {
 		super();
 		this.nombreEventoMagico = nombreEventoMagico;
 		this.descripcionEventoMagico = descripcionEventoMagico;
-		this.fechaEventoMagico = fechaEventoMagico;
+		setFechaEventoMagico(fechaEventoMagico);
 		this.ubicacionEventoMagico = ubicacionEventoMagico;
 	}
 
@@ -99,6 +175,15 @@ public class EventoMagico {
 		return idEventoMagico;
 	}
 
+	/**
+	 * Obtiene la clave de negocio del evento mágico.
+	 * 
+	 * @return El UUID del evento mágico.
+	 */
+	public String getUuid() {
+		return uuidEventoMagico;
+	}
+
 	/**
 	 * Obtiene el nombre del evento mágico.
 	 * 
@@ -140,7 +225,7 @@ public class EventoMagico {
 	 * 
 	 * @return La fecha del evento mágico.
 	 */
-	public String getFechaEventoMagico() {
+	public LocalDate getFechaEventoMagico() {
 		return fechaEventoMagico;
 	}
 
@@ -149,8 +234,9 @@ public class EventoMagico {
 	 * 
 	 * @param fechaEventoMagico La fecha del evento mágico.
 	 */
-	public void setFechaEventoMagico(String fechaEventoMagico) {
+	public void setFechaEventoMagico(LocalDate fechaEventoMagico) {
 		this.fechaEventoMagico = fechaEventoMagico;
+		this.fechaEventoMagicoTexto = fechaEventoMagico == null ? null : fechaEventoMagico.toString();
 	}
 
 	/**
@@ -208,17 +294,22 @@ public class EventoMagico {
 	}
 
 	/**
-	 * Calcula el código hash del evento mágico.
+	 * Calcula el código hash del evento mágico a partir de su clave de negocio,
+	 * que no cambia al asignarle el identificador, de modo que puede estar en
+	 * un HashSet antes y después de guardarlo y los eventos mágicos se reparten
+	 * entre los buckets. Sobre un proxy sin inicializar, lo inicializa.
 	 * 
 	 * @return El código hash del evento mágico.
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(descripcionEventoMagico, fechaEventoMagico, nombreEventoMagico, ubicacionEventoMagico);
+		return getUuid().hashCode();
 	}
 
 	/**
-	 * Compara dos objetos de tipo EventoMagico para determinar si son iguales.
+	 * Compara dos objetos de tipo EventoMagico por su clave de negocio, igual que
+	 * hashCode, de modo que la igualdad no cambia al guardar el evento mágico ni
+	 * al cargarlo de nuevo en otra sesión.
 	 * 
 	 * @param obj El objeto a comparar con el evento mágico.
 	 * @return true si los objetos son iguales, false en caso contrario.
@@ -227,14 +318,10 @@ public class EventoMagico {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof EventoMagico))
 			return false;
 		EventoMagico other = (EventoMagico) obj;
-		return Objects.equals(descripcionEventoMagico, other.descripcionEventoMagico)
-				&& Objects.equals(fechaEventoMagico, other.fechaEventoMagico)
-				&& Objects.equals(nombreEventoMagico, other.nombreEventoMagico)
-				&& Objects.equals(ubicacionEventoMagico, other.ubicacionEventoMagico);
+		// El getter permite comparar con los proxies de Hibernate
+		return getUuid().equals(other.getUuid());
 	}
 }
\ No newline at end of file
@@ -1,35 +1,79 @@
 package modelo;
 
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 /**
  * Representa un profesor en el sistema educativo mágico. Cada profesor tiene un
  * nombre, especialidad, nivel mágico, experiencia y puede estar asociado a una
  * casa mágica. Un profesor puede enseñar varios cursos mágicos.
  */
+@NamedEntityGraphs({
+		@NamedEntityGraph(name = Profesor.GRAFO_CASA, attributeNodes = @NamedAttributeNode("casa")),
+		@NamedEntityGraph(name = Profesor.GRAFO_CURSOS, attributeNodes = { @NamedAttributeNode("casa"),
+				@NamedAttributeNode("cursos") }) })
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "profesores")
 @Table(name = "profesores")
 public class Profesor {
 
 	/**
-	 * Identificador único del profesor en la base de datos.
+	 * Grafo de entidad con la casa de la que el profesor es jefe.
+	 */
+	public static final String GRAFO_CASA = "Profesor.casa";
+
+	/**
+	 * Grafo de entidad con la casa y los cursos del profesor.
+	 */
+	public static final String GRAFO_CURSOS = "Profesor.cursos";
+
+	/**
+	 * Identificador único del profesor en la base de datos. Se reserva en bloques
+	 * de 50 valores desde la tabla generador_ids.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "ids_profesores")
+	@TableGenerator(
+			name = "ids_profesores",
+			table = "generador_ids",
+			pkColumnName = "entidad",
+			valueColumnName = "siguiente_id",
+			pkColumnValue = "profesores",
+			allocationSize = 50)
 	private int idProfesor;
 
+	/**
+	 * Clave de negocio del profesor: un UUID que se asigna al crearlo y se guarda
+	 * con él. A diferencia del identificador, ya existe antes de guardarlo y no
+	 * cambia al hacerlo, por lo que sirve de base a equals y hashCode. Al cargarlo
+	 * de la base de datos, Hibernate sustituye el valor inicial por el guardado.
+	 */
+	@Column(length = 36, nullable = false, updatable = false)
+	private String uuidProfesor = UUID.randomUUID().toString();
+
 	/**
 	 * Nombre del profesor.
 	 */
@@ -53,9 +97,12 @@ public class Profesor {
 
 	/**
 	 * Conjunto de cursos mágicos que enseña el profesor. Relación de uno a muchos
-	 * con la clase CursoMagico.
+	 * con la clase CursoMagico. Cada profesor imparte pocos cursos, así que se
+	 * cargan en una subconsulta los de todos los profesores de la misma consulta.
 	 */
 	@OneToMany(mappedBy = "profesor", cascade = CascadeType.ALL)
+	@Fetch(FetchMode.SUBSELECT)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "profesores.cursos")
 	private Set<CursoMagico> cursos = new HashSet<>();
 
 	/**
@@ -116,6 +163,15 @@ public class Profesor {
 		return idProfesor;
 	}
 
+	/**
+	 * Obtiene la clave de negocio del profesor.
+	 * 
+	 * @return El UUID del profesor.
+	 */
+	public String getUuid() {
+		return uuidProfesor;
+	}
+
 	/**
 	 * Obtiene el nombre del profesor.
 	 * 
@@ -225,17 +281,22 @@ public class Profesor {
 	}
 
 	/**
-	 * Calcula el código hash del profesor.
+	 * Calcula el código hash del profesor a partir de su clave de negocio, que
+	 * no cambia al asignarle el identificador, de modo que puede estar en un
+	 * HashSet antes y después de guardarlo y los profesores se reparten entre
+	 * los buckets. Sobre un proxy sin inicializar, lo inicializa.
 	 * 
 	 * @return El código hash del profesor.
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(especialidadProfesor, experienciaProfesor, nivelMagicoProfesor, nombreProfesor);
+		return getUuid().hashCode();
 	}
 
 	/**
-	 * Compara dos objetos de tipo Profesor para determinar si son iguales.
+	 * Compara dos objetos de tipo Profesor por su clave de negocio, igual que
+	 * hashCode, de modo que la igualdad no cambia al guardar el profesor ni al
+	 * cargarlo de nuevo en otra sesión.
 	 * 
 	 * @param obj El objeto a comparar con el profesor.
 	 * @return true si los objetos son iguales, false en caso contrario.
@@ -244,14 +305,10 @@ public class Profesor {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof Profesor))
 			return false;
 		Profesor other = (Profesor) obj;
-		return Objects.equals(especialidadProfesor, other.especialidadProfesor)
-				&& experienciaProfesor == other.experienciaProfesor
-				&& Objects.equals(nivelMagicoProfesor, other.nivelMagicoProfesor)
-				&& Objects.equals(nombreProfesor, other.nombreProfesor);
+		// El getter permite comparar con los proxies de Hibernate
+		return getUuid().equals(other.getUuid());
 	}
 }
\ No newline at end of file
@@ -1,13 +1,20 @@
 package servicio;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import dao.CasaMagicaDao;
 import dao.CriaturaMagicaDao;
 import dao.CursoMagicoDao;
+import dao.DaoAsync;
 import dao.EstudianteDao;
+import dao.EstudianteResumen;
 import dao.EventoMagicoDao;
+import dao.EventoResumen;
+import dao.Pagina;
 import dao.ProfesorDao;
 import modelo.CasaMagica;
 import modelo.CriaturaMagica;
@@ -29,6 +36,14 @@ public class Servicio {
 	private EventoMagicoDao eventoMagicoDao = new EventoMagicoDao();
 	private ProfesorDao profesorDao = new ProfesorDao();
 
+	// Versiones asíncronas de los DAOs, que delegan en los anteriores
+	private DaoAsync<CasaMagica> casaMagicaDaoAsync = new DaoAsync<>(casaMagicaDao);
+	private DaoAsync<CriaturaMagica> criaturaMagicaDaoAsync = new DaoAsync<>(criaturaMagicaDao);
+	private DaoAsync<CursoMagico> cursoMagicoDaoAsync = new DaoAsync<>(cursoMagicoDao);
+	private DaoAsync<Estudiante> estudianteDaoAsync = new DaoAsync<>(estudianteDao);
+	private DaoAsync<EventoMagico> eventoMagicoDaoAsync = new DaoAsync<>(eventoMagicoDao);
+	private DaoAsync<Profesor> profesorDaoAsync = new DaoAsync<>(profesorDao);
+
 	// Operaciones CRUD
 
 	/**
@@ -51,6 +66,17 @@ public class Servicio {
 		return casaMagicaDao.get(id);
 	}
 
+	/**
+	 * Obtiene una casa mágica por su nombre.
+	 * 
+	 * @param nombre El nombre de la casa mágica a obtener.
+	 * @return Un Optional que contiene la casa mágica si se encuentra, o
+	 *         Optional.empty() si no se encuentra.
+	 */
+	public Optional<CasaMagica> obtenerCasaMagicaPorNombre(String nombre) {
+		return casaMagicaDao.obtenerPorNombre(nombre);
+	}
+
 	/**
 	 * Obtiene todas las casas mágicas.
 	 * 
@@ -60,6 +86,18 @@ public class Servicio {
 		return casaMagicaDao.getAll();
 	}
 
+	/**
+	 * Obtiene una página de casas mágicas ordenadas por ID.
+	 * 
+	 * @param despuesDeId El ID del último elemento de la página anterior, o 0 para
+	 *                    la primera página.
+	 * @param limite      El número máximo de elementos de la página.
+	 * @return La página de casas mágicas.
+	 */
+	public Pagina<CasaMagica> obtenerPaginaCasasMagicas(int despuesDeId, int limite) {
+		return casaMagicaDao.getPage(despuesDeId, limite);
+	}
+
 	/**
 	 * Actualiza los datos de una casa mágica.
 	 * 
@@ -109,6 +147,18 @@ public class Servicio {
 		return criaturaMagicaDao.getAll();
 	}
 
+	/**
+	 * Obtiene una página de criaturas mágicas ordenadas por ID.
+	 * 
+	 * @param despuesDeId El ID del último elemento de la página anterior, o 0 para
+	 *                    la primera página.
+	 * @param limite      El número máximo de elementos de la página.
+	 * @return La página de criaturas mágicas.
+	 */
+	public Pagina<CriaturaMagica> obtenerPaginaCriaturasMagicas(int despuesDeId, int limite) {
+		return criaturaMagicaDao.getPage(despuesDeId, limite);
+	}
+
 	/**
 	 * Actualiza los datos de una criatura mágica.
 	 * 
@@ -149,6 +199,17 @@ public class Servicio {
 		return cursoMagicoDao.get(id);
 	}
 
+	/**
+	 * Obtiene un curso mágico por su nombre.
+	 * 
+	 * @param nombre El nombre del curso mágico a obtener.
+	 * @return Un Optional que contiene el curso mágico si se encuentra, o
+	 *         Optional.empty() si no se encuentra.
+	 */
+	public Optional<CursoMagico> obtenerCursoMagicoPorNombre(String nombre) {
+		return cursoMagicoDao.obtenerPorNombre(nombre);
+	}
+
 	/**
 	 * Obtiene todos los cursos mágicos.
 	 * 
@@ -158,6 +219,18 @@ public class Servicio {
 		return cursoMagicoDao.getAll();
 	}
 
+	/**
+	 * Obtiene una página de cursos mágicos ordenados por ID.
+	 * 
+	 * @param despuesDeId El ID del último elemento de la página anterior, o 0 para
+	 *                    la primera página.
+	 * @param limite      El número máximo de elementos de la página.
+	 * @return La página de cursos mágicos.
+	 */
+	public Pagina<CursoMagico> obtenerPaginaCursosMagicos(int despuesDeId, int limite) {
+		return cursoMagicoDao.getPage(despuesDeId, limite);
+	}
+
 	/**
 	 * Actualiza los datos de un curso mágico.
 	 * 
@@ -187,6 +260,16 @@ public class Servicio {
 		estudianteDao.create(estudiante);
 	}
 
+	/**
+	 * Crea varios estudiantes en una única transacción mediante inserciones por
+	 * lotes.
+	 * 
+	 * @param estudiantes Los estudiantes a crear.
+	 */
+	public void crearEstudiantes(Collection<Estudiante> estudiantes) {
+		estudianteDao.createAll(estudiantes);
+	}
+
 	/**
 	 * Obtiene un estudiante por su ID.
 	 * 
@@ -207,6 +290,33 @@ public class Servicio {
 		return estudianteDao.getAll();
 	}
 
+	/**
+	 * Obtiene una página de estudiantes ordenados por ID.
+	 * 
+	 * @param despuesDeId El ID del último elemento de la página anterior, o 0 para
+	 *                    la primera página.
+	 * @param limite      El número máximo de elementos de la página.
+	 * @return La página de estudiantes.
+	 */
+	public Pagina<Estudiante> obtenerPaginaEstudiantes(int despuesDeId, int limite) {
+		return estudianteDao.getPage(despuesDeId, limite);
+	}
+
+	/**
+	 * Obtiene una página de estudiantes ordenados por nombre y, a igualdad de
+	 * nombre, por ID.
+	 * 
+	 * @param despuesDeNombre El nombre del último estudiante de la página anterior,
+	 *                        o null para la primera página.
+	 * @param despuesDeId     El ID del último estudiante de la página anterior.
+	 * @param limite          El número máximo de estudiantes de la página.
+	 * @return La página de estudiantes.
+	 */
+	public Pagina<Estudiante> obtenerPaginaEstudiantesPorNombre(String despuesDeNombre, int despuesDeId,
+			int limite) {
+		return estudianteDao.getPage("nombreEstudiante", despuesDeNombre, despuesDeId, limite);
+	}
+
 	/**
 	 * Actualiza los datos de un estudiante.
 	 * 
@@ -256,6 +366,18 @@ public class Servicio {
 		return eventoMagicoDao.getAll();
 	}
 
+	/**
+	 * Obtiene una página de eventos mágicos ordenados por ID.
+	 * 
+	 * @param despuesDeId El ID del último elemento de la página anterior, o 0 para
+	 *                    la primera página.
+	 * @param limite      El número máximo de elementos de la página.
+	 * @return La página de eventos mágicos.
+	 */
+	public Pagina<EventoMagico> obtenerPaginaEventosMagicos(int despuesDeId, int limite) {
+		return eventoMagicoDao.getPage(despuesDeId, limite);
+	}
+
 	/**
 	 * Actualiza los datos de un evento mágico.
 	 * 
@@ -305,6 +427,18 @@ public class Servicio {
 		return profesorDao.getAll();
 	}
 
+	/**
+	 * Obtiene una página de profesores ordenados por ID.
+	 * 
+	 * @param despuesDeId El ID del último elemento de la página anterior, o 0 para
+	 *                    la primera página.
+	 * @param limite      El número máximo de elementos de la página.
+	 * @return La página de profesores.
+	 */
+	public Pagina<Profesor> obtenerPaginaProfesores(int despuesDeId, int limite) {
+		return profesorDao.getPage(despuesDeId, limite);
+	}
+
 	/**
 	 * Actualiza los datos de un profesor.
 	 * 
@@ -352,6 +486,19 @@ public class Servicio {
 		return casaMagicaDao.obtenerCasasConPuntuacionMayor(minPuntuacion);
 	}
 
+	/**
+	 * Obtiene los nombres de las casas mágicas con mayor puntuación total.
+	 * 
+	 * Esta consulta ordena las casas de mayor a menor puntuación y devuelve solo las
+	 * primeras.
+	 * 
+	 * @param k El número máximo de casas a devolver.
+	 * @return Una lista con los nombres de las casas, de mayor a menor puntuación.
+	 */
+	public List<String> obtenerTopCasas(int k) {
+		return casaMagicaDao.obtenerTopCasas(k);
+	}
+
 	// EstudianteDao
 	/**
 	 * Obtiene una lista con los nombres de todos los estudiantes registrados en la
@@ -361,7 +508,7 @@ public class Servicio {
 	 * 
 	 * @return Una lista con los nombres de todos los estudiantes.
 	 */
-	public List<Estudiante> obtenerNombresEstudiantes() {
+	public List<String> obtenerNombresEstudiantes() {
 		return estudianteDao.obtenerNombresEstudiantes();
 	}
 
@@ -371,10 +518,9 @@ public class Servicio {
 	 * 
 	 * Esta consulta devuelve múltiples campos (nombre y edad) de cada estudiante.
 	 * 
-	 * @return Una lista de arrays de objetos, donde cada array contiene el nombre y
-	 *         la edad de un estudiante.
+	 * @return Una lista de resúmenes con el nombre y la edad de cada estudiante.
 	 */
-	public List<Estudiante[]> obtenerNombresYEdadesEstudiantes() {
+	public List<EstudianteResumen> obtenerNombresYEdadesEstudiantes() {
 		return estudianteDao.obtenerNombresYEdadesEstudiantes();
 	}
 
@@ -389,7 +535,7 @@ public class Servicio {
 	 * @return Una lista con los nombres de los estudiantes que pertenecen a la casa
 	 *         especificada.
 	 */
-	public List<Estudiante> obtenerEstudiantesPorCasa(int idCasa) {
+	public List<String> obtenerEstudiantesPorCasa(int idCasa) {
 		return estudianteDao.obtenerEstudiantesPorCasa(idCasa);
 	}
 
@@ -427,13 +573,39 @@ public class Servicio {
 	 * orden ascendente por su fecha.
 	 * 
 	 * @param ubicacion La ubicación específica donde se realizarán los eventos.
-	 * @return Una lista de arrays de objetos, donde cada array contiene el nombre y
-	 *         la fecha de un evento mágico.
+	 * @return Una lista de resúmenes con el nombre y la fecha de cada evento.
 	 */
-	public List<EventoMagico[]> obtenerEventosPorUbicacionOrdenados(String ubicacion) {
+	public List<EventoResumen> obtenerEventosPorUbicacionOrdenados(String ubicacion) {
 		return eventoMagicoDao.obtenerEventosPorUbicacionOrdenados(ubicacion);
 	}
 
+	/**
+	 * Obtiene los eventos mágicos celebrados entre dos fechas, incluidas ambas.
+	 * 
+	 * Esta consulta filtra los eventos por un rango de fechas y los ordena por
+	 * fecha.
+	 * 
+	 * @param desde La primera fecha del rango.
+	 * @param hasta La última fecha del rango.
+	 * @return Una lista de resúmenes con el nombre y la fecha de cada evento.
+	 */
+	public List<EventoResumen> obtenerEventosEntre(LocalDate desde, LocalDate hasta) {
+		return eventoMagicoDao.obtenerEventosEntre(desde, hasta);
+	}
+
+	/**
+	 * Obtiene los próximos eventos mágicos a partir de hoy.
+	 * 
+	 * Esta consulta ordena los eventos futuros por fecha y devuelve solo los
+	 * primeros.
+	 * 
+	 * @param limite El número máximo de eventos a devolver.
+	 * @return Una lista de resúmenes con el nombre y la fecha de cada evento.
+	 */
+	public List<EventoResumen> obtenerProximosEventos(int limite) {
+		return eventoMagicoDao.obtenerProximosEventos(limite);
+	}
+
 	// Ejercicios con CriteriaBuilder
 	/**
 	 * Actualiza la puntuación total de una casa mágica específica basada en su
@@ -450,6 +622,28 @@ public class Servicio {
 		casaMagicaDao.actualizarPuntuacionCasa(nuevaPuntuacion, nombreCasa);
 	}
 
+	/**
+	 * Suma puntos a una casa mágica, o los resta si el delta es negativo. Las
+	 * sumas se acumulan en memoria y se escriben juntas poco después, por lo que
+	 * pueden hacerse desde muchos hilos a la vez sin competir por la fila de la
+	 * casa.
+	 * 
+	 * @param nombreCasa El nombre de la casa mágica.
+	 * @param delta      Los puntos a sumar.
+	 */
+	public void sumarPuntos(String nombreCasa, int delta) {
+		casaMagicaDao.sumarPuntos(nombreCasa, delta);
+	}
+
+	/**
+	 * Escribe en la base de datos los puntos sumados que aún estén pendientes.
+	 * 
+	 * @return El número de casas cuya puntuación se ha actualizado.
+	 */
+	public int volcarPuntosPendientes() {
+		return casaMagicaDao.volcarPuntosPendientes();
+	}
+
 	/**
 	 * Elimina un estudiante de la base de datos según su nombre.
 	 * 
@@ -462,4 +656,123 @@ public class Servicio {
 		estudianteDao.eliminarEstudiantePorNombre(nombreEstudiante);
 	}
 
+	// Operaciones asíncronas
+
+	/**
+	 * Obtiene una casa mágica por su ID de forma asíncrona.
+	 * 
+	 * @param id El ID de la casa mágica a obtener.
+	 * @return Un futuro con un Optional que contiene la casa mágica si se
+	 *         encuentra.
+	 */
+	public CompletableFuture<Optional<CasaMagica>> obtenerCasaMagicaAsync(int id) {
+		return casaMagicaDaoAsync.get(id);
+	}
+
+	/**
+	 * Obtiene todas las casas mágicas de forma asíncrona.
+	 * 
+	 * @return Un futuro con la lista de las casas mágicas.
+	 */
+	public CompletableFuture<List<CasaMagica>> obtenerTodasLasCasasMagicasAsync() {
+		return casaMagicaDaoAsync.getAll();
+	}
+
+	/**
+	 * Obtiene una criatura mágica por su ID de forma asíncrona.
+	 * 
+	 * @param id El ID de la criatura mágica a obtener.
+	 * @return Un futuro con un Optional que contiene la criatura mágica si se
+	 *         encuentra.
+	 */
+	public CompletableFuture<Optional<CriaturaMagica>> obtenerCriaturaMagicaAsync(int id) {
+		return criaturaMagicaDaoAsync.get(id);
+	}
+
+	/**
+	 * Obtiene todas las criaturas mágicas de forma asíncrona.
+	 * 
+	 * @return Un futuro con la lista de las criaturas mágicas.
+	 */
+	public CompletableFuture<List<CriaturaMagica>> obtenerTodasLasCriaturasMagicasAsync() {
+		return criaturaMagicaDaoAsync.getAll();
+	}
+
+	/**
+	 * Obtiene un curso mágico por su ID de forma asíncrona.
+	 * 
+	 * @param id El ID del curso mágico a obtener.
+	 * @return Un futuro con un Optional que contiene el curso mágico si se
+	 *         encuentra.
+	 */
+	public CompletableFuture<Optional<CursoMagico>> obtenerCursoMagicoAsync(int id) {
+		return cursoMagicoDaoAsync.get(id);
+	}
+
+	/**
+	 * Obtiene todos los cursos mágicos de forma asíncrona.
+	 * 
+	 * @return Un futuro con la lista de los cursos mágicos.
+	 */
+	public CompletableFuture<List<CursoMagico>> obtenerTodosLosCursosMagicosAsync() {
+		return cursoMagicoDaoAsync.getAll();
+	}
+
+	/**
+	 * Obtiene un estudiante por su ID de forma asíncrona.
+	 * 
+	 * @param id El ID del estudiante a obtener.
+	 * @return Un futuro con un Optional que contiene el estudiante si se encuentra.
+	 */
+	public CompletableFuture<Optional<Estudiante>> obtenerEstudianteAsync(int id) {
+		return estudianteDaoAsync.get(id);
+	}
+
+	/**
+	 * Obtiene todos los estudiantes de forma asíncrona.
+	 * 
+	 * @return Un futuro con la lista de los estudiantes.
+	 */
+	public CompletableFuture<List<Estudiante>> obtenerTodosLosEstudiantesAsync() {
+		return estudianteDaoAsync.getAll();
+	}
+
+	/**
+	 * Obtiene un evento mágico por su ID de forma asíncrona.
+	 * 
+	 * @param id El ID del evento mágico a obtener.
+	 * @return Un futuro con un Optional que contiene el evento mágico si se
+	 *         encuentra.
+	 */
+	public CompletableFuture<Optional<EventoMagico>> obtenerEventoMagicoAsync(int id) {
+		return eventoMagicoDaoAsync.get(id);
+	}
+
+	/**
+	 * Obtiene todos los eventos mágicos de forma asíncrona.
+	 * 
+	 * @return Un futuro con la lista de los eventos mágicos.
+	 */
+	public CompletableFuture<List<EventoMagico>> obtenerTodosLosEventosMagicosAsync() {
+		return eventoMagicoDaoAsync.getAll();
+	}
+
+	/**
+	 * Obtiene un profesor por su ID de forma asíncrona.
+	 * 
+	 * @param id El ID del profesor a obtener.
+	 * @return Un futuro con un Optional que contiene el profesor si se encuentra.
+	 */
+	public CompletableFuture<Optional<Profesor>> obtenerProfesorAsync(int id) {
+		return profesorDaoAsync.get(id);
+	}
+
+	/**
+	 * Obtiene todos los profesores de forma asíncrona.
+	 * 
+	 * @return Un futuro con la lista de los profesores.
+	 */
+	public CompletableFuture<List<Profesor>> obtenerTodosLosProfesoresAsync() {
+		return profesorDaoAsync.getAll();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+package utiles;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Acumulador en memoria de incrementos por clave que los combina antes de
+ * escribirlos en la base de datos. Cada clave tiene un {@link LongAdder}, que
+ * reparte las sumas concurrentes entre varias celdas, de modo que los hilos que
+ * suman a la vez no compiten por un mismo contador ni por una fila de la tabla.
+ *
+ * Los incrementos pendientes se vuelcan juntos, un delta por clave, cada cierto
+ * intervalo o en cuanto las sumas pendientes alcanzan un umbral, y también al
+ * {@link #detener() detener} el acumulador. Si el volcado falla, cada delta se
+ * vuelve a escribir por separado, de modo que una clave cuya escritura falla
+ * siempre no impide escribir las demás. Los deltas que fallan también por
+ * separado se devuelven al acumulador y se reintentan en el siguiente volcado,
+ * hasta {@value #MAX_FALLOS} veces seguidas por clave; después se descartan y
+ * se dejan en el log para aplicarlos a mano.
+ */
+public class AcumuladorPuntos {
+
+	/**
+	 * Logger del acumulador.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(AcumuladorPuntos.class);
+
+	/**
+	 * Tiempo máximo, en segundos, que se espera a que termine un volcado en curso
+	 * al detener el acumulador.
+	 */
+	private static final long ESPERA_DETENER_S = 10;
+
+	/**
+	 * Número de volcados seguidos en que puede fallar la escritura de una clave
+	 * antes de descartar su delta. Con el intervalo por defecto de 200 ms
+	 * equivale a unos diez segundos de fallos.
+	 */
+	static final int MAX_FALLOS = 50;
+
+	/**
+	 * Incrementos pendientes de cada clave.
+	 */
+	private final Map<String, LongAdder> pendientes = new ConcurrentHashMap<>();
+
+	/**
+	 * Número de sumas pendientes de volcar.
+	 */
+	private final LongAdder sumasPendientes = new LongAdder();
+
+	/**
+	 * Indica si ya hay un volcado pedido por haber alcanzado el umbral.
+	 */
+	private final AtomicBoolean volcadoPedido = new AtomicBoolean();
+
+	/**
+	 * Indica si el acumulador se ha detenido y ya no admite sumas.
+	 */
+	private volatile boolean detenido;
+
+	/**
+	 * Operación que escribe los deltas combinados, ordenados por clave.
+	 */
+	private final Consumer<SortedMap<String, Long>> volcado;
+
+	/**
+	 * Número de sumas pendientes a partir del cual se vuelca sin esperar al
+	 * intervalo.
+	 */
+	private final long umbral;
+
+	/**
+	 * Planificador de los volcados periódicos y de los pedidos por el umbral.
+	 */
+	private final ScheduledExecutorService planificador;
+
+	/**
+	 * Número de volcados seguidos en que ha fallado la escritura de cada clave,
+	 * para las claves cuyo último intento falló.
+	 */
+	private final Map<String, Integer> fallos = new HashMap<>();
+
+	/**
+	 * Número total de sumas volcadas.
+	 */
+	private long sumasVolcadas;
+
+	/**
+	 * Número total de deltas escritos, uno por clave en cada volcado.
+	 */
+	private long escrituras;
+
+	/**
+	 * Crea el acumulador y programa su volcado periódico.
+	 *
+	 * @param volcado     La operación que escribe los deltas combinados de cada
+	 *                    clave, en una única transacción.
+	 * @param intervaloMs El tiempo, en milisegundos, entre dos volcados.
+	 * @param umbral      El número de sumas pendientes que provoca un volcado
+	 *                    inmediato.
+	 */
+	public AcumuladorPuntos(Consumer<SortedMap<String, Long>> volcado, long intervaloMs, long umbral) {
+		this.volcado = volcado;
+		this.umbral = umbral;
+		this.planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+			Thread hilo = new Thread(tarea, "acumulador-puntos");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		long periodo = Math.max(intervaloMs, 1);
+		planificador.scheduleWithFixedDelay(this::volcarSinFallar, periodo, periodo, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Suma un incremento, que puede ser negativo, a una clave. No accede a la base
+	 * de datos: el incremento se escribe en el siguiente volcado. Si el
+	 * acumulador se detiene mientras se suma, el propio llamante vuelca el
+	 * incremento para que no se pierda tras el último volcado de
+	 * {@link #detener()}.
+	 *
+	 * @param clave La clave.
+	 * @param delta El incremento.
+	 * @return false si el acumulador ya estaba detenido y no se ha sumado nada.
+	 * @throws RuntimeException Si falla el volcado que hace el llamante tras
+	 *                          detenerse el acumulador.
+	 */
+	public boolean sumar(String clave, long delta) {
+		if (detenido) {
+			return false;
+		}
+		pendientes.computeIfAbsent(clave, c -> new LongAdder()).add(delta);
+		sumasPendientes.increment();
+		if (detenido) {
+			// detener() pudo hacer su último volcado antes de nuestra suma
+			volcar();
+			return true;
+		}
+		// Solo se intenta pedir el volcado si no hay otro pedido, para no competir
+		if (sumasPendientes.sum() >= umbral && !volcadoPedido.get()
+				&& volcadoPedido.compareAndSet(false, true)) {
+			try {
+				planificador.execute(this::volcarSinFallar);
+			} catch (RuntimeException e) {
+				// El acumulador se está deteniendo y ya hará el último volcado
+				volcadoPedido.set(false);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Escribe los incrementos pendientes de todas las claves, combinados en un
+	 * delta por clave. Las claves cuyo delta combinado es cero no se escriben.
+	 *
+	 * @return El número de deltas escritos.
+	 * @throws RuntimeException Si falla la escritura de alguna clave, después de
+	 *                          escribir las demás. Sus deltas vuelven a quedar
+	 *                          pendientes o, tras {@value #MAX_FALLOS} fallos
+	 *                          seguidos, se descartan.
+	 */
+	public synchronized int volcar() {
+		volcadoPedido.set(false);
+		long sumas = sumasPendientes.sum();
+		SortedMap<String, Long> deltas = new TreeMap<>();
+		pendientes.forEach((clave, acumulado) -> {
+			// Restamos lo leído en vez de reiniciar para no perder sumas concurrentes
+			long delta = acumulado.sum();
+			if (delta != 0) {
+				acumulado.add(-delta);
+				deltas.put(clave, delta);
+			}
+		});
+		sumasPendientes.add(-sumas);
+		if (deltas.isEmpty()) {
+			return 0;
+		}
+		try {
+			volcado.accept(deltas);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Falló el volcado de {}; se escribe cada clave por separado", deltas, e);
+			return volcarPorSeparado(deltas, sumas);
+		}
+		fallos.keySet().removeAll(deltas.keySet());
+		sumasVolcadas += sumas;
+		escrituras += deltas.size();
+		LOGGER.debug("Volcadas {} sumas en {} escrituras: {}", sumas, deltas.size(), deltas);
+		return deltas.size();
+	}
+
+	/**
+	 * Escribe por separado cada delta de un volcado que ha fallado. Los que
+	 * fallan vuelven a quedar pendientes, salvo los de las claves que acumulan
+	 * {@value #MAX_FALLOS} fallos seguidos, que se descartan. Debe llamarse con el
+	 * monitor del acumulador.
+	 *
+	 * @param deltas Los deltas del volcado, por clave.
+	 * @param sumas  El número de sumas que combinan.
+	 * @return El número de deltas escritos.
+	 * @throws RuntimeException El primer fallo, si falla alguna clave.
+	 */
+	private int volcarPorSeparado(SortedMap<String, Long> deltas, long sumas) {
+		int escritos = 0;
+		RuntimeException primerFallo = null;
+		for (Map.Entry<String, Long> entrada : deltas.entrySet()) {
+			String clave = entrada.getKey();
+			long delta = entrada.getValue();
+			try {
+				volcado.accept(new TreeMap<>(Map.of(clave, delta)));
+				fallos.remove(clave);
+				escritos++;
+			} catch (RuntimeException e) {
+				if (primerFallo == null) {
+					primerFallo = e;
+				}
+				int seguidos = fallos.merge(clave, 1, Integer::sum);
+				if (seguidos < MAX_FALLOS) {
+					pendientes.get(clave).add(delta);
+				} else {
+					fallos.remove(clave);
+					LOGGER.error("Se descartan {} puntos de {} tras {} volcados fallidos seguidos", delta, clave,
+							seguidos, e);
+				}
+			}
+		}
+		escrituras += escritos;
+		if (primerFallo == null) {
+			sumasVolcadas += sumas;
+			return escritos;
+		}
+		// No se sabe cuántas sumas combinaba cada delta: se siguen contando todas
+		// como pendientes para el umbral
+		sumasPendientes.add(sumas);
+		throw primerFallo;
+	}
+
+	/**
+	 * Vuelca los incrementos pendientes desde el planificador, dejando en el log
+	 * los fallos para que no cancelen los volcados siguientes.
+	 */
+	private void volcarSinFallar() {
+		try {
+			volcar();
+		} catch (RuntimeException e) {
+			LOGGER.error("No se pudieron volcar los puntos pendientes; se reintentará", e);
+		}
+	}
+
+	/**
+	 * Obtiene el número total de sumas volcadas.
+	 *
+	 * @return Las sumas volcadas.
+	 */
+	public synchronized long getSumasVolcadas() {
+		return sumasVolcadas;
+	}
+
+	/**
+	 * Obtiene el número total de deltas escritos en la base de datos.
+	 *
+	 * @return Los deltas escritos.
+	 */
+	public synchronized long getEscrituras() {
+		return escrituras;
+	}
+
+	/**
+	 * Detiene los volcados periódicos, espera a que termine el que esté en curso y
+	 * vuelca de forma síncrona los incrementos pendientes. Desde ese momento
+	 * {@link #sumar(String, long)} no admite más incrementos.
+	 */
+	public void detener() {
+		detenido = true;
+		planificador.shutdown();
+		try {
+			if (!planificador.awaitTermination(ESPERA_DETENER_S, TimeUnit.SECONDS)) {
+				LOGGER.warn("El volcado de puntos en curso no terminó en {} s", ESPERA_DETENER_S);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			volcar();
+		} catch (RuntimeException e) {
+			LOGGER.error("Se pierden los puntos pendientes {} al detener el acumulador", pendientes, e);
+		}
+		LOGGER.info("Acumulador de puntos detenido: {} sumas volcadas en {} escrituras", getSumasVolcadas(),
+				getEscrituras());
+	}
+}
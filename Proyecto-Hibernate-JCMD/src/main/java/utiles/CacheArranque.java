@@ -0,0 +1,298 @@
+package utiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Version;
+import org.hibernate.boot.cfgxml.spi.MappingReference;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+
+/**
+ * Fichero local con el entorno de la base de datos del último arranque de
+ * Hibernate. El fichero se asocia a una suma de comprobación de
+ * hibernate.cfg.xml, de las propiedades de configuración efectivas, del código
+ * de las entidades mapeadas y de la versión de Hibernate, de modo que cualquier
+ * cambio en ellos lo invalida.
+ *
+ * No es una caché que acelere los reinicios: Hibernate 6.1 no permite
+ * serializar los metadatos construidos (el contexto de arranque no es
+ * serializable), y cada arranque sigue consultando los metadatos JDBC para
+ * resolver el dialecto. Lo que se guarda es el producto y la versión de la base
+ * de datos, que se pasan a Hibernate como propiedades
+ * jakarta.persistence.database-*; solo las usa si al arrancar no puede
+ * consultar los metadatos JDBC, en lugar de recurrir a su dialecto por
+ * defecto. La suma de comprobación sirve además para saber si el modelo ha
+ * cambiado desde el último arranque.
+ *
+ * La versión del servidor no forma parte de la suma, porque conocerla exige
+ * conectarse. Por eso, tras arrancar con el fichero, se compara con la que
+ * informa una conexión del pool, y si la base de datos se ha actualizado se
+ * reescribe el fichero.
+ *
+ * El modo se activa indicando la ruta del fichero en la propiedad
+ * {@value #FICHERO}.
+ */
+public class CacheArranque {
+
+	/**
+	 * Propiedad de configuración con la ruta del fichero de caché del arranque.
+	 */
+	public static final String FICHERO = "hogwarts.arranque.cache";
+
+	/**
+	 * Clave del fichero que guarda la suma de comprobación.
+	 */
+	private static final String CLAVE_SUMA = "suma";
+
+	/**
+	 * Propiedades de Hibernate que describen la base de datos sin consultarla.
+	 */
+	private static final String[] PROPIEDADES_ENTORNO = { "jakarta.persistence.database-product-name",
+			"jakarta.persistence.database-product-version", "jakarta.persistence.database-major-version",
+			"jakarta.persistence.database-minor-version" };
+
+	/**
+	 * Logger de la caché del arranque.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(CacheArranque.class);
+
+	/**
+	 * Ruta del fichero de caché.
+	 */
+	private final Path fichero;
+
+	/**
+	 * Suma de comprobación de la configuración y las entidades.
+	 */
+	private final String suma;
+
+	/**
+	 * Indica si el fichero estaba vigente y se ha aplicado.
+	 */
+	private boolean aplicada;
+
+	/**
+	 * Datos leídos del fichero, si se ha aplicado.
+	 */
+	private Properties leidos;
+
+	/**
+	 * Constructor de la caché del arranque.
+	 *
+	 * @param fichero La ruta del fichero de caché.
+	 * @param suma    La suma de comprobación actual.
+	 */
+	private CacheArranque(Path fichero, String suma) {
+		this.fichero = fichero;
+		this.suma = suma;
+	}
+
+	/**
+	 * Crea la caché del arranque para una configuración ya leída de
+	 * hibernate.cfg.xml.
+	 *
+	 * @param constructor El constructor del registro de servicios, ya configurado.
+	 * @return La caché, o null si la propiedad {@value #FICHERO} no está definida.
+	 */
+	public static CacheArranque crear(StandardServiceRegistryBuilder constructor) {
+		Object ruta = constructor.getSettings().get(FICHERO);
+		if (ruta == null || ruta.toString().trim().isEmpty()) {
+			return null;
+		}
+		return new CacheArranque(Paths.get(ruta.toString().trim()), calcularSuma(constructor));
+	}
+
+	/**
+	 * Obtiene la suma de comprobación de la configuración y las entidades.
+	 *
+	 * @return La suma en hexadecimal.
+	 */
+	public String getSuma() {
+		return suma;
+	}
+
+	/**
+	 * Indica si se han pasado a Hibernate los datos del fichero.
+	 *
+	 * @return true si el fichero estaba vigente y se ha aplicado.
+	 */
+	public boolean isAplicada() {
+		return aplicada;
+	}
+
+	/**
+	 * Aplica al registro de servicios los datos guardados si el fichero existe y
+	 * su suma de comprobación coincide con la actual. Hibernate sigue consultando
+	 * los metadatos JDBC y solo recurre a estos datos si la consulta falla.
+	 *
+	 * @param constructor El constructor del registro de servicios.
+	 * @return true si se han aplicado los datos del fichero.
+	 */
+	public boolean aplicar(StandardServiceRegistryBuilder constructor) {
+		if (!Files.isRegularFile(fichero)) {
+			return false;
+		}
+		Properties datos = new Properties();
+		try (Reader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+			datos.load(lector);
+		} catch (IOException e) {
+			LOGGER.warn("No se pudo leer la caché del arranque {}", fichero, e);
+			return false;
+		}
+		if (!suma.equals(datos.getProperty(CLAVE_SUMA))) {
+			LOGGER.info("La caché del arranque {} no corresponde a la configuración actual", fichero);
+			return false;
+		}
+		for (String propiedad : PROPIEDADES_ENTORNO) {
+			String valor = datos.getProperty(propiedad);
+			if (valor == null) {
+				return false;
+			}
+			constructor.applySetting(propiedad, valor);
+		}
+		leidos = datos;
+		aplicada = true;
+		return true;
+	}
+
+	/**
+	 * Guarda en el fichero el entorno de la base de datos de una fábrica recién
+	 * creada, salvo que se haya arrancado con el fichero y la base de datos no
+	 * haya cambiado de versión desde que se escribió. Un fallo al guardarlo no
+	 * impide el arranque.
+	 *
+	 * @param factoria La fábrica de sesiones.
+	 */
+	public void guardar(SessionFactory factoria) {
+		Properties datos = new Properties();
+		datos.setProperty(CLAVE_SUMA, suma);
+		try (Session sesion = factoria.openSession()) {
+			sesion.doWork(conexion -> {
+				DatabaseMetaData metadatos = conexion.getMetaData();
+				datos.setProperty(PROPIEDADES_ENTORNO[0], metadatos.getDatabaseProductName());
+				datos.setProperty(PROPIEDADES_ENTORNO[1], metadatos.getDatabaseProductVersion());
+				datos.setProperty(PROPIEDADES_ENTORNO[2], String.valueOf(metadatos.getDatabaseMajorVersion()));
+				datos.setProperty(PROPIEDADES_ENTORNO[3], String.valueOf(metadatos.getDatabaseMinorVersion()));
+			});
+			if (aplicada) {
+				String anterior = leidos.getProperty(PROPIEDADES_ENTORNO[0]) + " "
+						+ leidos.getProperty(PROPIEDADES_ENTORNO[1]);
+				String actual = datos.getProperty(PROPIEDADES_ENTORNO[0]) + " "
+						+ datos.getProperty(PROPIEDADES_ENTORNO[1]);
+				if (anterior.equals(actual)) {
+					return;
+				}
+				LOGGER.warn("La base de datos ha pasado de {} a {}: se reescribe la caché del arranque {}, "
+						+ "que se aplicará en el siguiente arranque", anterior, actual, fichero);
+			}
+			Path padre = fichero.toAbsolutePath().getParent();
+			Files.createDirectories(padre);
+			// Escribimos en un temporal y lo movemos para no dejar nunca un fichero a
+			// medias si arrancan varias instancias a la vez
+			Path temporal = Files.createTempFile(padre, "arranque", ".tmp");
+			try (Writer escritor = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+				datos.store(escritor, "Datos del arranque de Hibernate");
+			}
+			try {
+				Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("No se pudo guardar la caché del arranque {}", fichero, e);
+		}
+	}
+
+	/**
+	 * Calcula la suma SHA-256 de la versión de Hibernate, de hibernate.cfg.xml, de
+	 * las propiedades de configuración y del código compilado de cada entidad
+	 * mapeada.
+	 *
+	 * @param constructor El constructor del registro de servicios, ya configurado.
+	 * @return La suma en hexadecimal.
+	 */
+	private static String calcularSuma(StandardServiceRegistryBuilder constructor) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		ClassLoader cargador = CacheArranque.class.getClassLoader();
+		digest.update(Version.getVersionString().getBytes(StandardCharsets.UTF_8));
+		actualizar(digest, cargador, StandardServiceRegistryBuilder.DEFAULT_CFG_RESOURCE_NAME);
+		// Incluimos las propiedades efectivas, que pueden venir de fuera del fichero
+		Map<String, Object> ajustes = new TreeMap<>();
+		for (Map.Entry<String, Object> ajuste : constructor.getSettings().entrySet()) {
+			String nombre = ajuste.getKey();
+			if (nombre.startsWith("hibernate.") || nombre.startsWith("jakarta.persistence.")
+					|| nombre.startsWith("hogwarts.")) {
+				ajustes.put(nombre, ajuste.getValue());
+			}
+		}
+		digest.update(ajustes.toString().getBytes(StandardCharsets.UTF_8));
+		for (MappingReference mapeo : constructor.getAggregatedCfgXml().getMappingReferences()) {
+			String recurso = mapeo.getReference();
+			if (mapeo.getType() == MappingReference.Type.CLASS) {
+				recurso = recurso.replace('.', '/') + ".class";
+			}
+			digest.update(recurso.getBytes(StandardCharsets.UTF_8));
+			actualizar(digest, cargador, recurso);
+		}
+		return hexadecimal(digest.digest());
+	}
+
+	/**
+	 * Convierte una suma de comprobación en texto hexadecimal.
+	 *
+	 * @param bytes Los bytes de la suma.
+	 * @return El texto hexadecimal, en minúsculas.
+	 */
+	static String hexadecimal(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Añade a la suma el contenido de un recurso del classpath, si existe.
+	 *
+	 * @param digest   La suma en curso.
+	 * @param cargador El cargador de clases.
+	 * @param recurso  El nombre del recurso.
+	 */
+	private static void actualizar(MessageDigest digest, ClassLoader cargador, String recurso) {
+		try (InputStream entrada = cargador.getResourceAsStream(recurso)) {
+			if (entrada == null) {
+				return;
+			}
+			byte[] bloque = new byte[8192];
+			int leidos;
+			while ((leidos = entrada.read(bloque)) != -1) {
+				digest.update(bloque, 0, leidos);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("No se pudo leer " + recurso, e);
+		}
+	}
+}
@@ -0,0 +1,388 @@
+package utiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Constraint;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.Table;
+import org.hibernate.mapping.ToOne;
+import org.hibernate.mapping.Value;
+
+/**
+ * Comprobación, durante la fase test de la construcción, de que cada predicado
+ * de las consultas de los DAOs tiene un índice que lo resuelva. Recorre las
+ * fuentes de los DAOs buscando las consultas HQL escritas como literales y los
+ * predicados de CriteriaBuilder sobre atributos con nombre, y las contrasta con
+ * los índices declarados en las entidades: la clave primaria, las anotaciones
+ * {@link jakarta.persistence.Index}, las restricciones de unicidad y las claves
+ * ajenas, que MySQL indexa automáticamente.
+ *
+ * Una consulta está cubierta si algún índice empieza por las columnas que
+ * filtra, en cualquier orden, seguidas de las columnas por las que ordena, en
+ * ese orden. Las consultas construidas concatenando nombres de atributos en
+ * tiempo de ejecución no se comprueban.
+ */
+public class ComprobadorIndices {
+
+	/**
+	 * Literal de cadena, o varios concatenados con +.
+	 */
+	private static final Pattern LITERALES = Pattern
+			.compile("\"(?:[^\"\\\\]|\\\\.)*\"(?:\\s*\\+\\s*\"(?:[^\"\\\\]|\\\\.)*\")*");
+
+	/**
+	 * Un literal de cadena y su contenido.
+	 */
+	private static final Pattern LITERAL = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+	/**
+	 * Entidad y alias de la cláusula FROM de una consulta HQL o de una sentencia
+	 * UPDATE.
+	 */
+	private static final Pattern FROM = Pattern.compile("\\b(?:FROM|UPDATE)\\s+(\\w+)\\s+(?:AS\\s+)?(\\w+)",
+			Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Cláusulas de una consulta que terminan la cláusula WHERE.
+	 */
+	private static final Pattern FIN_WHERE = Pattern.compile("\\b(?:GROUP|ORDER)\\s+BY\\b",
+			Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Predicado de CriteriaBuilder sobre un atributo con nombre.
+	 */
+	private static final Pattern CRITERIA = Pattern.compile("root\\.get\\(\"(\\w+)\"\\)");
+
+	/**
+	 * Entidad que maneja un DAO.
+	 */
+	private static final Pattern ENTIDAD_DAO = Pattern.compile("extends\\s+AbstractDao<(\\w+)>");
+
+	/**
+	 * Logger de la comprobación.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(ComprobadorIndices.class);
+
+	/**
+	 * Metadatos de las entidades, con sus tablas e índices.
+	 */
+	private final Metadata metadatos;
+
+	/**
+	 * Problemas encontrados, uno por consulta sin índice.
+	 */
+	private final List<String> problemas = new ArrayList<>();
+
+	/**
+	 * Número de consultas comprobadas.
+	 */
+	private int comprobadas;
+
+	/**
+	 * Constructor del comprobador.
+	 *
+	 * @param metadatos Los metadatos de las entidades.
+	 */
+	public ComprobadorIndices(Metadata metadatos) {
+		this.metadatos = metadatos;
+	}
+
+	/**
+	 * Comprueba los DAOs de un directorio de fuentes y falla si alguna consulta no
+	 * tiene índice. Los metadatos se construyen a partir de hibernate.cfg.xml sin
+	 * conectar con la base de datos.
+	 *
+	 * @param args El directorio de las fuentes de los DAOs, por defecto
+	 *             src/main/java/dao.
+	 * @throws IOException           Si no se pueden leer las fuentes.
+	 * @throws IllegalStateException Si alguna consulta no tiene índice.
+	 */
+	public static void main(String[] args) throws IOException {
+		// Sin el detalle de Hibernate, que ocultaría el resultado en la salida de Maven
+		Configurator.setRootLevel(Level.INFO);
+		Path directorio = Paths.get(args.length > 0 ? args[0] : "src/main/java/dao");
+		StandardServiceRegistry registro = new StandardServiceRegistryBuilder().configure()
+				.applySetting("jakarta.persistence.database-product-name", "MySQL")
+				.applySetting("jakarta.persistence.database-major-version", 8)
+				.applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+				.applySetting("hibernate.cache.use_second_level_cache", false)
+				.applySetting("hibernate.cache.region.factory_class", "org.hibernate.cache.internal.NoCachingRegionFactory").build();
+		try {
+			ComprobadorIndices comprobador = new ComprobadorIndices(new MetadataSources(registro).buildMetadata());
+			List<String> problemas = comprobador.comprobar(directorio);
+			if (!problemas.isEmpty()) {
+				throw new IllegalStateException("Consultas de los DAOs sin índice:\n  " + String.join("\n  ", problemas));
+			}
+			LOGGER.info("{} consultas de los DAOs comprobadas, todas con índice", comprobador.comprobadas);
+		} finally {
+			StandardServiceRegistryBuilder.destroy(registro);
+		}
+	}
+
+	/**
+	 * Comprueba las consultas de todos los ficheros Java de un directorio.
+	 *
+	 * @param directorio El directorio de las fuentes de los DAOs.
+	 * @return Los problemas encontrados, vacía si todas las consultas tienen índice.
+	 * @throws IOException Si no se pueden leer las fuentes.
+	 */
+	public List<String> comprobar(Path directorio) throws IOException {
+		List<Path> fuentes;
+		try (Stream<Path> ficheros = Files.list(directorio)) {
+			fuentes = ficheros.filter(f -> f.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+		}
+		for (Path fuente : fuentes) {
+			comprobarFuente(fuente.getFileName().toString(), Files.readString(fuente, StandardCharsets.UTF_8));
+		}
+		return problemas;
+	}
+
+	/**
+	 * Comprueba las consultas HQL y los predicados de CriteriaBuilder de una
+	 * fuente.
+	 *
+	 * @param fichero El nombre del fichero, para los mensajes.
+	 * @param codigo  El código fuente.
+	 */
+	private void comprobarFuente(String fichero, String codigo) {
+		Matcher literales = LITERALES.matcher(codigo);
+		while (literales.find()) {
+			StringBuilder consulta = new StringBuilder();
+			Matcher literal = LITERAL.matcher(literales.group());
+			while (literal.find()) {
+				consulta.append(literal.group(1));
+			}
+			comprobarHql(fichero, consulta.toString());
+		}
+		Matcher dao = ENTIDAD_DAO.matcher(codigo);
+		if (dao.find()) {
+			Matcher criteria = CRITERIA.matcher(codigo);
+			while (criteria.find()) {
+				comprobar(fichero, "root.get(\"" + criteria.group(1) + "\")", dao.group(1),
+						List.of(criteria.group(1)), List.of());
+			}
+		}
+	}
+
+	/**
+	 * Comprueba una consulta HQL con una entidad y un alias en su cláusula FROM, o
+	 * una sentencia UPDATE con alias.
+	 * Los literales que no son consultas, o cuya entidad se concatena en tiempo de
+	 * ejecución, se ignoran.
+	 *
+	 * @param fichero El nombre del fichero, para los mensajes.
+	 * @param hql     La consulta.
+	 */
+	private void comprobarHql(String fichero, String hql) {
+		Matcher from = FROM.matcher(hql);
+		if (!from.find() || buscarEntidad(from.group(1)) == null) {
+			return;
+		}
+		Pattern ruta = Pattern.compile("\\b" + Pattern.quote(from.group(2)) + "\\.(\\w+(?:\\.\\w+)*)");
+		String resto = hql.substring(from.end());
+		String filtro = "";
+		String orden = "";
+		Matcher where = Pattern.compile("\\bWHERE\\b", Pattern.CASE_INSENSITIVE).matcher(resto);
+		Matcher fin = FIN_WHERE.matcher(resto);
+		int finWhere = fin.find() ? fin.start() : resto.length();
+		if (where.find() && where.start() < finWhere) {
+			filtro = resto.substring(where.end(), finWhere);
+		}
+		Matcher orderBy = Pattern.compile("\\bORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE).matcher(resto);
+		if (orderBy.find()) {
+			orden = resto.substring(orderBy.end());
+		}
+		List<String> filtradas = rutas(ruta, filtro);
+		List<String> ordenadas = rutas(ruta, orden);
+		if (!filtradas.isEmpty() || !ordenadas.isEmpty()) {
+			comprobar(fichero, hql, from.group(1), filtradas, ordenadas);
+		}
+	}
+
+	/**
+	 * Obtiene las rutas de atributos de un alias que aparecen en una cláusula.
+	 *
+	 * @param ruta     El patrón de las rutas del alias.
+	 * @param clausula La cláusula.
+	 * @return Las rutas, sin repetir y en orden de aparición.
+	 */
+	private static List<String> rutas(Pattern ruta, String clausula) {
+		Set<String> rutas = new LinkedHashSet<>();
+		Matcher m = ruta.matcher(clausula);
+		while (m.find()) {
+			rutas.add(m.group(1));
+		}
+		return new ArrayList<>(rutas);
+	}
+
+	/**
+	 * Comprueba que algún índice de la tabla de una entidad empieza por las
+	 * columnas filtradas seguidas de las ordenadas, y anota un problema si no.
+	 *
+	 * @param fichero    El nombre del fichero, para los mensajes.
+	 * @param consulta   La consulta, para los mensajes.
+	 * @param entidad    El nombre de la entidad consultada.
+	 * @param filtradas  Las rutas de los atributos filtrados.
+	 * @param ordenadas  Las rutas de los atributos de ordenación.
+	 */
+	private void comprobar(String fichero, String consulta, String entidad, List<String> filtradas,
+			List<String> ordenadas) {
+		comprobadas++;
+		PersistentClass clase = buscarEntidad(entidad);
+		if (clase == null) {
+			problemas.add(fichero + ": entidad desconocida " + entidad + " en " + consulta);
+			return;
+		}
+		Set<String> filtro = new LinkedHashSet<>();
+		List<String> orden = new ArrayList<>();
+		try {
+			for (String ruta : filtradas) {
+				filtro.addAll(columnas(clase, ruta));
+			}
+			for (String ruta : ordenadas) {
+				orden.addAll(columnas(clase, ruta));
+			}
+		} catch (IllegalArgumentException e) {
+			problemas.add(fichero + ": " + e.getMessage() + " en " + consulta);
+			return;
+		}
+		Table tabla = clase.getTable();
+		for (List<String> indice : indices(tabla)) {
+			if (cubre(indice, filtro, orden)) {
+				LOGGER.debug("{}: {} usa el índice {}", fichero, consulta, indice);
+				return;
+			}
+		}
+		problemas.add(fichero + ": ningún índice de " + tabla.getName() + " empieza por " + filtro
+				+ (orden.isEmpty() ? "" : " y sigue por " + orden) + " en " + consulta);
+	}
+
+	/**
+	 * Indica si un índice empieza por las columnas filtradas, en cualquier orden,
+	 * seguidas de las columnas de ordenación.
+	 *
+	 * @param indice Las columnas del índice.
+	 * @param filtro Las columnas filtradas.
+	 * @param orden  Las columnas de ordenación.
+	 * @return true si el índice resuelve la consulta.
+	 */
+	private static boolean cubre(List<String> indice, Set<String> filtro, List<String> orden) {
+		if (indice.size() < filtro.size()) {
+			return false;
+		}
+		if (!filtro.containsAll(indice.subList(0, filtro.size()))) {
+			return false;
+		}
+		// Las columnas filtradas por igualdad también pueden aparecer en el orden
+		List<String> siguientes = indice.subList(filtro.size(), indice.size());
+		List<String> pendientes = orden.stream().filter(c -> !filtro.contains(c)).collect(Collectors.toList());
+		return siguientes.size() >= pendientes.size() && siguientes.subList(0, pendientes.size()).equals(pendientes);
+	}
+
+	/**
+	 * Obtiene las columnas de cada índice de una tabla: la clave primaria, los
+	 * índices declarados, las restricciones de unicidad y las claves ajenas.
+	 *
+	 * @param tabla La tabla.
+	 * @return Las columnas de cada índice, en minúsculas y en orden.
+	 */
+	private static List<List<String>> indices(Table tabla) {
+		List<List<String>> indices = new ArrayList<>();
+		if (tabla.getPrimaryKey() != null) {
+			indices.add(nombres(tabla.getPrimaryKey()));
+		}
+		for (Iterator<Index> it = tabla.getIndexIterator(); it.hasNext();) {
+			List<String> columnas = new ArrayList<>();
+			for (Iterator<Column> c = it.next().getColumnIterator(); c.hasNext();) {
+				columnas.add(c.next().getName().toLowerCase(Locale.ROOT));
+			}
+			indices.add(columnas);
+		}
+		tabla.getUniqueKeys().values().forEach(u -> indices.add(nombres(u)));
+		tabla.getForeignKeys().values().forEach(f -> indices.add(nombres(f)));
+		return indices;
+	}
+
+	/**
+	 * Obtiene los nombres de las columnas de una restricción.
+	 *
+	 * @param restriccion La restricción.
+	 * @return Los nombres, en minúsculas y en orden.
+	 */
+	private static List<String> nombres(Constraint restriccion) {
+		return restriccion.getColumns().stream().map(c -> c.getName().toLowerCase(Locale.ROOT))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Obtiene las columnas de la tabla de una entidad que corresponden a una ruta
+	 * de atributos: un atributo propio, o el identificador de una entidad asociada,
+	 * que se resuelve con la clave ajena.
+	 *
+	 * @param clase La entidad.
+	 * @param ruta  La ruta de atributos.
+	 * @return Los nombres de las columnas, en minúsculas.
+	 * @throws IllegalArgumentException Si la ruta no corresponde a columnas de la
+	 *                                  tabla.
+	 */
+	private List<String> columnas(PersistentClass clase, String ruta) {
+		String[] partes = ruta.split("\\.");
+		Value valor;
+		if (clase.getIdentifierProperty() != null && clase.getIdentifierProperty().getName().equals(partes[0])) {
+			valor = clase.getIdentifierProperty().getValue();
+		} else {
+			Property propiedad = clase.getProperties().stream().filter(p -> p.getName().equals(partes[0])).findFirst()
+					.orElseThrow(() -> new IllegalArgumentException("atributo desconocido " + ruta));
+			valor = propiedad.getValue();
+		}
+		if (partes.length == 2 && valor instanceof ToOne) {
+			PersistentClass asociada = metadatos.getEntityBinding(((ToOne) valor).getReferencedEntityName());
+			if (asociada == null || !asociada.getIdentifierProperty().getName().equals(partes[1])) {
+				throw new IllegalArgumentException("ruta a través de una asociación " + ruta);
+			}
+		} else if (partes.length > 1) {
+			throw new IllegalArgumentException("ruta a través de una asociación " + ruta);
+		}
+		return valor.getColumns().stream().map(c -> c.getName().toLowerCase(Locale.ROOT)).collect(Collectors.toList());
+	}
+
+	/**
+	 * Busca una entidad por su nombre en las consultas.
+	 *
+	 * @param nombre El nombre de la entidad.
+	 * @return La entidad, o null si no existe.
+	 */
+	private PersistentClass buscarEntidad(String nombre) {
+		for (PersistentClass clase : metadatos.getEntityBindings()) {
+			if (nombre.equals(clase.getJpaEntityName()) || nombre.equals(clase.getEntityName())) {
+				return clase;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,183 @@
+package utiles;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+
+/**
+ * Detector de sesiones de Hibernate que permanecen abiertas más tiempo del
+ * permitido. Cada sesión abierta a través de {@link HibernateUtil} se registra
+ * junto con el instante, el hilo y el método que la abrió; una tarea periódica
+ * avisa en el log de las que superan el umbral configurado.
+ *
+ * Para no encarecer cada apertura solo se recorren los marcos de la pila hasta
+ * el primer método ajeno a HibernateUtil y a AbstractDao. La traza completa
+ * del punto de apertura solo se captura con el nivel DEBUG activo en el logger
+ * del detector.
+ */
+public class DetectorFugasSesion {
+
+	/**
+	 * Logger del detector.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(DetectorFugasSesion.class);
+
+	/**
+	 * Datos de apertura de una sesión.
+	 */
+	private static final class Apertura {
+
+		/**
+		 * Instante de apertura en nanosegundos.
+		 */
+		private final long instante;
+
+		/**
+		 * Nombre del hilo que abrió la sesión.
+		 */
+		private final String hilo;
+
+		/**
+		 * Primer marco de la pila ajeno a la gestión de sesiones, o null si no hay
+		 * ninguno.
+		 */
+		private final StackWalker.StackFrame origen;
+
+		/**
+		 * Traza de la pila en el momento de la apertura, o null si no se captura.
+		 */
+		private final Throwable traza;
+
+		/**
+		 * Indica si ya se ha avisado de la fuga de esta sesión.
+		 */
+		private volatile boolean avisada;
+
+		/**
+		 * Crea los datos de apertura de una sesión en el hilo actual.
+		 */
+		private Apertura() {
+			this.instante = System.nanoTime();
+			this.hilo = Thread.currentThread().getName();
+			this.origen = PILA.walk(marcos -> marcos.filter(DetectorFugasSesion::esOrigen).findFirst()).orElse(null);
+			this.traza = LOGGER.isDebugEnabled() ? new Throwable("Sesión abierta aquí") : null;
+		}
+	}
+
+	/**
+	 * Recorredor de la pila que identifica la clase de cada marco.
+	 */
+	private static final StackWalker PILA = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+	/**
+	 * Sesiones abiertas actualmente junto con sus datos de apertura.
+	 */
+	private final Map<Session, Apertura> abiertas = new ConcurrentHashMap<>();
+
+	/**
+	 * Tiempo máximo, en milisegundos, que una sesión puede permanecer abierta antes
+	 * de considerarse una fuga.
+	 */
+	private final long umbralMs;
+
+	/**
+	 * Planificador de la revisión periódica.
+	 */
+	private final ScheduledExecutorService planificador;
+
+	/**
+	 * Crea el detector y programa su revisión periódica.
+	 *
+	 * @param umbralMs Tiempo máximo, en milisegundos, que una sesión puede
+	 *                 permanecer abierta.
+	 */
+	public DetectorFugasSesion(long umbralMs) {
+		this.umbralMs = umbralMs;
+		this.planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+			Thread hilo = new Thread(tarea, "detector-fugas-sesion");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		long periodo = Math.max(umbralMs / 2, 1);
+		planificador.scheduleAtFixedRate(this::revisar, periodo, periodo, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Registra una sesión recién abierta.
+	 *
+	 * @param sesion La sesión abierta.
+	 */
+	public void registrar(Session sesion) {
+		abiertas.put(sesion, new Apertura());
+	}
+
+	/**
+	 * Elimina del registro una sesión que se ha cerrado.
+	 *
+	 * @param sesion La sesión cerrada.
+	 */
+	public void liberar(Session sesion) {
+		Apertura apertura = abiertas.remove(sesion);
+		if (apertura != null && apertura.avisada) {
+			LOGGER.info("La sesión abierta por el hilo {} se ha cerrado tras {} ms", apertura.hilo,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - apertura.instante));
+		}
+	}
+
+	/**
+	 * Obtiene el número de sesiones abiertas en este momento.
+	 *
+	 * @return El número de sesiones abiertas.
+	 */
+	public int getSesionesAbiertas() {
+		return abiertas.size();
+	}
+
+	/**
+	 * Revisa las sesiones abiertas y avisa una sola vez de cada una que supere el
+	 * umbral. Las sesiones que ya se cerraron sin pasar por el detector se
+	 * descartan.
+	 */
+	public void revisar() {
+		long ahora = System.nanoTime();
+		abiertas.forEach((sesion, apertura) -> {
+			if (!sesion.isOpen()) {
+				abiertas.remove(sesion);
+				return;
+			}
+			long abiertaMs = TimeUnit.NANOSECONDS.toMillis(ahora - apertura.instante);
+			if (!apertura.avisada && abiertaMs > umbralMs) {
+				apertura.avisada = true;
+				LOGGER.warn("Posible fuga: sesión abierta por el hilo {} en {} desde hace {} ms (umbral {} ms)",
+						apertura.hilo, apertura.origen, abiertaMs, umbralMs, apertura.traza);
+			}
+		});
+	}
+
+	/**
+	 * Indica si un marco de la pila es el origen de una apertura: no pertenece al
+	 * detector, a HibernateUtil, a UnidadDeTrabajo ni a AbstractDao.
+	 *
+	 * @param marco El marco de la pila.
+	 * @return true si el marco es el origen de la apertura.
+	 */
+	private static boolean esOrigen(StackWalker.StackFrame marco) {
+		// Las clases anidadas y las lambdas se atribuyen a la clase que las contiene
+		Class<?> clase = marco.getDeclaringClass().getNestHost();
+		return clase != DetectorFugasSesion.class && clase != HibernateUtil.class && clase != UnidadDeTrabajo.class
+				&& !clase.getName().equals("dao.AbstractDao");
+	}
+
+	/**
+	 * Detiene la revisión periódica.
+	 */
+	public void detener() {
+		planificador.shutdownNow();
+	}
+}
@@ -0,0 +1,190 @@
+package utiles;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor de las operaciones asíncronas de acceso a datos. El número de
+ * operaciones que acceden a la base de datos a la vez está limitado, por
+ * defecto al tamaño del pool de conexiones, para que las que no caben no se
+ * acumulen esperando una conexión libre.
+ * 
+ * Cuando la máquina virtual admite hilos virtuales (Java 21 o superior) cada
+ * operación se ejecuta en su propio hilo virtual y las que no caben esperan en
+ * un semáforo, sin ocupar ningún hilo de plataforma. Si no, las operaciones se
+ * ejecutan en un grupo fijo de hilos de plataforma del tamaño del límite y las
+ * que no caben esperan en su cola, sin crear un hilo por operación.
+ * 
+ * Un hilo virtual solo libera su hilo de plataforma mientras espera la base de
+ * datos si el controlador JDBC no hace la entrada y salida dentro de bloques
+ * synchronized. Connector/J 8.x sí la hace y fija el hilo virtual durante cada
+ * consulta, por lo que el proyecto depende de mysql-connector-j 9, que usa
+ * cerrojos {@link java.util.concurrent.locks.ReentrantLock} en su lugar.
+ */
+public class EjecutorAsincrono {
+
+	/**
+	 * Propiedad de configuración con el número máximo de operaciones asíncronas
+	 * simultáneas. Si no se define se usa el tamaño del pool de conexiones.
+	 */
+	public static final String MAX_CONCURRENCIA = "hogwarts.async.max_concurrencia";
+
+	/**
+	 * Ejecutor de hilos virtuales, o null si la máquina virtual no los admite.
+	 */
+	private static final ExecutorService EJECUTOR_VIRTUAL = crearEjecutorVirtual();
+
+	/**
+	 * Semáforo que limita las operaciones simultáneas en los hilos virtuales,
+	 * creado la primera vez que se usa para poder leer la configuración de
+	 * Hibernate.
+	 */
+	private static volatile Semaphore permisos;
+
+	/**
+	 * Grupo fijo de hilos de plataforma que se usa si no hay hilos virtuales,
+	 * creado la primera vez que se usa.
+	 */
+	private static volatile ExecutorService ejecutorPlataforma;
+
+	/**
+	 * Constructor privado: clase de utilidad con métodos estáticos.
+	 */
+	private EjecutorAsincrono() {
+	}
+
+	/**
+	 * Ejecuta una operación bloqueante de forma asíncrona. En un hilo virtual la
+	 * operación espera un permiso del semáforo antes de empezar y lo devuelve al
+	 * terminar; en el grupo de hilos de plataforma espera en la cola del grupo.
+	 * 
+	 * @param <R>       El tipo del resultado de la operación.
+	 * @param operacion La operación a ejecutar.
+	 * @return Un futuro que se completa con el resultado de la operación o con la
+	 *         excepción que haya lanzado.
+	 */
+	public static <R> CompletableFuture<R> ejecutar(Supplier<R> operacion) {
+		if (EJECUTOR_VIRTUAL == null) {
+			return CompletableFuture.supplyAsync(operacion, getEjecutorPlataforma());
+		}
+		Semaphore semaforo = getPermisos();
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				semaforo.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CompletionException(e);
+			}
+			try {
+				return operacion.get();
+			} finally {
+				semaforo.release();
+			}
+		}, EJECUTOR_VIRTUAL);
+	}
+
+	/**
+	 * Ejecuta de forma asíncrona una operación bloqueante que no devuelve
+	 * resultado.
+	 * 
+	 * @param operacion La operación a ejecutar.
+	 * @return Un futuro que se completa al terminar la operación.
+	 * @see #ejecutar(Supplier)
+	 */
+	public static CompletableFuture<Void> ejecutar(Runnable operacion) {
+		return ejecutar(() -> {
+			operacion.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Indica si las operaciones se ejecutan en hilos virtuales.
+	 * 
+	 * @return true si se usan hilos virtuales.
+	 */
+	public static boolean usaHilosVirtuales() {
+		return EJECUTOR_VIRTUAL != null;
+	}
+
+	/**
+	 * Obtiene el semáforo de operaciones simultáneas, creándolo si es necesario.
+	 * 
+	 * @return El semáforo.
+	 */
+	private static Semaphore getPermisos() {
+		if (permisos == null) {
+			synchronized (EjecutorAsincrono.class) {
+				if (permisos == null) {
+					permisos = new Semaphore(getMaxConcurrencia(), true);
+				}
+			}
+		}
+		return permisos;
+	}
+
+	/**
+	 * Obtiene el grupo fijo de hilos de plataforma, creándolo si es necesario.
+	 * 
+	 * @return El ejecutor de hilos de plataforma.
+	 */
+	private static ExecutorService getEjecutorPlataforma() {
+		if (ejecutorPlataforma == null) {
+			synchronized (EjecutorAsincrono.class) {
+				if (ejecutorPlataforma == null) {
+					ejecutorPlataforma = crearEjecutorPlataforma(getMaxConcurrencia());
+				}
+			}
+		}
+		return ejecutorPlataforma;
+	}
+
+	/**
+	 * Obtiene el número máximo de operaciones simultáneas configurado.
+	 * 
+	 * @return El valor de {@value #MAX_CONCURRENCIA} o, si no se define, el tamaño
+	 *         máximo del pool de conexiones.
+	 */
+	private static int getMaxConcurrencia() {
+		int pool = HibernateUtil.getPropiedadEntera("hibernate.hikari.maximumPoolSize", 10);
+		return HibernateUtil.getPropiedadEntera(MAX_CONCURRENCIA, pool);
+	}
+
+	/**
+	 * Crea un ejecutor que lanza un hilo virtual por tarea. Se obtiene por
+	 * reflexión para que el proyecto siga compilando con versiones de Java que no
+	 * tienen hilos virtuales.
+	 * 
+	 * @return El ejecutor de hilos virtuales, o null si no están disponibles.
+	 */
+	private static ExecutorService crearEjecutorVirtual() {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Crea un grupo fijo de hilos de plataforma en segundo plano. Las tareas que
+	 * llegan con todos los hilos ocupados esperan en su cola.
+	 * 
+	 * @param hilos El número de hilos del grupo.
+	 * @return El ejecutor de hilos de plataforma.
+	 */
+	private static ExecutorService crearEjecutorPlataforma(int hilos) {
+		AtomicInteger contador = new AtomicInteger();
+		return Executors.newFixedThreadPool(hilos, tarea -> {
+			Thread hilo = new Thread(tarea, "dao-async-" + contador.incrementAndGet());
+			hilo.setDaemon(true);
+			return hilo;
+		});
+	}
+}
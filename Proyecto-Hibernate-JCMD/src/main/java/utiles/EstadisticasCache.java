@@ -0,0 +1,87 @@
+package utiles;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Utilidad para consultar los aciertos y fallos de cada región de la caché de
+ * segundo nivel. Los datos proceden de las estadísticas de Hibernate, que se
+ * activan con la propiedad hibernate.generate_statistics, y sirven para
+ * dimensionar las regiones configuradas en ehcache.xml.
+ */
+public class EstadisticasCache {
+
+	/**
+	 * Logger de las estadísticas de caché.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(EstadisticasCache.class);
+
+	/**
+	 * Constructor privado: clase de utilidad con métodos estáticos.
+	 */
+	private EstadisticasCache() {
+	}
+
+	/**
+	 * Obtiene la proporción de aciertos de una región, entre 0 y 1.
+	 * 
+	 * @param region El nombre de la región.
+	 * @return La proporción de aciertos, o 0 si la región aún no se ha consultado.
+	 */
+	public static double getRatioAciertos(String region) {
+		CacheRegionStatistics estadisticas = getEstadisticas().getCacheRegionStatistics(region);
+		return ratio(estadisticas.getHitCount(), estadisticas.getMissCount());
+	}
+
+	/**
+	 * Genera un informe con los aciertos, fallos e inserciones de cada región de
+	 * la caché de segundo nivel.
+	 * 
+	 * @return El informe, con una línea por región.
+	 */
+	public static String getInforme() {
+		Statistics estadisticas = getEstadisticas();
+		StringBuilder informe = new StringBuilder();
+		informe.append(String.format("Caché de segundo nivel: %d aciertos, %d fallos (%.1f%%)%n",
+				estadisticas.getSecondLevelCacheHitCount(), estadisticas.getSecondLevelCacheMissCount(),
+				100 * ratio(estadisticas.getSecondLevelCacheHitCount(),
+						estadisticas.getSecondLevelCacheMissCount())));
+		for (String region : estadisticas.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics datos = estadisticas.getCacheRegionStatistics(region);
+			informe.append(String.format("  %-28s aciertos=%d fallos=%d (%.1f%%) inserciones=%d%n",
+					region, datos.getHitCount(), datos.getMissCount(),
+					100 * ratio(datos.getHitCount(), datos.getMissCount()), datos.getPutCount()));
+		}
+		return informe.toString();
+	}
+
+	/**
+	 * Escribe en el log el informe de todas las regiones.
+	 */
+	public static void registrarInforme() {
+		LOGGER.info("Estadísticas de caché{}{}", System.lineSeparator(), getInforme());
+	}
+
+	/**
+	 * Obtiene las estadísticas de la fábrica de sesiones.
+	 * 
+	 * @return Las estadísticas de Hibernate.
+	 */
+	private static Statistics getEstadisticas() {
+		return HibernateUtil.getFactoriaSession().getStatistics();
+	}
+
+	/**
+	 * Calcula la proporción de aciertos.
+	 * 
+	 * @param aciertos Número de aciertos.
+	 * @param fallos   Número de fallos.
+	 * @return La proporción de aciertos, o 0 si no hay accesos.
+	 */
+	private static double ratio(long aciertos, long fallos) {
+		long total = aciertos + fallos;
+		return total == 0 ? 0 : (double) aciertos / total;
+	}
+}
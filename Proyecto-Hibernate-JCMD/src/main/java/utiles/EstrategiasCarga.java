@@ -0,0 +1,93 @@
+package utiles;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.boot.Metadata;
+import org.hibernate.mapping.Collection;
+
+/**
+ * Ajuste por configuración de la estrategia con que se cargan las colecciones
+ * perezosas. Por defecto todas se cargan por lotes del tamaño de la propiedad
+ * global hibernate.default_batch_fetch_size, salvo las anotadas con
+ * {@link org.hibernate.annotations.Fetch} en la entidad. Cada colección se puede
+ * ajustar sin recompilar con una propiedad {@value #PREFIJO} seguida de su rol
+ * (la clase de la entidad y el nombre del atributo), cuyo valor es
+ * {@value #SUBSELECT} o el tamaño del lote. Por ejemplo:
+ *
+ * <pre>
+ * hogwarts.carga.modelo.Estudiante.cursos=subselect
+ * hogwarts.carga.modelo.EventoMagico.estudiantes=64
+ * </pre>
+ *
+ * Los ajustes se aplican a los metadatos antes de crear la fábrica de sesiones.
+ */
+public class EstrategiasCarga {
+
+	/**
+	 * Prefijo de las propiedades de configuración de cada colección.
+	 */
+	public static final String PREFIJO = "hogwarts.carga.";
+
+	/**
+	 * Valor que activa la carga por subconsulta: al inicializar la colección de
+	 * una entidad se cargan las de todas las entidades de la misma consulta.
+	 */
+	public static final String SUBSELECT = "subselect";
+
+	/**
+	 * Logger de las estrategias de carga.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(EstrategiasCarga.class);
+
+	/**
+	 * Constructor privado: clase de utilidad con métodos estáticos.
+	 */
+	private EstrategiasCarga() {
+	}
+
+	/**
+	 * Aplica a los metadatos la estrategia de carga configurada para cada
+	 * colección.
+	 *
+	 * @param metadatos Los metadatos, aún sin fábrica de sesiones.
+	 * @param ajustes   La configuración de Hibernate.
+	 * @return El número de colecciones ajustadas.
+	 * @throws IllegalArgumentException Si una propiedad nombra una colección que no
+	 *                                  existe o tiene un valor no válido.
+	 */
+	public static int aplicar(Metadata metadatos, Map<String, Object> ajustes) {
+		int ajustadas = 0;
+		for (Map.Entry<String, Object> ajuste : ajustes.entrySet()) {
+			String propiedad = ajuste.getKey();
+			if (!propiedad.startsWith(PREFIJO) || ajuste.getValue() == null) {
+				continue;
+			}
+			String rol = propiedad.substring(PREFIJO.length());
+			Collection coleccion = metadatos.getCollectionBinding(rol);
+			if (coleccion == null) {
+				throw new IllegalArgumentException("La propiedad " + propiedad + " no corresponde a ninguna colección");
+			}
+			String valor = ajuste.getValue().toString().trim().toLowerCase(Locale.ROOT);
+			if (SUBSELECT.equals(valor)) {
+				coleccion.setSubselectLoadable(true);
+				coleccion.getOwner().setSubselectLoadableCollections(true);
+			} else {
+				int tamano;
+				try {
+					tamano = Integer.parseInt(valor);
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("La propiedad " + propiedad + " debe ser " + SUBSELECT
+							+ " o un tamaño de lote: " + valor, e);
+				}
+				coleccion.setSubselectLoadable(false);
+				coleccion.setBatchSize(tamano);
+			}
+			LOGGER.info("Carga de {}: {}", rol, valor);
+			ajustadas++;
+		}
+		return ajustadas;
+	}
+}
@@ -0,0 +1,951 @@
+package utiles;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Generador de datos sintéticos de Hogwarts a gran escala. A partir del número
+ * de estudiantes calcula el del resto de entidades en proporciones fijas (un
+ * profesor por cada {@value #ESTUDIANTES_POR_PROFESOR} estudiantes, dos cursos
+ * por profesor, un evento por cada {@value #ESTUDIANTES_POR_EVENTO} estudiantes y
+ * una criatura por cada {@value #ESTUDIANTES_POR_CRIATURA}) y rellena también las
+ * tablas de las relaciones de muchos a muchos: cada estudiante se matricula en
+ * entre 3 y 7 cursos y a cada evento asisten unos 45 estudiantes de media, con
+ * una distribución exponencial, y entre 0 y 3 criaturas.
+ *
+ * Los datos son deterministas: cada bloque de {@value #BLOQUE} filas usa su
+ * propio generador de números aleatorios derivado de la semilla, la tabla y el
+ * número de bloque, de modo que el resultado no depende del número de hilos ni
+ * del orden en que terminan. Los identificadores se reservan de una vez en la
+ * tabla generador_ids, igual que los reserva Hibernate, así que sobre una base
+ * de datos vacía la misma semilla produce siempre las mismas filas, y sobre una
+ * con datos los nuevos no chocan con los que inserte la aplicación. Como los
+ * nombres de las casas y de los cursos son únicos, las casas que ya existen se
+ * reutilizan y los cursos se numeran a partir de su identificador reservado, de
+ * modo que el generador puede ejecutarse varias veces sobre la misma base de
+ * datos.
+ *
+ * Para cargar lo más rápido posible las filas se insertan con sentencias JDBC
+ * por lotes, sin pasar por el contexto de persistencia, y cada bloque se
+ * confirma en su propia transacción en uno de los {@link #getHilos()} hilos.
+ */
+public class GeneradorDatos {
+
+	/**
+	 * Estudiantes por cada profesor.
+	 */
+	public static final int ESTUDIANTES_POR_PROFESOR = 400;
+
+	/**
+	 * Estudiantes por cada evento mágico.
+	 */
+	public static final int ESTUDIANTES_POR_EVENTO = 200;
+
+	/**
+	 * Estudiantes por cada criatura mágica.
+	 */
+	public static final int ESTUDIANTES_POR_CRIATURA = 2000;
+
+	/**
+	 * Filas de la entidad principal de cada bloque, que se genera y confirma como
+	 * una unidad.
+	 */
+	public static final int BLOQUE = 10_000;
+
+	/**
+	 * Logger del generador de datos.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(GeneradorDatos.class);
+
+	/**
+	 * Nombres de las casas mágicas.
+	 */
+	private static final String[] CASAS = { "Gryffindor", "Hufflepuff", "Ravenclaw", "Slytherin" };
+
+	/**
+	 * Lemas de las casas mágicas, en el mismo orden.
+	 */
+	private static final String[] LEMAS = { "Valor y osadia", "Lealtad y trabajo", "Ingenio y sabiduria",
+			"Astucia y ambicion" };
+
+	/**
+	 * Nombres de pila de estudiantes y profesores.
+	 */
+	private static final String[] NOMBRES = { "Harry", "Hermione", "Ron", "Ginny", "Neville", "Luna", "Draco",
+			"Cedric", "Cho", "Seamus", "Dean", "Lavender", "Parvati", "Padma", "Fred", "George", "Percy", "Katie",
+			"Oliver", "Hannah", "Ernie", "Justin", "Susan", "Terry", "Michael", "Anthony", "Pansy", "Vincent",
+			"Gregory", "Blaise", "Theodore", "Millicent", "Romilda", "Cormac", "Dennis", "Colin" };
+
+	/**
+	 * Apellidos de estudiantes y profesores.
+	 */
+	private static final String[] APELLIDOS = { "Potter", "Granger", "Weasley", "Longbottom", "Lovegood", "Malfoy",
+			"Diggory", "Chang", "Finnigan", "Thomas", "Brown", "Patil", "Wood", "Abbott", "Macmillan",
+			"Finch-Fletchley", "Bones", "Boot", "Corner", "Goldstein", "Parkinson", "Crabbe", "Goyle", "Zabini",
+			"Nott", "Bulstrode", "Vane", "McLaggen", "Creevey", "Bell", "Spinnet", "Johnson", "Jordan", "Smith" };
+
+	/**
+	 * Maderas de las varitas.
+	 */
+	private static final String[] MADERAS = { "Acebo", "Vid", "Sauce", "Espino", "Tejo", "Roble", "Aliso", "Cerezo",
+			"Nogal", "Abedul", "Fresno", "Alamo" };
+
+	/**
+	 * Núcleos de las varitas.
+	 */
+	private static final String[] NUCLEOS = { "pluma de fenix", "fibra de corazon de dragon", "pelo de unicornio" };
+
+	/**
+	 * Niveles mágicos, de menor a mayor.
+	 */
+	private static final String[] NIVELES = { "Principiante", "Intermedio", "Avanzado" };
+
+	/**
+	 * Asignaturas de los cursos y especialidades de los profesores.
+	 */
+	private static final String[] ASIGNATURAS = { "Pociones", "Encantamientos", "Transformaciones", "Herbologia",
+			"Astronomia", "Historia de la Magia", "Defensa Contra las Artes Oscuras", "Adivinacion", "Runas Antiguas",
+			"Aritmancia", "Cuidado de Criaturas Magicas", "Estudios Muggles", "Vuelo" };
+
+	/**
+	 * Especies de las criaturas mágicas, con su tipo y su hábitat.
+	 */
+	private static final String[][] CRIATURAS = { { "Hipogrifo", "Bestia", "Bosque Prohibido" },
+			{ "Escarbato", "Bestia", "Madrigueras" }, { "Thestral", "Bestia", "Bosque Prohibido" },
+			{ "Elfo domestico", "Ser", "Cocinas" }, { "Centauro", "Espiritu", "Bosque Prohibido" },
+			{ "Sirena", "Ser", "Lago Negro" }, { "Dragon", "Bestia", "Montanas" }, { "Fenix", "Bestia", "Despacho" },
+			{ "Acromantula", "Bestia", "Bosque Prohibido" }, { "Gnomo", "Bestia", "Jardines" },
+			{ "Duendecillo", "Bestia", "Aulas" }, { "Grindylow", "Bestia", "Lago Negro" } };
+
+	/**
+	 * Nombres de los eventos mágicos.
+	 */
+	private static final String[] EVENTOS = { "Partido de Quidditch", "Banquete de bienvenida", "Baile de Navidad",
+			"Torneo de los Tres Magos", "Club de Duelo", "Excursion a Hogsmeade", "Examenes TIMO",
+			"Reunion del Club de las Eminencias", "Clase de Aparicion", "Fiesta de Halloween" };
+
+	/**
+	 * Ubicaciones de los eventos mágicos.
+	 */
+	private static final String[] UBICACIONES = { "Gran Comedor", "Campo de Quidditch", "Sala de los Menesteres",
+			"Hogsmeade", "Torre de Astronomia", "Lago Negro", "Bosque Prohibido", "Mazmorras" };
+
+	/**
+	 * Primer día posible de los eventos.
+	 */
+	public static final LocalDate PRIMERA_FECHA = LocalDate.of(1990, 9, 1);
+
+	/**
+	 * Número de días, desde {@link #PRIMERA_FECHA}, entre los que se reparten los
+	 * eventos.
+	 */
+	public static final int DIAS_EVENTOS = 35 * 365;
+
+	/**
+	 * Semilla de los datos.
+	 */
+	private final long semilla;
+
+	/**
+	 * Número de estudiantes que se generan.
+	 */
+	private final int estudiantes;
+
+	/**
+	 * Número de hilos que insertan en paralelo, o 0 para usar tantos como
+	 * procesadores sin superar el tamaño del pool de conexiones.
+	 */
+	private int hilos;
+
+	/**
+	 * Número de filas de cada lote JDBC.
+	 */
+	private int tamanoLote = 1000;
+
+	/**
+	 * Filas insertadas en cada tabla.
+	 */
+	private final Map<String, LongAdder> filas = new LinkedHashMap<>();
+
+	/**
+	 * Constructor del generador de datos.
+	 *
+	 * @param semilla     La semilla de los datos.
+	 * @param estudiantes El número de estudiantes que se generan.
+	 */
+	public GeneradorDatos(long semilla, int estudiantes) {
+		if (estudiantes < 1) {
+			throw new IllegalArgumentException("El número de estudiantes debe ser positivo");
+		}
+		this.semilla = semilla;
+		this.estudiantes = estudiantes;
+		for (String tabla : new String[] { "casas_magicas", "profesores", "cursos_magicos", "criaturas_magicas",
+				"estudiantes", "estudiantes_cursos", "eventos_magicos", "eventos_estudiantes", "eventos_criaturas" }) {
+			filas.put(tabla, new LongAdder());
+		}
+	}
+
+	/**
+	 * Obtiene la semilla de los datos.
+	 *
+	 * @return La semilla.
+	 */
+	public long getSemilla() {
+		return semilla;
+	}
+
+	/**
+	 * Obtiene el número de estudiantes que se generan.
+	 *
+	 * @return El número de estudiantes.
+	 */
+	public int getEstudiantes() {
+		return estudiantes;
+	}
+
+	/**
+	 * Obtiene el número de hilos que insertan en paralelo.
+	 *
+	 * @return El número de hilos.
+	 */
+	public int getHilos() {
+		if (hilos > 0) {
+			return hilos;
+		}
+		int pool = HibernateUtil.getPropiedadEntera("hibernate.hikari.maximumPoolSize", 10);
+		return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), pool));
+	}
+
+	/**
+	 * Establece el número de hilos que insertan en paralelo. Conviene que no supere
+	 * el tamaño del pool de conexiones.
+	 *
+	 * @param hilos El número de hilos.
+	 */
+	public void setHilos(int hilos) {
+		this.hilos = hilos;
+	}
+
+	/**
+	 * Obtiene el número de filas de cada lote JDBC.
+	 *
+	 * @return El tamaño del lote.
+	 */
+	public int getTamanoLote() {
+		return tamanoLote;
+	}
+
+	/**
+	 * Establece el número de filas de cada lote JDBC.
+	 *
+	 * @param tamanoLote El tamaño del lote.
+	 */
+	public void setTamanoLote(int tamanoLote) {
+		this.tamanoLote = tamanoLote;
+	}
+
+	/**
+	 * Genera e inserta todos los datos. Las tablas se rellenan por fases en el
+	 * orden que exigen las claves ajenas; dentro de cada fase los bloques se
+	 * insertan en paralelo.
+	 *
+	 * @return El número de filas insertadas en cada tabla.
+	 */
+	public Map<String, Long> generar() {
+		SessionFactory factoria = HibernateUtil.getFactoriaSession();
+		int profesores = Math.max(CASAS.length, estudiantes / ESTUDIANTES_POR_PROFESOR);
+		int cursos = 2 * profesores;
+		int criaturas = Math.max(CRIATURAS.length, estudiantes / ESTUDIANTES_POR_CRIATURA);
+		int eventos = Math.max(1, estudiantes / ESTUDIANTES_POR_EVENTO);
+
+		// Reservamos todos los identificadores antes de empezar
+		int[] bases = new int[6];
+		int[] idsCasas = new int[CASAS.length];
+		boolean[] casasNuevas = new boolean[CASAS.length];
+		enTransaccion(factoria, conexion -> {
+			bases[0] = reservar(conexion, "casas_magicas", buscarCasas(conexion, idsCasas, casasNuevas));
+			for (int i = 0, nueva = 0; i < idsCasas.length; i++) {
+				if (casasNuevas[i]) {
+					idsCasas[i] = bases[0] + ++nueva;
+				}
+			}
+			bases[1] = reservar(conexion, "profesores", profesores);
+			bases[2] = reservar(conexion, "cursos_magicos", cursos);
+			bases[3] = reservar(conexion, "criaturas_magicas", criaturas);
+			bases[4] = reservar(conexion, "estudiantes", estudiantes);
+			bases[5] = reservar(conexion, "eventos_magicos", eventos);
+		});
+		Rango rangoCasas = new Rango(idsCasas);
+		Rango rangoProfesores = new Rango(bases[1], profesores);
+		Rango rangoCursos = new Rango(bases[2], cursos);
+		Rango rangoCriaturas = new Rango(bases[3], criaturas);
+		Rango rangoEstudiantes = new Rango(bases[4], estudiantes);
+		Rango rangoEventos = new Rango(bases[5], eventos);
+
+		filas.values().forEach(LongAdder::reset);
+		long inicio = System.currentTimeMillis();
+		ExecutorService ejecutor = Executors.newFixedThreadPool(getHilos());
+		try {
+			ejecutar(ejecutor, factoria, 1, 1, (conexion, bloque) -> insertarCasas(conexion, rangoCasas, casasNuevas));
+			ejecutar(ejecutor, factoria, 2, profesores, (conexion, bloque) -> insertarProfesores(conexion, bloque,
+					rangoProfesores, rangoCasas, casasNuevas));
+			ejecutar(ejecutor, factoria, 3, cursos,
+					(conexion, bloque) -> insertarCursos(conexion, bloque, rangoCursos, rangoProfesores));
+			ejecutar(ejecutor, factoria, 4, criaturas,
+					(conexion, bloque) -> insertarCriaturas(conexion, bloque, rangoCriaturas));
+			ejecutar(ejecutor, factoria, 5, estudiantes, (conexion, bloque) -> insertarEstudiantes(conexion, bloque,
+					rangoEstudiantes, rangoCasas, rangoCursos));
+			ejecutar(ejecutor, factoria, 6, eventos, (conexion, bloque) -> insertarEventos(conexion, bloque,
+					rangoEventos, rangoEstudiantes, rangoCriaturas));
+		} finally {
+			ejecutor.shutdownNow();
+		}
+
+		Map<String, Long> resultado = new LinkedHashMap<>();
+		long total = 0;
+		for (Map.Entry<String, LongAdder> tabla : filas.entrySet()) {
+			resultado.put(tabla.getKey(), tabla.getValue().sum());
+			total += tabla.getValue().sum();
+		}
+		long duracion = Math.max(1, System.currentTimeMillis() - inicio);
+		LOGGER.info("Generadas {} filas en {} ms ({} filas/s) con la semilla {}: {}", total, duracion,
+				total * 1000 / duracion, semilla, resultado);
+		return resultado;
+	}
+
+	/**
+	 * Busca las casas mágicas que ya existen por su nombre.
+	 *
+	 * @param conexion La conexión de la transacción.
+	 * @param ids      Los identificadores de las casas, que se rellenan con los de
+	 *                 las que existen.
+	 * @param nuevas   Se marcan las casas que no existen.
+	 * @return El número de casas que no existen.
+	 * @throws SQLException Si falla la consulta.
+	 */
+	private static int buscarCasas(Connection conexion, int[] ids, boolean[] nuevas) throws SQLException {
+		int faltan = 0;
+		try (PreparedStatement consulta = conexion
+				.prepareStatement("select idCasaMagica from casas_magicas where nombreCasaMagica = ?")) {
+			for (int i = 0; i < CASAS.length; i++) {
+				consulta.setString(1, CASAS[i]);
+				try (ResultSet resultado = consulta.executeQuery()) {
+					if (resultado.next()) {
+						ids[i] = resultado.getInt(1);
+					} else {
+						nuevas[i] = true;
+						faltan++;
+					}
+				}
+			}
+		}
+		if (faltan < CASAS.length) {
+			LOGGER.info("Se reutilizan {} casas que ya existen", CASAS.length - faltan);
+		}
+		return faltan;
+	}
+
+	/**
+	 * Inserta las casas mágicas que aún no existen.
+	 *
+	 * @param conexion La conexión de la transacción.
+	 * @param casas    Los identificadores de las casas.
+	 * @param nuevas   Las casas que no existen.
+	 * @throws SQLException Si falla la inserción.
+	 */
+	private void insertarCasas(Connection conexion, Rango casas, boolean[] nuevas) throws SQLException {
+		SplittableRandom aleatorio = aleatorio(1, 0);
+		try (Insercion casa = new Insercion(conexion, "casas_magicas",
+				"insert into casas_magicas (idCasaMagica, lemaCasaMagica, nombreCasaMagica, puntuacionTotalCasaMagica)"
+						+ " values (?, ?, ?, ?)")) {
+			for (int i = 0; i < casas.cantidad; i++) {
+				// Se consume igualmente para que las casas nuevas no dependan de las demás
+				int puntuacion = aleatorio.nextInt(600);
+				if (!nuevas[i]) {
+					continue;
+				}
+				casa.sentencia.setInt(1, casas.id(i));
+				casa.sentencia.setString(2, LEMAS[i % LEMAS.length]);
+				casa.sentencia.setString(3, CASAS[i % CASAS.length]);
+				casa.sentencia.setInt(4, puntuacion);
+				casa.anadir();
+			}
+		}
+	}
+
+	/**
+	 * Inserta un bloque de profesores. Los primeros son los jefes de cada casa
+	 * nueva; las que ya existían conservan el suyo.
+	 *
+	 * @param conexion   La conexión de la transacción.
+	 * @param bloque     El número de bloque.
+	 * @param profesores Los identificadores de los profesores.
+	 * @param casas      Los identificadores de las casas.
+	 * @param nuevas     Las casas insertadas en esta ejecución.
+	 * @throws SQLException Si falla la inserción.
+	 */
+	private void insertarProfesores(Connection conexion, int bloque, Rango profesores, Rango casas,
+			boolean[] nuevas) throws SQLException {
+		SplittableRandom aleatorio = aleatorio(2, bloque);
+		try (Insercion profesor = new Insercion(conexion, "profesores",
+				"insert into profesores (idProfesor, especialidadProfesor, experienciaProfesor, nivelMagicoProfesor,"
+						+ " nombreProfesor, casa_id, uuidProfesor) values (?, ?, ?, ?, ?, ?, ?)")) {
+			for (int i = desde(bloque); i < hasta(bloque, profesores.cantidad); i++) {
+				int experiencia = 1 + aleatorio.nextInt(50);
+				profesor.sentencia.setInt(1, profesores.id(i));
+				profesor.sentencia.setString(2, ASIGNATURAS[aleatorio.nextInt(ASIGNATURAS.length)]);
+				profesor.sentencia.setInt(3, experiencia);
+				profesor.sentencia.setString(4, experiencia < 10 ? NIVELES[1] : NIVELES[2]);
+				profesor.sentencia.setString(5, nombre(aleatorio));
+				if (i < casas.cantidad && nuevas[i]) {
+					profesor.sentencia.setInt(6, casas.id(i));
+				} else {
+					profesor.sentencia.setNull(6, Types.INTEGER);
+				}
+				profesor.sentencia.setString(7, uuid(profesores.id(i)));
+				profesor.anadir();
+			}
+		}
+	}
+
+	/**
+	 * Inserta un bloque de cursos. Cada profesor imparte dos cursos. Los cursos se
+	 * numeran por asignatura a partir de su identificador, que no se repite entre
+	 * ejecuciones, para que sus nombres tampoco lo hagan.
+	 *
+	 * @param conexion   La conexión de la transacción.
+	 * @param bloque     El número de bloque.
+	 * @param cursos     Los identificadores de los cursos.
+	 * @param profesores Los identificadores de los profesores.
+	 * @throws SQLException Si falla la inserción.
+	 */
+	private void insertarCursos(Connection conexion, int bloque, Rango cursos, Rango profesores)
+			throws SQLException {
+		SplittableRandom aleatorio = aleatorio(3, bloque);
+		try (Insercion curso = new Insercion(conexion, "cursos_magicos",
+				"insert into cursos_magicos (idCursoMagico, duracionCursoMagico, nivelCursoMagico, nombreCursoMagico,"
+						+ " profesor_id) values (?, ?, ?, ?, ?)")) {
+			for (int i = desde(bloque); i < hasta(bloque, cursos.cantidad); i++) {
+				int posicion = cursos.id(i) - 1;
+				curso.sentencia.setInt(1, cursos.id(i));
+				curso.sentencia.setInt(2, 1 + aleatorio.nextInt(7));
+				curso.sentencia.setString(3, NIVELES[aleatorio.nextInt(NIVELES.length)]);
+				curso.sentencia.setString(4,
+						ASIGNATURAS[posicion % ASIGNATURAS.length] + " " + (posicion / ASIGNATURAS.length + 1));
+				curso.sentencia.setInt(5, profesores.id(i / 2));
+				curso.anadir();
+			}
+		}
+	}
+
+	/**
+	 * Inserta un bloque de criaturas.
+	 *
+	 * @param conexion  La conexión de la transacción.
+	 * @param bloque    El número de bloque.
+	 * @param criaturas Los identificadores de las criaturas.
+	 * @throws SQLException Si falla la inserción.
+	 */
+	private void insertarCriaturas(Connection conexion, int bloque, Rango criaturas) throws SQLException {
+		SplittableRandom aleatorio = aleatorio(4, bloque);
+		try (Insercion criatura = new Insercion(conexion, "criaturas_magicas",
+				"insert into criaturas_magicas (idCriaturaMagica, descripcionCriaturaMagica, habitatCriaturaMagica,"
+						+ " nombreCriaturaMagica, tipoCriaturaMagica, uuidCriaturaMagica)"
+						+ " values (?, ?, ?, ?, ?, ?)")) {
+			for (int i = desde(bloque); i < hasta(bloque, criaturas.cantidad); i++) {
+				String[] especie = CRIATURAS[aleatorio.nextInt(CRIATURAS.length)];
+				criatura.sentencia.setInt(1, criaturas.id(i));
+				criatura.sentencia.setString(2,
+						especie[0] + " de " + (1 + aleatorio.nextInt(300)) + " anos vista en " + especie[2]);
+				criatura.sentencia.setString(3, especie[2]);
+				criatura.sentencia.setString(4, especie[0] + " " + (i + 1));
+				criatura.sentencia.setString(5, especie[1]);
+				criatura.sentencia.setString(6, uuid(criaturas.id(i)));
+				criatura.anadir();
+			}
+		}
+	}
+
+	/**
+	 * Inserta un bloque de estudiantes y sus matrículas en los cursos.
+	 *
+	 * @param conexion    La conexión de la transacción.
+	 * @param bloque      El número de bloque.
+	 * @param estudiantes Los identificadores de los estudiantes.
+	 * @param casas       Los identificadores de las casas.
+	 * @param cursos      Los identificadores de los cursos.
+	 * @throws SQLException Si falla la inserción.
+	 */
+	private void insertarEstudiantes(Connection conexion, int bloque, Rango estudiantes, Rango casas, Rango cursos)
+			throws SQLException {
+		SplittableRandom aleatorio = aleatorio(5, bloque);
+		try (Insercion estudiante = new Insercion(conexion, "estudiantes",
+				"insert into estudiantes (idEstudiante, edadEstudiante, nivelMagicoEstudiante, nombreEstudiante,"
+						+ " varitaEstudiante, casa_id, uuidEstudiante) values (?, ?, ?, ?, ?, ?, ?)");
+				Insercion matricula = new Insercion(conexion, "estudiantes_cursos",
+						"insert into estudiantes_cursos (curso_id, estudiante_id) values (?, ?)", estudiante)) {
+			int[] elegidos = new int[7];
+			for (int i = desde(bloque); i < hasta(bloque, estudiantes.cantidad); i++) {
+				int edad = 11 + aleatorio.nextInt(7);
+				// El nivel crece con la edad, con algún estudiante adelantado o rezagado
+				int nivel = Math.max(0, Math.min(2, (edad - 11) / 3 + aleatorio.nextInt(3) - 1));
+				estudiante.sentencia.setInt(1, estudiantes.id(i));
+				estudiante.sentencia.setInt(2, edad);
+				estudiante.sentencia.setString(3, NIVELES[nivel]);
+				estudiante.sentencia.setString(4, nombre(aleatorio));
+				estudiante.sentencia.setString(5, MADERAS[aleatorio.nextInt(MADERAS.length)] + " y "
+						+ NUCLEOS[aleatorio.nextInt(NUCLEOS.length)]);
+				estudiante.sentencia.setInt(6, casas.id(aleatorio.nextInt(casas.cantidad)));
+				estudiante.sentencia.setString(7, uuid(estudiantes.id(i)));
+				estudiante.anadir();
+
+				int numero = elegir(aleatorio, 3 + aleatorio.nextInt(5), cursos.cantidad, elegidos);
+				for (int j = 0; j < numero; j++) {
+					matricula.sentencia.setInt(1, cursos.id(elegidos[j]));
+					matricula.sentencia.setInt(2, estudiantes.id(i));
+					matricula.anadir();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inserta un bloque de eventos con sus asistentes y sus criaturas.
+	 *
+	 * @param conexion    La conexión de la transacción.
+	 * @param bloque      El número de bloque.
+	 * @param eventos     Los identificadores de los eventos.
+	 * @param estudiantes Los identificadores de los estudiantes.
+	 * @param criaturas   Los identificadores de las criaturas.
+	 * @throws SQLException Si falla la inserción.
+	 */
+	private void insertarEventos(Connection conexion, int bloque, Rango eventos, Rango estudiantes,
+			Rango criaturas) throws SQLException {
+		SplittableRandom aleatorio = aleatorio(6, bloque);
+		try (Insercion evento = new Insercion(conexion, "eventos_magicos",
+				"insert into eventos_magicos (idEventoMagico, descripcionEventoMagico, diaEventoMagico,"
+						+ " fechaEventoMagico, nombreEventoMagico, ubicacionEventoMagico, uuidEventoMagico)"
+						+ " values (?, ?, ?, ?, ?, ?, ?)");
+				Insercion asistente = new Insercion(conexion, "eventos_estudiantes",
+						"insert into eventos_estudiantes (id_evento_magico, id_estudiante) values (?, ?)", evento);
+				Insercion participante = new Insercion(conexion, "eventos_criaturas",
+						"insert into eventos_criaturas (id_evento_magico, id_criatura_magica) values (?, ?)",
+						evento)) {
+			int[] elegidos = new int[Math.min(estudiantes.cantidad, 1000)];
+			for (int i = desde(bloque); i < hasta(bloque, eventos.cantidad); i++) {
+				String nombre = EVENTOS[aleatorio.nextInt(EVENTOS.length)];
+				String ubicacion = UBICACIONES[aleatorio.nextInt(UBICACIONES.length)];
+				evento.sentencia.setInt(1, eventos.id(i));
+				evento.sentencia.setString(2, nombre + " en " + ubicacion);
+				LocalDate fecha = PRIMERA_FECHA.plusDays(aleatorio.nextInt(DIAS_EVENTOS));
+				evento.sentencia.setObject(3, fecha);
+				evento.sentencia.setString(4, fecha.toString());
+				evento.sentencia.setString(5, nombre);
+				evento.sentencia.setString(6, ubicacion);
+				evento.sentencia.setString(7, uuid(eventos.id(i)));
+				evento.anadir();
+
+				// Asistencia exponencial: la mayoría de eventos son pequeños y unos pocos
+				// reúnen a cientos de estudiantes
+				int deseados = 5 + (int) (-Math.log(1 - aleatorio.nextDouble()) * 40);
+				int numero = elegir(aleatorio, deseados, estudiantes.cantidad, elegidos);
+				for (int j = 0; j < numero; j++) {
+					asistente.sentencia.setInt(1, eventos.id(i));
+					asistente.sentencia.setInt(2, estudiantes.id(elegidos[j]));
+					asistente.anadir();
+				}
+				numero = elegir(aleatorio, aleatorio.nextInt(4), criaturas.cantidad, elegidos);
+				for (int j = 0; j < numero; j++) {
+					participante.sentencia.setInt(1, eventos.id(i));
+					participante.sentencia.setInt(2, criaturas.id(elegidos[j]));
+					participante.anadir();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calcula la clave de negocio de una fila. Se deriva de la semilla y del
+	 * identificador, que no se repite entre ejecuciones, sin consumir números
+	 * aleatorios, de modo que el resto de los datos de cada semilla no cambia.
+	 *
+	 * @param id El identificador de la fila.
+	 * @return El UUID de la fila.
+	 */
+	private String uuid(int id) {
+		return new UUID(semilla, id).toString();
+	}
+
+	/**
+	 * Reparte los bloques de una fase entre los hilos y espera a que terminen.
+	 *
+	 * @param ejecutor El ejecutor de los hilos.
+	 * @param factoria La fábrica de sesiones.
+	 * @param fase     El número de la fase, para el registro.
+	 * @param filas    El número de filas de la entidad principal de la fase.
+	 * @param tarea    La inserción de un bloque.
+	 */
+	private void ejecutar(ExecutorService ejecutor, SessionFactory factoria, int fase, int filas, TareaBloque tarea) {
+		long inicio = System.currentTimeMillis();
+		List<Future<Void>> pendientes = new ArrayList<>();
+		int bloques = (filas + BLOQUE - 1) / BLOQUE;
+		for (int bloque = 0; bloque < bloques; bloque++) {
+			int numero = bloque;
+			Callable<Void> trabajo = () -> {
+				enTransaccion(factoria, conexion -> tarea.insertar(conexion, numero));
+				return null;
+			};
+			pendientes.add(ejecutor.submit(trabajo));
+		}
+		try {
+			for (Future<Void> pendiente : pendientes) {
+				pendiente.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Generación de datos interrumpida", e);
+		} catch (ExecutionException e) {
+			pendientes.forEach(pendiente -> pendiente.cancel(true));
+			throw new IllegalStateException("Falló la fase " + fase + " de la generación de datos", e.getCause());
+		}
+		LOGGER.info("Fase {} de la generación: {} filas en {} bloques en {} ms", fase, filas, bloques,
+				System.currentTimeMillis() - inicio);
+	}
+
+	/**
+	 * Ejecuta un trabajo JDBC en una transacción con una conexión del pool.
+	 *
+	 * @param factoria La fábrica de sesiones.
+	 * @param trabajo  El trabajo.
+	 */
+	private static void enTransaccion(SessionFactory factoria, TrabajoJdbc trabajo) {
+		try (Session sesion = factoria.openSession()) {
+			sesion.doWork(conexion -> {
+				boolean autoCommit = conexion.getAutoCommit();
+				conexion.setAutoCommit(false);
+				try {
+					trabajo.ejecutar(conexion);
+					conexion.commit();
+				} catch (SQLException | RuntimeException e) {
+					conexion.rollback();
+					throw e;
+				} finally {
+					conexion.setAutoCommit(autoCommit);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Reserva un rango de identificadores en la tabla generador_ids. Hibernate
+	 * guarda en ella el último identificador reservado, así que el rango empieza en
+	 * el siguiente.
+	 *
+	 * @param conexion La conexión de la transacción.
+	 * @param entidad  La entidad del generador.
+	 * @param cantidad El número de identificadores.
+	 * @return El identificador anterior al primero del rango.
+	 * @throws SQLException Si falla la reserva.
+	 */
+	private static int reservar(Connection conexion, String entidad, int cantidad) throws SQLException {
+		long ultimo;
+		try (PreparedStatement consulta = conexion
+				.prepareStatement("select siguiente_id from generador_ids where entidad = ? for update")) {
+			consulta.setString(1, entidad);
+			try (ResultSet resultado = consulta.executeQuery()) {
+				if (!resultado.next()) {
+					throw new IllegalStateException("No existe el generador de identificadores de " + entidad);
+				}
+				ultimo = resultado.getLong(1);
+			}
+		}
+		if (ultimo + cantidad > Integer.MAX_VALUE) {
+			throw new IllegalStateException("No caben " + cantidad + " identificadores más en " + entidad);
+		}
+		try (PreparedStatement actualizacion = conexion
+				.prepareStatement("update generador_ids set siguiente_id = ? where entidad = ?")) {
+			actualizacion.setLong(1, ultimo + cantidad);
+			actualizacion.setString(2, entidad);
+			actualizacion.executeUpdate();
+		}
+		return (int) ultimo;
+	}
+
+	/**
+	 * Crea el generador de números aleatorios de un bloque de una tabla,
+	 * independiente del de los demás bloques.
+	 *
+	 * @param tabla  El número de la tabla.
+	 * @param bloque El número de bloque.
+	 * @return El generador.
+	 */
+	private SplittableRandom aleatorio(int tabla, int bloque) {
+		// Mezclamos los tres valores para que bloques contiguos no den secuencias
+		// parecidas
+		long valor = semilla ^ (tabla * 0x9E3779B97F4A7C15L) ^ (bloque * 0xC2B2AE3D27D4EB4FL);
+		valor = (valor ^ (valor >>> 30)) * 0xBF58476D1CE4E5B9L;
+		valor = (valor ^ (valor >>> 27)) * 0x94D049BB133111EBL;
+		return new SplittableRandom(valor ^ (valor >>> 31));
+	}
+
+	/**
+	 * Elige sin repetir posiciones al azar de un rango.
+	 *
+	 * @param aleatorio El generador de números aleatorios.
+	 * @param deseados  El número de posiciones deseadas.
+	 * @param total     El número de posiciones del rango.
+	 * @param elegidos  El array donde se dejan las posiciones elegidas.
+	 * @return El número de posiciones elegidas, que puede ser menor que el deseado
+	 *         si el rango o el array son más pequeños.
+	 */
+	private static int elegir(SplittableRandom aleatorio, int deseados, int total, int[] elegidos) {
+		int numero = Math.min(deseados, Math.min(total, elegidos.length));
+		int elegidas = 0;
+		while (elegidas < numero) {
+			int candidata = aleatorio.nextInt(total);
+			boolean repetida = false;
+			for (int j = 0; j < elegidas && !repetida; j++) {
+				repetida = elegidos[j] == candidata;
+			}
+			if (!repetida) {
+				elegidos[elegidas++] = candidata;
+			}
+		}
+		return numero;
+	}
+
+	/**
+	 * Compone un nombre completo al azar.
+	 *
+	 * @param aleatorio El generador de números aleatorios.
+	 * @return El nombre.
+	 */
+	private static String nombre(SplittableRandom aleatorio) {
+		return NOMBRES[aleatorio.nextInt(NOMBRES.length)] + " " + APELLIDOS[aleatorio.nextInt(APELLIDOS.length)];
+	}
+
+	/**
+	 * Obtiene la primera fila de un bloque.
+	 *
+	 * @param bloque El número de bloque.
+	 * @return La posición de la primera fila.
+	 */
+	private static int desde(int bloque) {
+		return bloque * BLOQUE;
+	}
+
+	/**
+	 * Obtiene la posición siguiente a la última fila de un bloque.
+	 *
+	 * @param bloque El número de bloque.
+	 * @param total  El número total de filas.
+	 * @return La posición siguiente a la última fila.
+	 */
+	private static int hasta(int bloque, int total) {
+		return (int) Math.min((long) (bloque + 1) * BLOQUE, total);
+	}
+
+	/**
+	 * Identificadores de las filas de una tabla: un rango reservado o, para las
+	 * casas, los de las que ya existían junto a los reservados.
+	 */
+	private static class Rango {
+
+		/**
+		 * Identificador anterior al primero del rango.
+		 */
+		private final int base;
+
+		/**
+		 * Identificadores de cada posición, o null si son consecutivos.
+		 */
+		private final int[] ids;
+
+		/**
+		 * Número de identificadores del rango.
+		 */
+		private final int cantidad;
+
+		/**
+		 * Constructor de un rango de identificadores consecutivos.
+		 *
+		 * @param base     El identificador anterior al primero.
+		 * @param cantidad El número de identificadores.
+		 */
+		Rango(int base, int cantidad) {
+			this.base = base;
+			this.ids = null;
+			this.cantidad = cantidad;
+		}
+
+		/**
+		 * Constructor de un rango con los identificadores indicados.
+		 *
+		 * @param ids Los identificadores de cada posición.
+		 */
+		Rango(int[] ids) {
+			this.base = 0;
+			this.ids = ids;
+			this.cantidad = ids.length;
+		}
+
+		/**
+		 * Obtiene el identificador de una posición del rango.
+		 *
+		 * @param posicion La posición, empezando en 0.
+		 * @return El identificador.
+		 */
+		int id(int posicion) {
+			return ids != null ? ids[posicion] : base + 1 + posicion;
+		}
+	}
+
+	/**
+	 * Sentencia INSERT que se envía por lotes y cuenta las filas de su tabla. Las
+	 * de las tablas de relación envían antes el lote de la tabla a la que apuntan,
+	 * para que sus claves ajenas encuentren siempre la fila.
+	 */
+	private class Insercion implements AutoCloseable {
+
+		/**
+		 * La sentencia preparada.
+		 */
+		private final PreparedStatement sentencia;
+
+		/**
+		 * El contador de filas de la tabla.
+		 */
+		private final LongAdder contador;
+
+		/**
+		 * La inserción de la tabla a la que apunta esta, o null.
+		 */
+		private final Insercion padre;
+
+		/**
+		 * Filas añadidas al lote y aún no enviadas.
+		 */
+		private int pendientes;
+
+		/**
+		 * Constructor de la inserción de una tabla sin dependencias.
+		 *
+		 * @param conexion La conexión de la transacción.
+		 * @param tabla    La tabla.
+		 * @param sql      La sentencia INSERT.
+		 * @throws SQLException Si no se puede preparar la sentencia.
+		 */
+		Insercion(Connection conexion, String tabla, String sql) throws SQLException {
+			this(conexion, tabla, sql, null);
+		}
+
+		/**
+		 * Constructor de la inserción de una tabla que apunta a otra.
+		 *
+		 * @param conexion La conexión de la transacción.
+		 * @param tabla    La tabla.
+		 * @param sql      La sentencia INSERT.
+		 * @param padre    La inserción de la tabla a la que apunta, o null.
+		 * @throws SQLException Si no se puede preparar la sentencia.
+		 */
+		Insercion(Connection conexion, String tabla, String sql, Insercion padre) throws SQLException {
+			this.sentencia = conexion.prepareStatement(sql);
+			this.contador = filas.get(tabla);
+			this.padre = padre;
+		}
+
+		/**
+		 * Añade al lote la fila con los parámetros actuales y lo envía si está lleno.
+		 *
+		 * @throws SQLException Si falla el envío del lote.
+		 */
+		void anadir() throws SQLException {
+			sentencia.addBatch();
+			if (++pendientes == tamanoLote) {
+				enviar();
+			}
+		}
+
+		/**
+		 * Envía las filas pendientes del lote.
+		 *
+		 * @throws SQLException Si falla el envío del lote.
+		 */
+		private void enviar() throws SQLException {
+			if (padre != null) {
+				padre.enviar();
+			}
+			if (pendientes > 0) {
+				sentencia.executeBatch();
+				contador.add(pendientes);
+				pendientes = 0;
+			}
+		}
+
+		/**
+		 * Envía las filas pendientes y cierra la sentencia.
+		 *
+		 * @throws SQLException Si falla el envío del lote.
+		 */
+		@Override
+		public void close() throws SQLException {
+			try {
+				enviar();
+			} finally {
+				sentencia.close();
+			}
+		}
+	}
+
+	/**
+	 * Trabajo JDBC que se ejecuta en una transacción.
+	 */
+	@FunctionalInterface
+	private interface TrabajoJdbc {
+
+		/**
+		 * Ejecuta el trabajo.
+		 *
+		 * @param conexion La conexión de la transacción.
+		 * @throws SQLException Si falla el trabajo.
+		 */
+		void ejecutar(Connection conexion) throws SQLException;
+	}
+
+	/**
+	 * Inserción de un bloque de una fase.
+	 */
+	@FunctionalInterface
+	private interface TareaBloque {
+
+		/**
+		 * Inserta un bloque.
+		 *
+		 * @param conexion La conexión de la transacción.
+		 * @param bloque   El número de bloque.
+		 * @throws SQLException Si falla la inserción.
+		 */
+		void insertar(Connection conexion, int bloque) throws SQLException;
+	}
+}
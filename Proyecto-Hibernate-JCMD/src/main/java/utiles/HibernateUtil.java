@@ -1,57 +1,546 @@
 package utiles;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import jakarta.persistence.metamodel.EntityType;
 
 /**
  * Utilidad para la configuración y gestión de la sesión de Hibernate. Esta
  * clase proporciona un singleton para obtener una instancia de la fábrica de
  * sesiones de Hibernate y cerrar los recursos cuando ya no sean necesarios.
+ * 
+ * La fábrica se crea una sola vez aunque varios hilos la pidan a la vez. La
+ * aplicación debe llamar a {@link #iniciar()} al arrancar para que la primera
+ * petición no pague el coste del arranque; al hacerlo se registra un gancho de
+ * apagado de la JVM que llama a {@link #shutdown()}. El arranque deja en el log
+ * el tiempo de cada fase: registro, metadatos, factoría, esquema y calentamiento.
+ * Si se configura la propiedad {@value CacheArranque#FICHERO}, cada arranque
+ * guarda el entorno de la base de datos con {@link CacheArranque}, que el
+ * siguiente usa si no puede consultar los metadatos JDBC. Las propiedades del
+ * sistema que empiezan por hibernate., jakarta.persistence. o hogwarts.
+ * prevalecen sobre las de hibernate.cfg.xml, lo que permite cambiar la base de
+ * datos o las credenciales sin recompilar.
+ * 
+ * También gestiona la sesión asociada al hilo actual: las operaciones que se
+ * ejecutan con {@link #enSesion(Function)} o {@link #enTransaccion(Function)}
+ * reutilizan la sesión del hilo si existe y, si no, abren una que se cierra
+ * siempre al terminar. Con {@link #abrirUnidadDeTrabajo()} varias operaciones
+ * comparten una misma sesión y conexión. Al usar {@link ThreadLocal} y no
+ * bloquear monitores durante el acceso a la base de datos, el mecanismo es
+ * válido tanto para hilos de plataforma como para hilos virtuales.
  */
 public class HibernateUtil {
 
+	/**
+	 * Logger del arranque y la parada de Hibernate.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(HibernateUtil.class);
+
 	/**
 	 * Registro de servicios de Hibernate. Usado para configurar la sesión.
 	 */
-	private static StandardServiceRegistry registro;
+	private static volatile StandardServiceRegistry registro;
 
 	/**
 	 * Fábrica de sesiones de Hibernate. Usada para crear sesiones de base de datos.
 	 */
-	private static SessionFactory factoriaSession;
+	private static volatile SessionFactory factoriaSession;
+
+	/**
+	 * Propiedad de configuración con el tiempo máximo, en milisegundos, que una
+	 * sesión puede permanecer abierta antes de que el detector de fugas avise.
+	 */
+	public static final String UMBRAL_FUGA_SESION = "hogwarts.sesion.umbral_fuga_ms";
+
+	/**
+	 * Sesión asociada al hilo actual, si hay alguna operación en curso.
+	 */
+	private static final ThreadLocal<Session> sesionActual = new ThreadLocal<>();
+
+	/**
+	 * Detector de sesiones que permanecen abiertas demasiado tiempo.
+	 */
+	private static volatile DetectorFugasSesion detectorFugas;
+
+	/**
+	 * Borrado del esquema pendiente para el cierre, si la acción de esquema
+	 * configurada es create-drop.
+	 */
+	private static DelayedDropAction borradoDiferido;
+
+	/**
+	 * Tareas registradas con {@link #alCerrar(Runnable)}, pendientes del próximo
+	 * cierre.
+	 */
+	private static final Queue<Runnable> tareasCierre = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Indica si se está ejecutando {@link #shutdown()}.
+	 */
+	private static volatile boolean cerrando;
+
+	/**
+	 * Gancho de apagado de la JVM registrado por {@link #iniciar()}.
+	 */
+	private static Thread ganchoApagado;
+
+	/**
+	 * Duración en milisegundos de cada fase del último arranque, en orden.
+	 */
+	private static volatile Map<String, Long> tiemposArranque = Collections.emptyMap();
+
+	/**
+	 * Arranca Hibernate si aún no lo está: crea el registro de servicios, los
+	 * metadatos y la fábrica de sesiones, aplica las migraciones del esquema con
+	 * {@link MigradorEsquema} y calienta el pool y las consultas. Es seguro llamarlo desde varios hilos y
+	 * varias veces; solo el primero realiza el arranque.
+	 */
+	public static synchronized void iniciar() {
+		if (factoriaSession != null) {
+			return;
+		}
+		Map<String, Long> tiempos = new LinkedHashMap<>();
+		long inicio = System.nanoTime();
+		long marca = inicio;
+
+		// Crear y configurar el registro de servicios de Hibernate. La acción de
+		// esquema, si se configura, se aplica aparte para poder medirla.
+		StandardServiceRegistryBuilder constructor = new StandardServiceRegistryBuilder().configure();
+		aplicarPropiedadesSistema(constructor);
+		Map<String, Object> ajustes = new HashMap<>(constructor.getSettings());
+		constructor.applySetting(AvailableSettings.HBM2DDL_AUTO, "none");
+		// El entorno guardado solo se usa si falla la consulta de los metadatos JDBC
+		CacheArranque cache = CacheArranque.crear(constructor);
+		if (cache != null) {
+			cache.aplicar(constructor);
+		}
+		StandardServiceRegistry nuevoRegistro = constructor.build();
+		marca = medir(tiempos, "registro", marca);
+
+		try {
+			// Construir los metadatos a partir de las clases mapeadas.
+			Metadata metadatos = new MetadataSources(nuevoRegistro).getMetadataBuilder().build();
+			EstrategiasCarga.aplicar(metadatos, ajustes);
+			marca = medir(tiempos, "metadatos", marca);
+
+			// Crear la fábrica de sesiones a partir de los metadatos.
+			SessionFactory factoria = metadatos.buildSessionFactory();
+			marca = medir(tiempos, "factoria", marca);
+
+			// Aplicar las migraciones pendientes o comprobar que no falte ninguna. En
+			// modo validar también se contrasta el esquema con las entidades.
+			try {
+				MigradorEsquema.Modo modo = MigradorEsquema.Modo.de(ajustes.get(MigradorEsquema.MODO));
+				MigradorEsquema.ejecutar(factoria, modo);
+				if (modo == MigradorEsquema.Modo.VALIDAR) {
+					ajustes.putIfAbsent(AvailableSettings.HBM2DDL_AUTO, "validate");
+				}
+				SchemaManagementToolCoordinator.process(metadatos, nuevoRegistro, ajustes,
+						accion -> borradoDiferido = accion);
+			} catch (RuntimeException e) {
+				factoria.close();
+				throw e;
+			}
+			marca = medir(tiempos, "esquema", marca);
+
+			calentar(factoria);
+			medir(tiempos, "calentamiento", marca);
+
+			if (cache != null) {
+				cache.guardar(factoria);
+			}
+
+			registro = nuevoRegistro;
+			detectorFugas = new DetectorFugasSesion(getPropiedadEntera(UMBRAL_FUGA_SESION, 30_000));
+			factoriaSession = factoria;
+		} catch (RuntimeException e) {
+			StandardServiceRegistryBuilder.destroy(nuevoRegistro);
+			throw e;
+		}
+
+		tiemposArranque = Collections.unmodifiableMap(tiempos);
+		long total = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+		LOGGER.info("Arranque de Hibernate en {} ms {}", total, tiempos);
+
+		if (ganchoApagado == null) {
+			ganchoApagado = new Thread(HibernateUtil::shutdown, "hibernate-apagado");
+			Runtime.getRuntime().addShutdownHook(ganchoApagado);
+		}
+	}
 
 	/**
 	 * Obtiene la instancia de la fábrica de sesiones de Hibernate. Si aún no ha
-	 * sido creada, la inicializa y la configura.
+	 * sido creada, arranca Hibernate con {@link #iniciar()}.
 	 * 
 	 * @return La instancia de {@link SessionFactory} configurada.
 	 */
 	public static SessionFactory getFactoriaSession() {
-		if (factoriaSession == null) {
-			// Crear y configurar el registro de servicios de Hibernate.
-			registro = new StandardServiceRegistryBuilder().configure().build();
-			// Crear las fuentes de metadatos de Hibernate.
-			MetadataSources sources = new MetadataSources(registro);
-			// Construir los metadatos a partir de las fuentes.
-			Metadata metadatos = sources.getMetadataBuilder().build();
-			// Crear la fábrica de sesiones a partir de los metadatos.
-			factoriaSession = metadatos.buildSessionFactory();
+		SessionFactory factoria = factoriaSession;
+		if (factoria == null) {
+			iniciar();
+			factoria = factoriaSession;
 		}
-		return factoriaSession;
+		return factoria;
+	}
+
+	/**
+	 * Indica si Hibernate está arrancado. A diferencia de
+	 * {@link #getFactoriaSession()}, no lo arranca si no lo está.
+	 * 
+	 * @return true si la fábrica de sesiones está creada, aunque se esté
+	 *         cerrando.
+	 */
+	public static boolean estaArrancado() {
+		return factoriaSession != null;
+	}
+
+	/**
+	 * Indica si se está ejecutando {@link #shutdown()}. Mientras tanto las tareas
+	 * registradas con {@link #alCerrar(Runnable)} aún pueden acceder a la base de
+	 * datos, pero no deben crearse recursos nuevos que dependan de ella.
+	 * 
+	 * @return true si Hibernate se está cerrando.
+	 */
+	public static boolean seEstaCerrando() {
+		return cerrando;
+	}
+
+	/**
+	 * Obtiene la duración de cada fase del último arranque: registro, metadatos,
+	 * factoría, esquema y calentamiento.
+	 * 
+	 * @return Los milisegundos de cada fase en orden, o un mapa vacío si Hibernate
+	 *         no ha arrancado.
+	 */
+	public static Map<String, Long> getTiemposArranque() {
+		return tiemposArranque;
+	}
+
+	/**
+	 * Registra una tarea que se ejecuta una sola vez en el próximo
+	 * {@link #shutdown()}, antes de cerrar la fábrica, de modo que aún puede
+	 * acceder a la base de datos.
+	 * 
+	 * @param tarea La tarea a ejecutar al cerrar.
+	 */
+	public static void alCerrar(Runnable tarea) {
+		tareasCierre.add(tarea);
 	}
 
 	/**
 	 * Cierra la fábrica de sesiones de Hibernate y libera los recursos. Este método
 	 * debe ser llamado cuando ya no se necesiten más sesiones de Hibernate para
-	 * evitar pérdidas de memoria o conexiones abiertas innecesarias.
+	 * evitar pérdidas de memoria o conexiones abiertas innecesarias. Si no se
+	 * llama, lo hace el gancho de apagado al terminar la JVM. Antes de cerrar se
+	 * ejecutan las tareas registradas con {@link #alCerrar(Runnable)}.
 	 */
-	public static void shutdown() {
-		if (registro != null) {
-			// Destruir el registro de servicios de Hibernate.
-			StandardServiceRegistryBuilder.destroy(registro);
+	public static synchronized void shutdown() {
+		SessionFactory factoria = factoriaSession;
+		if (factoria == null) {
+			return;
+		}
+		cerrando = true;
+		// Incluye las tareas que se registren mientras se ejecutan las anteriores
+		for (Runnable tarea = tareasCierre.poll(); tarea != null; tarea = tareasCierre.poll()) {
+			try {
+				tarea.run();
+			} catch (RuntimeException e) {
+				LOGGER.error("Falló una tarea de cierre", e);
+			}
+		}
+		// Dejamos constancia de la eficacia de la caché antes de cerrar
+		EstadisticasCache.registrarInforme();
+		MetricasPool.registrarInforme();
+		MetricasDao.registrarInforme();
+		detectorFugas.detener();
+		// Cerrar la fábrica devuelve las conexiones y vacía las cachés.
+		factoria.close();
+		if (borradoDiferido != null) {
+			borradoDiferido.perform(registro);
+			borradoDiferido = null;
 		}
+		// Destruir el registro de servicios de Hibernate.
+		StandardServiceRegistryBuilder.destroy(registro);
+		factoriaSession = null;
+		detectorFugas = null;
+		registro = null;
+		tiemposArranque = Collections.emptyMap();
+		cerrando = false;
+		if (ganchoApagado != null && Thread.currentThread() != ganchoApagado) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(ganchoApagado);
+			} catch (IllegalStateException e) {
+				// La JVM ya se está apagando
+			}
+		}
+		ganchoApagado = null;
+	}
+
+	/**
+	 * Calienta la fábrica recién creada consultando una fila de cada entidad. Así
+	 * se abren las conexiones mínimas del pool y se compilan las consultas antes
+	 * de la primera petición. Un fallo no impide el arranque.
+	 * 
+	 * @param factoria La fábrica de sesiones.
+	 */
+	private static void calentar(SessionFactory factoria) {
+		try (Session sesion = factoria.openSession()) {
+			// No cargamos la caché de segundo nivel ni alteramos sus estadísticas
+			sesion.setCacheMode(CacheMode.IGNORE);
+			sesion.setDefaultReadOnly(true);
+			for (EntityType<?> entidad : factoria.getMetamodel().getEntities()) {
+				sesion.createQuery("FROM " + entidad.getName(), entidad.getJavaType()).setMaxResults(1)
+						.getResultList();
+			}
+		} catch (RuntimeException e) {
+			LOGGER.warn("No se pudo calentar la fábrica de sesiones", e);
+		}
+	}
+
+	/**
+	 * Aplica sobre la configuración leída de hibernate.cfg.xml las propiedades del
+	 * sistema de Hibernate, de JPA o de la aplicación.
+	 * 
+	 * @param constructor El constructor del registro de servicios, ya configurado.
+	 */
+	private static void aplicarPropiedadesSistema(StandardServiceRegistryBuilder constructor) {
+		Properties sistema = System.getProperties();
+		for (String nombre : sistema.stringPropertyNames()) {
+			if (nombre.startsWith("hibernate.") || nombre.startsWith("jakarta.persistence.")
+					|| nombre.startsWith("hogwarts.")) {
+				constructor.applySetting(nombre, sistema.getProperty(nombre));
+			}
+		}
+	}
+
+	/**
+	 * Registra la duración de una fase del arranque.
+	 * 
+	 * @param tiempos Las duraciones registradas hasta ahora.
+	 * @param fase    El nombre de la fase.
+	 * @param desde   El instante, en nanosegundos, en que empezó la fase.
+	 * @return El instante en que termina la fase.
+	 */
+	private static long medir(Map<String, Long> tiempos, String fase, long desde) {
+		long ahora = System.nanoTime();
+		tiempos.put(fase, TimeUnit.NANOSECONDS.toMillis(ahora - desde));
+		return ahora;
+	}
+
+	/**
+	 * Abre una sesión nueva, no asociada al hilo actual, y la registra en el
+	 * detector de fugas. Debe cerrarse con {@link #cerrarSesion(Session)}.
+	 * 
+	 * @return La sesión abierta.
+	 */
+	public static Session abrirSesion() {
+		Session sesion = getFactoriaSession().openSession();
+		DetectorFugasSesion detector = detectorFugas;
+		if (detector != null) {
+			detector.registrar(sesion);
+		}
+		return sesion;
+	}
+
+	/**
+	 * Cierra una sesión, deshaciendo la transacción que hubiera quedado activa, y
+	 * la elimina del detector de fugas. Se puede llamar después de
+	 * {@link #shutdown()}, que ya no tiene detector.
+	 * 
+	 * @param sesion La sesión a cerrar.
+	 */
+	public static void cerrarSesion(Session sesion) {
+		try {
+			Transaction tx = sesion.getTransaction();
+			if (tx.isActive()) {
+				tx.rollback();
+			}
+		} finally {
+			sesion.close();
+			DetectorFugasSesion detector = detectorFugas;
+			if (detector != null) {
+				detector.liberar(sesion);
+			}
+		}
+	}
+
+	/**
+	 * Obtiene la sesión asociada al hilo actual.
+	 * 
+	 * @return La sesión del hilo actual, o null si no hay ninguna.
+	 */
+	public static Session getSesionActual() {
+		return sesionActual.get();
+	}
+
+	/**
+	 * Asocia una sesión al hilo actual, o elimina la asociación si es null.
+	 * 
+	 * @param sesion La sesión a asociar.
+	 */
+	static void setSesionActual(Session sesion) {
+		if (sesion == null) {
+			sesionActual.remove();
+		} else {
+			sesionActual.set(sesion);
+		}
+	}
+
+	/**
+	 * Abre una unidad de trabajo que asocia una sesión al hilo actual hasta que se
+	 * cierra. Todas las operaciones de los DAOs ejecutadas dentro de ella
+	 * comparten esa sesión y su conexión. Si el hilo ya tiene una unidad de trabajo
+	 * abierta, la nueva se une a ella y su cierre no tiene efecto.
+	 * 
+	 * @return La unidad de trabajo, que debe cerrarse con try-with-resources.
+	 */
+	public static UnidadDeTrabajo abrirUnidadDeTrabajo() {
+		Session actual = sesionActual.get();
+		if (actual != null) {
+			return new UnidadDeTrabajo(actual, false);
+		}
+		Session sesion = abrirSesion();
+		sesionActual.set(sesion);
+		return new UnidadDeTrabajo(sesion, true);
+	}
+
+	/**
+	 * Ejecuta una operación con la sesión del hilo actual. Si no hay ninguna, abre
+	 * una sesión, la asocia al hilo durante la operación y la cierra al terminar.
+	 * 
+	 * @param <R>       El tipo del resultado de la operación.
+	 * @param operacion La operación a ejecutar.
+	 * @return El resultado de la operación.
+	 */
+	public static <R> R enSesion(Function<Session, R> operacion) {
+		Session actual = sesionActual.get();
+		if (actual != null) {
+			return operacion.apply(actual);
+		}
+		Session sesion = abrirSesion();
+		sesionActual.set(sesion);
+		try {
+			return operacion.apply(sesion);
+		} finally {
+			sesionActual.remove();
+			cerrarSesion(sesion);
+		}
+	}
+
+	/**
+	 * Ejecuta una operación dentro de una transacción sobre la sesión del hilo
+	 * actual. Si ya hay una transacción activa la operación se une a ella; si no,
+	 * se inicia una que se confirma al terminar o se deshace si se produce un
+	 * error.
+	 * 
+	 * @param <R>       El tipo del resultado de la operación.
+	 * @param operacion La operación a ejecutar.
+	 * @return El resultado de la operación.
+	 */
+	public static <R> R enTransaccion(Function<Session, R> operacion) {
+		return enSesion(sesion -> {
+			Transaction tx = sesion.getTransaction();
+			if (tx.isActive()) {
+				return operacion.apply(sesion);
+			}
+			// Registramos una transacción
+			tx.begin();
+			try {
+				R resultado = operacion.apply(sesion);
+				tx.commit();
+				return resultado;
+			} catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		});
+	}
+
+	/**
+	 * Ejecuta dentro de una transacción una operación que no devuelve resultado.
+	 * 
+	 * @param operacion La operación a ejecutar.
+	 * @see #enTransaccion(Function)
+	 */
+	public static void enTransaccionSinResultado(Consumer<Session> operacion) {
+		enTransaccion(sesion -> {
+			operacion.accept(sesion);
+			return null;
+		});
+	}
+
+	/**
+	 * Ejecuta una operación en una transacción nueva, sobre una sesión propia que
+	 * no se asocia al hilo actual. A diferencia de
+	 * {@link #enTransaccion(Function)}, nunca se une a la unidad de trabajo ni a
+	 * la transacción del llamante: se confirma al terminar aunque después se
+	 * deshaga la transacción exterior.
+	 * 
+	 * @param operacion La operación a ejecutar.
+	 */
+	public static void enTransaccionNueva(Consumer<Session> operacion) {
+		Session sesion = abrirSesion();
+		try {
+			sesion.beginTransaction();
+			operacion.accept(sesion);
+			sesion.getTransaction().commit();
+		} finally {
+			cerrarSesion(sesion);
+		}
+	}
+
+	/**
+	 * Obtiene el valor entero de una propiedad de la configuración de Hibernate,
+	 * incluidas las propiedades propias de la aplicación declaradas en
+	 * hibernate.cfg.xml.
+	 * 
+	 * @param nombre     El nombre de la propiedad.
+	 * @param porDefecto El valor que se devuelve si la propiedad no está definida.
+	 * @return El valor de la propiedad.
+	 */
+	public static int getPropiedadEntera(String nombre, int porDefecto) {
+		StandardServiceRegistry actual = registro;
+		if (actual == null) {
+			getFactoriaSession();
+			actual = registro;
+		}
+		return actual.getService(ConfigurationService.class).getSetting(nombre, StandardConverters.INTEGER,
+				porDefecto);
+	}
+
+	/**
+	 * Obtiene el detector de fugas de sesiones.
+	 * 
+	 * @return El detector de fugas, o null si la fábrica aún no se ha creado.
+	 */
+	public static DetectorFugasSesion getDetectorFugas() {
+		return detectorFugas;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+package utiles;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma concurrente de latencias con cubetas logarítmico-lineales, al
+ * estilo de HdrHistogram. Cada potencia de dos se divide en 8 cubetas, de modo
+ * que los percentiles se obtienen con un error relativo máximo del 12,5 % en
+ * cualquier rango de valores.
+ *
+ * Registrar un valor solo realiza operaciones atómicas sobre estructuras ya
+ * creadas: no reserva memoria ni bloquea, por lo que puede usarse en el camino
+ * crítico de cada operación.
+ */
+public class Histograma {
+
+	/**
+	 * Número de bits que determinan la cubeta dentro de cada potencia de dos.
+	 */
+	private static final int BITS_SUBCUBETA = 3;
+
+	/**
+	 * Número de cubetas dentro de cada potencia de dos.
+	 */
+	private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+
+	/**
+	 * Número total de cubetas, suficiente para cualquier valor long positivo.
+	 */
+	private static final int CUBETAS = (64 - BITS_SUBCUBETA) * SUBCUBETAS;
+
+	/**
+	 * Número de valores registrados en cada cubeta.
+	 */
+	private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+
+	/**
+	 * Número total de valores registrados.
+	 */
+	private final LongAdder total = new LongAdder();
+
+	/**
+	 * Suma de todos los valores registrados.
+	 */
+	private final LongAdder suma = new LongAdder();
+
+	/**
+	 * Mayor valor registrado.
+	 */
+	private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Registra un valor. Los valores negativos se registran como cero.
+	 *
+	 * @param valor El valor a registrar, normalmente una latencia en
+	 *              nanosegundos.
+	 */
+	public void registrar(long valor) {
+		long v = Math.max(valor, 0);
+		cubetas.incrementAndGet(indice(v));
+		total.increment();
+		suma.add(v);
+		maximo.accumulate(v);
+	}
+
+	/**
+	 * Obtiene el número de valores registrados.
+	 *
+	 * @return El número de valores.
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * Obtiene la media de los valores registrados.
+	 *
+	 * @return La media, o 0 si no hay valores.
+	 */
+	public double getMedia() {
+		long n = total.sum();
+		return n == 0 ? 0 : (double) suma.sum() / n;
+	}
+
+	/**
+	 * Obtiene el mayor valor registrado.
+	 *
+	 * @return El valor máximo.
+	 */
+	public long getMaximo() {
+		return maximo.get();
+	}
+
+	/**
+	 * Obtiene el valor por debajo del cual se encuentra el porcentaje indicado de
+	 * los valores registrados.
+	 *
+	 * @param percentil El percentil, entre 0 y 100 (por ejemplo 99.9).
+	 * @return El límite superior de la cubeta que contiene el percentil, o 0 si no
+	 *         hay valores.
+	 */
+	public long getPercentil(double percentil) {
+		long n = total.sum();
+		if (n == 0) {
+			return 0;
+		}
+		long objetivo = Math.max(1, (long) Math.ceil(n * percentil / 100.0));
+		long acumulado = 0;
+		for (int i = 0; i < CUBETAS; i++) {
+			acumulado += cubetas.get(i);
+			if (acumulado >= objetivo) {
+				return Math.min(limiteSuperior(i), getMaximo());
+			}
+		}
+		return getMaximo();
+	}
+
+	/**
+	 * Vacía el histograma. Los valores registrados mientras se vacía pueden
+	 * conservarse o perderse.
+	 */
+	public void reiniciar() {
+		for (int i = 0; i < CUBETAS; i++) {
+			cubetas.set(i, 0);
+		}
+		total.reset();
+		suma.reset();
+		maximo.reset();
+	}
+
+	/**
+	 * Calcula la cubeta de un valor no negativo.
+	 *
+	 * @param valor El valor.
+	 * @return El índice de su cubeta.
+	 */
+	private static int indice(long valor) {
+		if (valor < SUBCUBETAS) {
+			return (int) valor;
+		}
+		int exponente = 63 - Long.numberOfLeadingZeros(valor);
+		int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+		return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + subcubeta;
+	}
+
+	/**
+	 * Calcula el mayor valor que pertenece a una cubeta.
+	 *
+	 * @param indice El índice de la cubeta.
+	 * @return El límite superior de la cubeta.
+	 */
+	private static long limiteSuperior(int indice) {
+		if (indice < SUBCUBETAS) {
+			return indice;
+		}
+		int exponente = indice / SUBCUBETAS + BITS_SUBCUBETA - 1;
+		long ancho = 1L << (exponente - BITS_SUBCUBETA);
+		long inferior = (SUBCUBETAS + indice % SUBCUBETAS) * ancho;
+		return inferior + ancho - 1;
+	}
+}
@@ -0,0 +1,139 @@
+package utiles;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de una operación de acceso a datos: histograma de latencias,
+ * número de ejecuciones y de errores. Se obtienen con
+ * {@link MetricasDao#operacion(Class, String)}, que además las publica como
+ * MBean.
+ *
+ * Registrar una ejecución no reserva memoria: basta con guardar el instante de
+ * inicio en una variable local y llamar a {@link #registrar(long)} en un bloque
+ * finally, y a {@link #registrarError()} si la operación lanza una excepción.
+ */
+public class MetricaOperacion implements MetricaOperacionMBean {
+
+	/**
+	 * Nombre de la operación, con el formato Dao.metodo.
+	 */
+	private final String nombre;
+
+	/**
+	 * Latencias de las ejecuciones, en nanosegundos.
+	 */
+	private final Histograma latencias = new Histograma();
+
+	/**
+	 * Número de ejecuciones que terminaron con una excepción.
+	 */
+	private final LongAdder errores = new LongAdder();
+
+	/**
+	 * Instante, en nanosegundos, desde el que se cuentan las ejecuciones.
+	 */
+	private volatile long desde = System.nanoTime();
+
+	/**
+	 * Constructor de las métricas de una operación.
+	 *
+	 * @param nombre El nombre de la operación.
+	 */
+	MetricaOperacion(String nombre) {
+		this.nombre = nombre;
+	}
+
+	/**
+	 * Registra una ejecución terminada.
+	 *
+	 * @param inicio El instante de inicio obtenido con {@link System#nanoTime()}.
+	 */
+	public void registrar(long inicio) {
+		latencias.registrar(System.nanoTime() - inicio);
+	}
+
+	/**
+	 * Registra que una ejecución ha terminado con una excepción. La latencia se
+	 * registra aparte con {@link #registrar(long)}.
+	 */
+	public void registrarError() {
+		errores.increment();
+	}
+
+	/**
+	 * Obtiene el nombre de la operación.
+	 *
+	 * @return El nombre, con el formato Dao.metodo.
+	 */
+	public String getNombre() {
+		return nombre;
+	}
+
+	/**
+	 * Obtiene el histograma de latencias, en nanosegundos.
+	 *
+	 * @return El histograma.
+	 */
+	public Histograma getLatencias() {
+		return latencias;
+	}
+
+	@Override
+	public long getOperaciones() {
+		return latencias.getTotal();
+	}
+
+	@Override
+	public long getErrores() {
+		return errores.sum();
+	}
+
+	@Override
+	public double getOperacionesPorSegundo() {
+		long nanos = System.nanoTime() - desde;
+		return nanos <= 0 ? 0 : latencias.getTotal() * 1e9 / nanos;
+	}
+
+	@Override
+	public double getMediaMicros() {
+		return latencias.getMedia() / 1000;
+	}
+
+	@Override
+	public long getP50Micros() {
+		return micros(latencias.getPercentil(50));
+	}
+
+	@Override
+	public long getP99Micros() {
+		return micros(latencias.getPercentil(99));
+	}
+
+	@Override
+	public long getP999Micros() {
+		return micros(latencias.getPercentil(99.9));
+	}
+
+	@Override
+	public long getMaximoMicros() {
+		return micros(latencias.getMaximo());
+	}
+
+	@Override
+	public void reiniciar() {
+		latencias.reiniciar();
+		errores.reset();
+		desde = System.nanoTime();
+	}
+
+	/**
+	 * Convierte nanosegundos en microsegundos.
+	 *
+	 * @param nanos El tiempo en nanosegundos.
+	 * @return El tiempo en microsegundos.
+	 */
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,72 @@
+package utiles;
+
+/**
+ * Interfaz JMX de las métricas de una operación de acceso a datos. Los tiempos
+ * se expresan en microsegundos.
+ *
+ * @see MetricaOperacion
+ */
+public interface MetricaOperacionMBean {
+
+	/**
+	 * Obtiene el número de ejecuciones registradas.
+	 *
+	 * @return El número de ejecuciones.
+	 */
+	long getOperaciones();
+
+	/**
+	 * Obtiene el número de ejecuciones que terminaron con una excepción.
+	 *
+	 * @return El número de errores.
+	 */
+	long getErrores();
+
+	/**
+	 * Obtiene el número medio de ejecuciones por segundo desde la creación o el
+	 * último reinicio de las métricas.
+	 *
+	 * @return Las ejecuciones por segundo.
+	 */
+	double getOperacionesPorSegundo();
+
+	/**
+	 * Obtiene la latencia media.
+	 *
+	 * @return La latencia media en microsegundos.
+	 */
+	double getMediaMicros();
+
+	/**
+	 * Obtiene la mediana de la latencia.
+	 *
+	 * @return El percentil 50 en microsegundos.
+	 */
+	long getP50Micros();
+
+	/**
+	 * Obtiene el percentil 99 de la latencia.
+	 *
+	 * @return El percentil 99 en microsegundos.
+	 */
+	long getP99Micros();
+
+	/**
+	 * Obtiene el percentil 99,9 de la latencia.
+	 *
+	 * @return El percentil 99,9 en microsegundos.
+	 */
+	long getP999Micros();
+
+	/**
+	 * Obtiene la mayor latencia registrada.
+	 *
+	 * @return La latencia máxima en microsegundos.
+	 */
+	long getMaximoMicros();
+
+	/**
+	 * Vacía las métricas y vuelve a empezar a contar.
+	 */
+	void reiniciar();
+}
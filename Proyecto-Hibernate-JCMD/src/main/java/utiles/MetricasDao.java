@@ -0,0 +1,113 @@
+package utiles;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Registro de las métricas de cada método de los DAOs. Cada operación se
+ * publica en el servidor MBean de la plataforma con el nombre
+ * hogwarts:type=Dao,dao=&lt;Dao&gt;,metodo=&lt;método&gt;, de modo que puede
+ * consultarse con JConsole o VisualVM mientras la aplicación se ejecuta.
+ *
+ * Las métricas se crean una sola vez por DAO y método y se guardan en campos de
+ * los DAOs, por lo que medir una llamada no requiere ninguna búsqueda.
+ */
+public class MetricasDao {
+
+	/**
+	 * Logger de las métricas de los DAOs.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(MetricasDao.class);
+
+	/**
+	 * Métricas registradas, indexadas por nombre de operación.
+	 */
+	private static final Map<String, MetricaOperacion> OPERACIONES = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor privado: clase de utilidad con métodos estáticos.
+	 */
+	private MetricasDao() {
+	}
+
+	/**
+	 * Obtiene las métricas de un método de un DAO, creándolas y publicándolas
+	 * como MBean la primera vez.
+	 *
+	 * @param dao    La clase del DAO.
+	 * @param metodo El nombre del método.
+	 * @return Las métricas del método, compartidas por todas las instancias del
+	 *         DAO.
+	 */
+	public static MetricaOperacion operacion(Class<?> dao, String metodo) {
+		String nombre = dao.getSimpleName() + "." + metodo;
+		return OPERACIONES.computeIfAbsent(nombre, clave -> {
+			MetricaOperacion metrica = new MetricaOperacion(clave);
+			publicar(metrica, dao.getSimpleName(), metodo);
+			return metrica;
+		});
+	}
+
+	/**
+	 * Obtiene las métricas de todas las operaciones registradas.
+	 *
+	 * @return Las métricas ordenadas por nombre de operación.
+	 */
+	public static Map<String, MetricaOperacion> getOperaciones() {
+		return new TreeMap<>(OPERACIONES);
+	}
+
+	/**
+	 * Genera un informe con las métricas de las operaciones ejecutadas al menos
+	 * una vez.
+	 *
+	 * @return El informe, con una línea por operación.
+	 */
+	public static String getInforme() {
+		StringBuilder informe = new StringBuilder("Operaciones de los DAOs (µs)");
+		for (MetricaOperacion metrica : getOperaciones().values()) {
+			if (metrica.getOperaciones() == 0) {
+				continue;
+			}
+			informe.append(String.format("%n  %-45s n=%d errores=%d op/s=%.1f p50=%d p99=%d p99.9=%d máx=%d",
+					metrica.getNombre(), metrica.getOperaciones(), metrica.getErrores(),
+					metrica.getOperacionesPorSegundo(), metrica.getP50Micros(), metrica.getP99Micros(),
+					metrica.getP999Micros(), metrica.getMaximoMicros()));
+		}
+		return informe.toString();
+	}
+
+	/**
+	 * Escribe en el log el informe de las operaciones.
+	 */
+	public static void registrarInforme() {
+		LOGGER.info(getInforme());
+	}
+
+	/**
+	 * Publica las métricas de una operación como MBean. Un fallo al publicarlas
+	 * no impide medir.
+	 *
+	 * @param metrica Las métricas.
+	 * @param dao     El nombre del DAO.
+	 * @param metodo  El nombre del método.
+	 */
+	private static void publicar(MetricaOperacion metrica, String dao, String metodo) {
+		try {
+			ObjectName nombre = new ObjectName("hogwarts:type=Dao,dao=" + dao + ",metodo=" + metodo);
+			if (!ManagementFactory.getPlatformMBeanServer().isRegistered(nombre)) {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(metrica, nombre);
+			}
+		} catch (JMException e) {
+			LOGGER.warn("No se pudieron publicar las métricas de {}.{}", dao, metodo, e);
+		}
+	}
+}
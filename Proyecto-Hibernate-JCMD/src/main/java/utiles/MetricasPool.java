@@ -0,0 +1,273 @@
+package utiles;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Métricas del pool de conexiones HikariCP. HikariCP instancia esta clase a
+ * partir de la propiedad hibernate.hikari.metricsTrackerFactory y le notifica
+ * cada conexión obtenida, usada, creada o agotada por tiempo de espera.
+ *
+ * Expone el número de conexiones activas, inactivas y de hilos esperando, junto
+ * con histogramas del tiempo de espera para obtener una conexión y del tiempo
+ * que cada conexión permanece prestada, para dimensionar el pool frente a la
+ * concurrencia real. Los percentiles se publican en el servidor MBean de la
+ * plataforma con el nombre hogwarts:type=Pool,pool=&lt;pool&gt; al crearse el
+ * pool.
+ */
+public class MetricasPool implements MetricsTrackerFactory, MetricasPoolMBean {
+
+	/**
+	 * Logger de las métricas del pool.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(MetricasPool.class);
+
+	/**
+	 * Tiempo de espera para obtener una conexión, en nanosegundos.
+	 */
+	private static final Histograma ADQUISICION = new Histograma();
+
+	/**
+	 * Tiempo que cada conexión permanece prestada, en milisegundos.
+	 */
+	private static final Histograma USO = new Histograma();
+
+	/**
+	 * Tiempo de creación de conexiones físicas, en milisegundos.
+	 */
+	private static final Histograma CREACION = new Histograma();
+
+	/**
+	 * Número de peticiones de conexión que agotaron el tiempo de espera.
+	 */
+	private static final LongAdder AGOTADAS = new LongAdder();
+
+	/**
+	 * Estado del pool, proporcionado por HikariCP al crearlo.
+	 */
+	private static volatile PoolStats estado;
+
+	@Override
+	public IMetricsTracker create(String nombrePool, PoolStats estadoPool) {
+		estado = estadoPool;
+		publicar(nombrePool);
+		return new IMetricsTracker() {
+
+			@Override
+			public void recordConnectionAcquiredNanos(long nanos) {
+				ADQUISICION.registrar(nanos);
+			}
+
+			@Override
+			public void recordConnectionUsageMillis(long milisegundos) {
+				USO.registrar(milisegundos);
+			}
+
+			@Override
+			public void recordConnectionCreatedMillis(long milisegundos) {
+				CREACION.registrar(milisegundos);
+			}
+
+			@Override
+			public void recordConnectionTimeout() {
+				AGOTADAS.increment();
+			}
+		};
+	}
+
+	@Override
+	public int getConexionesActivas() {
+		return getActivas();
+	}
+
+	@Override
+	public int getConexionesInactivas() {
+		return getInactivas();
+	}
+
+	@Override
+	public int getHilosEnEspera() {
+		return getPendientes();
+	}
+
+	@Override
+	public long getEsperasAgotadas() {
+		return getAgotadas();
+	}
+
+	@Override
+	public long getAdquisicionP50Micros() {
+		return micros(ADQUISICION.getPercentil(50));
+	}
+
+	@Override
+	public long getAdquisicionP99Micros() {
+		return micros(ADQUISICION.getPercentil(99));
+	}
+
+	@Override
+	public long getAdquisicionP999Micros() {
+		return micros(ADQUISICION.getPercentil(99.9));
+	}
+
+	@Override
+	public long getUsoP50Millis() {
+		return USO.getPercentil(50);
+	}
+
+	@Override
+	public long getUsoP99Millis() {
+		return USO.getPercentil(99);
+	}
+
+	@Override
+	public long getUsoP999Millis() {
+		return USO.getPercentil(99.9);
+	}
+
+	@Override
+	public long getCreacionP50Millis() {
+		return CREACION.getPercentil(50);
+	}
+
+	@Override
+	public long getCreacionP99Millis() {
+		return CREACION.getPercentil(99);
+	}
+
+	@Override
+	public long getCreacionP999Millis() {
+		return CREACION.getPercentil(99.9);
+	}
+
+	@Override
+	public void reiniciar() {
+		ADQUISICION.reiniciar();
+		USO.reiniciar();
+		CREACION.reiniciar();
+		AGOTADAS.reset();
+	}
+
+	/**
+	 * Publica las métricas como MBean. Si el pool se vuelve a crear con el mismo
+	 * nombre se mantiene el MBean anterior, que lee los mismos histogramas. Un
+	 * fallo al publicarlas no impide medir.
+	 *
+	 * @param nombrePool El nombre del pool.
+	 */
+	private void publicar(String nombrePool) {
+		try {
+			ObjectName nombre = new ObjectName("hogwarts:type=Pool,pool=" + nombrePool);
+			if (!ManagementFactory.getPlatformMBeanServer().isRegistered(nombre)) {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this, nombre);
+			}
+		} catch (JMException e) {
+			LOGGER.warn("No se pudieron publicar las métricas del pool {}", nombrePool, e);
+		}
+	}
+
+	/**
+	 * Obtiene el número de conexiones prestadas en este momento.
+	 *
+	 * @return Las conexiones activas, o 0 si el pool no se ha creado.
+	 */
+	public static int getActivas() {
+		PoolStats actual = estado;
+		return actual == null ? 0 : actual.getActiveConnections();
+	}
+
+	/**
+	 * Obtiene el número de conexiones abiertas y libres en este momento.
+	 *
+	 * @return Las conexiones inactivas, o 0 si el pool no se ha creado.
+	 */
+	public static int getInactivas() {
+		PoolStats actual = estado;
+		return actual == null ? 0 : actual.getIdleConnections();
+	}
+
+	/**
+	 * Obtiene el número de hilos que esperan una conexión en este momento.
+	 *
+	 * @return Los hilos en espera, o 0 si el pool no se ha creado.
+	 */
+	public static int getPendientes() {
+		PoolStats actual = estado;
+		return actual == null ? 0 : actual.getPendingThreads();
+	}
+
+	/**
+	 * Obtiene el histograma del tiempo de espera para obtener una conexión, en
+	 * nanosegundos.
+	 *
+	 * @return El histograma de adquisición.
+	 */
+	public static Histograma getAdquisicion() {
+		return ADQUISICION;
+	}
+
+	/**
+	 * Obtiene el histograma del tiempo que cada conexión permanece prestada, en
+	 * milisegundos.
+	 *
+	 * @return El histograma de uso.
+	 */
+	public static Histograma getUso() {
+		return USO;
+	}
+
+	/**
+	 * Obtiene el número de peticiones de conexión que agotaron el tiempo de
+	 * espera.
+	 *
+	 * @return El número de esperas agotadas.
+	 */
+	public static long getAgotadas() {
+		return AGOTADAS.sum();
+	}
+
+	/**
+	 * Genera un informe con el estado y las latencias del pool.
+	 *
+	 * @return El informe.
+	 */
+	public static String getInforme() {
+		return String.format(
+				"Pool: activas=%d inactivas=%d pendientes=%d agotadas=%d%n"
+						+ "  adquisición (µs): p50=%d p99=%d p99.9=%d máx=%d (%d muestras)%n"
+						+ "  uso (ms): p50=%d p99=%d p99.9=%d máx=%d; creación (ms): p50=%d p99=%d p99.9=%d",
+				getActivas(), getInactivas(), getPendientes(), getAgotadas(), micros(ADQUISICION.getPercentil(50)),
+				micros(ADQUISICION.getPercentil(99)), micros(ADQUISICION.getPercentil(99.9)),
+				micros(ADQUISICION.getMaximo()), ADQUISICION.getTotal(), USO.getPercentil(50), USO.getPercentil(99),
+				USO.getPercentil(99.9), USO.getMaximo(), CREACION.getPercentil(50), CREACION.getPercentil(99),
+				CREACION.getPercentil(99.9));
+	}
+
+	/**
+	 * Escribe en el log el informe del pool.
+	 */
+	public static void registrarInforme() {
+		LOGGER.info(getInforme());
+	}
+
+	/**
+	 * Convierte nanosegundos en microsegundos.
+	 *
+	 * @param nanos El tiempo en nanosegundos.
+	 * @return El tiempo en microsegundos.
+	 */
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,109 @@
+package utiles;
+
+/**
+ * Interfaz JMX de las métricas del pool de conexiones. La espera para obtener
+ * una conexión se expresa en microsegundos y el uso y la creación de
+ * conexiones, en milisegundos.
+ *
+ * @see MetricasPool
+ */
+public interface MetricasPoolMBean {
+
+	/**
+	 * Obtiene el número de conexiones prestadas en este momento.
+	 *
+	 * @return Las conexiones activas.
+	 */
+	int getConexionesActivas();
+
+	/**
+	 * Obtiene el número de conexiones abiertas y libres en este momento.
+	 *
+	 * @return Las conexiones inactivas.
+	 */
+	int getConexionesInactivas();
+
+	/**
+	 * Obtiene el número de hilos que esperan una conexión en este momento.
+	 *
+	 * @return Los hilos en espera.
+	 */
+	int getHilosEnEspera();
+
+	/**
+	 * Obtiene el número de peticiones de conexión que agotaron el tiempo de
+	 * espera.
+	 *
+	 * @return El número de esperas agotadas.
+	 */
+	long getEsperasAgotadas();
+
+	/**
+	 * Obtiene la mediana de la espera para obtener una conexión.
+	 *
+	 * @return El percentil 50 en microsegundos.
+	 */
+	long getAdquisicionP50Micros();
+
+	/**
+	 * Obtiene el percentil 99 de la espera para obtener una conexión.
+	 *
+	 * @return El percentil 99 en microsegundos.
+	 */
+	long getAdquisicionP99Micros();
+
+	/**
+	 * Obtiene el percentil 99,9 de la espera para obtener una conexión.
+	 *
+	 * @return El percentil 99,9 en microsegundos.
+	 */
+	long getAdquisicionP999Micros();
+
+	/**
+	 * Obtiene la mediana del tiempo que una conexión permanece prestada.
+	 *
+	 * @return El percentil 50 en milisegundos.
+	 */
+	long getUsoP50Millis();
+
+	/**
+	 * Obtiene el percentil 99 del tiempo que una conexión permanece prestada.
+	 *
+	 * @return El percentil 99 en milisegundos.
+	 */
+	long getUsoP99Millis();
+
+	/**
+	 * Obtiene el percentil 99,9 del tiempo que una conexión permanece prestada.
+	 *
+	 * @return El percentil 99,9 en milisegundos.
+	 */
+	long getUsoP999Millis();
+
+	/**
+	 * Obtiene la mediana del tiempo de creación de una conexión física.
+	 *
+	 * @return El percentil 50 en milisegundos.
+	 */
+	long getCreacionP50Millis();
+
+	/**
+	 * Obtiene el percentil 99 del tiempo de creación de una conexión física.
+	 *
+	 * @return El percentil 99 en milisegundos.
+	 */
+	long getCreacionP99Millis();
+
+	/**
+	 * Obtiene el percentil 99,9 del tiempo de creación de una conexión física.
+	 *
+	 * @return El percentil 99,9 en milisegundos.
+	 */
+	long getCreacionP999Millis();
+
+	/**
+	 * Vacía los histogramas y el contador de esperas agotadas y vuelve a empezar
+	 * a contar.
+	 */
+	void reiniciar();
+}
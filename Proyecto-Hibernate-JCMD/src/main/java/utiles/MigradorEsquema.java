@@ -0,0 +1,583 @@
+package utiles;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Migraciones versionadas del esquema de la base de datos. Cada migración es un
+ * script SQL de src/main/resources/migraciones, llamado
+ * V&lt;versión&gt;__&lt;descripción&gt;.sql y listado en orden en
+ * migraciones.txt. Las migraciones aplicadas se anotan en la tabla
+ * historial_esquema junto con la suma SHA-256 de su script, de modo que cada
+ * arranque solo aplica las pendientes y detecta los scripts modificados después
+ * de aplicarse.
+ *
+ * Comprobar que el esquema está al día cuesta una única consulta sobre el
+ * historial, sin ninguna sentencia DDL. El modo se elige con la propiedad
+ * {@value #MODO}: migrar (por defecto) aplica las migraciones pendientes,
+ * validar solo comprueba que no falte ninguna y ninguno no hace nada.
+ *
+ * Las sentencias DDL de MySQL confirman la transacción implícitamente, así que
+ * una migración que falla a medias no se deshace: se anota solo al terminar y
+ * hay que corregir la base de datos a mano antes de reintentarla. Para que dos
+ * instancias que arrancan a la vez no apliquen la misma migración, cada una
+ * bloquea antes una fila del historial con SELECT ... FOR UPDATE desde una
+ * conexión aparte, cuya transacción no confirman las sentencias DDL, y la
+ * segunda lee el historial cuando la primera ha terminado.
+ *
+ * Una sentencia precedida de la línea {@value #REPETIR} se ejecuta una y otra
+ * vez, confirmando después de cada ejecución, hasta que no modifica ninguna
+ * fila. Así un UPDATE ... LIMIT rellena una columna por tramos, cada uno con
+ * sus propios bloqueos, en lugar de bloquear toda la tabla en una sola
+ * transacción.
+ *
+ * Sobre una base de datos sin historial que ya tiene el esquema inicial, creado
+ * por hibernate.hbm2ddl.auto antes de existir las migraciones, la primera
+ * migración no se ejecuta: en su lugar se aplica el script de línea base
+ * {@value #LINEA_BASE}, que completa lo que le falta a ese esquema sin tocar
+ * los datos, y se anota como la primera migración.
+ */
+public class MigradorEsquema {
+
+	/**
+	 * Propiedad de configuración con el modo de gestión del esquema.
+	 */
+	public static final String MODO = "hogwarts.esquema.modo";
+
+	/**
+	 * Carpeta del classpath con los scripts de migración.
+	 */
+	private static final String CARPETA = "migraciones/";
+
+	/**
+	 * Índice con los nombres de los scripts en orden de aplicación.
+	 */
+	private static final String INDICE = CARPETA + "migraciones.txt";
+
+	/**
+	 * Script que lleva al estado de la primera migración una base de datos creada
+	 * antes de las migraciones.
+	 */
+	private static final String LINEA_BASE = CARPETA + "linea_base.sql";
+
+	/**
+	 * Formato del nombre de los scripts: versión y descripción.
+	 */
+	private static final Pattern NOMBRE = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+	/**
+	 * Línea de comentario que marca la sentencia siguiente de un script para
+	 * repetirla hasta que no modifique ninguna fila.
+	 */
+	private static final String REPETIR = "-- @repetir";
+
+	/**
+	 * Tabla en la que se anotan las migraciones aplicadas.
+	 */
+	private static final String HISTORIAL = "historial_esquema";
+
+	/**
+	 * Versión de la fila del historial que se bloquea mientras se migra. No
+	 * corresponde a ninguna migración.
+	 */
+	private static final int VERSION_BLOQUEO = 0;
+
+	/**
+	 * Tabla del esquema inicial cuya existencia indica que la base de datos se
+	 * creó antes de las migraciones.
+	 */
+	private static final String TABLA_INICIAL = "casas_magicas";
+
+	/**
+	 * Logger de las migraciones.
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(MigradorEsquema.class);
+
+	/**
+	 * Modos de gestión del esquema.
+	 */
+	public enum Modo {
+		/**
+		 * Aplica las migraciones pendientes.
+		 */
+		MIGRAR,
+		/**
+		 * Comprueba que no haya migraciones pendientes ni modificadas, sin aplicar
+		 * ninguna.
+		 */
+		VALIDAR,
+		/**
+		 * No comprueba ni modifica el esquema.
+		 */
+		NINGUNO;
+
+		/**
+		 * Obtiene el modo a partir del valor de la propiedad {@value MigradorEsquema#MODO}.
+		 *
+		 * @param valor El valor de la propiedad, o null si no está definida.
+		 * @return El modo correspondiente, o {@link #MIGRAR} si no está definida.
+		 */
+		public static Modo de(Object valor) {
+			if (valor == null || valor.toString().trim().isEmpty()) {
+				return MIGRAR;
+			}
+			return valueOf(valor.toString().trim().toUpperCase(Locale.ROOT));
+		}
+	}
+
+	/**
+	 * Script de migración leído del classpath.
+	 */
+	private static class Migracion {
+
+		/**
+		 * Versión de la migración.
+		 */
+		private final int version;
+
+		/**
+		 * Descripción tomada del nombre del script.
+		 */
+		private final String descripcion;
+
+		/**
+		 * Contenido del script.
+		 */
+		private final String sql;
+
+		/**
+		 * Suma SHA-256 del script.
+		 */
+		private final String suma;
+
+		/**
+		 * Constructor de la migración.
+		 *
+		 * @param version     La versión.
+		 * @param descripcion La descripción.
+		 * @param sql         El contenido del script.
+		 * @param suma        La suma del script.
+		 */
+		private Migracion(int version, String descripcion, String sql, String suma) {
+			this.version = version;
+			this.descripcion = descripcion;
+			this.sql = sql;
+			this.suma = suma;
+		}
+	}
+
+	/**
+	 * Sentencia de un script de migración.
+	 */
+	private static class Sentencia {
+
+		/**
+		 * Texto de la sentencia, sin el punto y coma final.
+		 */
+		private final String sql;
+
+		/**
+		 * Si se repite hasta que no modifique ninguna fila.
+		 */
+		private final boolean repetir;
+
+		/**
+		 * Constructor de la sentencia.
+		 *
+		 * @param sql     El texto de la sentencia.
+		 * @param repetir Si se repite hasta que no modifique ninguna fila.
+		 */
+		private Sentencia(String sql, boolean repetir) {
+			this.sql = sql;
+			this.repetir = repetir;
+		}
+	}
+
+	/**
+	 * Constructor privado: clase de utilidad con métodos estáticos.
+	 */
+	private MigradorEsquema() {
+	}
+
+	/**
+	 * Aplica las migraciones pendientes o comprueba que no haya ninguna, según el
+	 * modo.
+	 *
+	 * @param factoria La fábrica de sesiones de la base de datos.
+	 * @param modo     El modo de gestión del esquema.
+	 * @return El número de migraciones aplicadas.
+	 * @throws IllegalStateException Si un script aplicado se ha modificado, si en
+	 *                               modo validar hay migraciones pendientes o si
+	 *                               falla una migración.
+	 */
+	public static int ejecutar(SessionFactory factoria, Modo modo) {
+		if (modo == Modo.NINGUNO) {
+			return 0;
+		}
+		List<Migracion> migraciones = leerMigraciones();
+		if (modo == Modo.VALIDAR) {
+			try (Session sesion = factoria.openSession()) {
+				return sesion.doReturningWork(conexion -> {
+					Map<Integer, String> aplicadas;
+					try {
+						aplicadas = leerHistorial(conexion);
+					} catch (SQLException e) {
+						// La consulta solo falla si el historial aún no existe
+						throw new IllegalStateException("La base de datos no tiene historial de migraciones", e);
+					}
+					List<Migracion> pendientes = pendientes(migraciones, aplicadas);
+					if (!pendientes.isEmpty()) {
+						throw new IllegalStateException("El esquema no está al día: faltan " + pendientes.size()
+								+ " migraciones, la primera V" + pendientes.get(0).version);
+					}
+					LOGGER.info("Esquema al día: {} migraciones aplicadas", aplicadas.size());
+					return 0;
+				});
+			}
+		}
+		try (Session bloqueo = factoria.openSession(); Session sesion = factoria.openSession()) {
+			return bloqueo.doReturningWork(conexionBloqueo -> {
+				boolean autoCommit = conexionBloqueo.getAutoCommit();
+				bloquear(conexionBloqueo);
+				try {
+					return sesion.doReturningWork(conexion -> migrar(conexion, migraciones));
+				} finally {
+					// Al terminar la transacción se libera el bloqueo
+					conexionBloqueo.rollback();
+					conexionBloqueo.setAutoCommit(autoCommit);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Aplica las migraciones pendientes. Debe llamarse con el historial
+	 * bloqueado.
+	 *
+	 * @param conexion    La conexión a la base de datos.
+	 * @param migraciones Las migraciones en orden de versión.
+	 * @return El número de migraciones aplicadas.
+	 * @throws SQLException Si falla el acceso a la base de datos.
+	 */
+	private static int migrar(Connection conexion, List<Migracion> migraciones) throws SQLException {
+		Map<Integer, String> aplicadas = leerHistorial(conexion);
+		if (aplicadas.isEmpty() && !migraciones.isEmpty() && existeEsquemaInicial(conexion)) {
+			Migracion inicial = migraciones.get(0);
+			LOGGER.warn("La base de datos ya tiene el esquema inicial y no tiene historial: en lugar de V{} ({}) "
+					+ "se aplica la línea base {}", inicial.version, inicial.descripcion, LINEA_BASE);
+			aplicar(conexion, new Migracion(inicial.version, inicial.descripcion, leerRecurso(LINEA_BASE),
+					inicial.suma));
+			aplicadas.put(inicial.version, inicial.suma);
+		}
+		List<Migracion> pendientes = pendientes(migraciones, aplicadas);
+		if (pendientes.isEmpty()) {
+			LOGGER.info("Esquema al día: {} migraciones aplicadas", aplicadas.size());
+			return 0;
+		}
+		for (Migracion migracion : pendientes) {
+			aplicar(conexion, migracion);
+		}
+		return pendientes.size();
+	}
+
+	/**
+	 * Obtiene las migraciones que aún no se han aplicado y comprueba que los
+	 * scripts de las aplicadas no se hayan modificado.
+	 *
+	 * @param migraciones Las migraciones en orden de versión.
+	 * @param aplicadas   Las sumas de las migraciones aplicadas por versión.
+	 * @return Las migraciones pendientes, en orden de versión.
+	 * @throws IllegalStateException Si un script aplicado se ha modificado.
+	 */
+	private static List<Migracion> pendientes(List<Migracion> migraciones, Map<Integer, String> aplicadas) {
+		List<Migracion> pendientes = new ArrayList<>();
+		for (Migracion migracion : migraciones) {
+			String suma = aplicadas.get(migracion.version);
+			if (suma == null) {
+				pendientes.add(migracion);
+			} else if (!suma.equals(migracion.suma)) {
+				throw new IllegalStateException("La migración V" + migracion.version + " ("
+						+ migracion.descripcion + ") se ha modificado después de aplicarse");
+			}
+		}
+		return pendientes;
+	}
+
+	/**
+	 * Lee del historial las versiones aplicadas y sus sumas.
+	 *
+	 * @param conexion La conexión a la base de datos.
+	 * @return Las sumas de las migraciones aplicadas por versión.
+	 * @throws SQLException Si falla el acceso a la base de datos o el historial no
+	 *                      existe.
+	 */
+	private static Map<Integer, String> leerHistorial(Connection conexion) throws SQLException {
+		Map<Integer, String> aplicadas = new HashMap<>();
+		try (Statement sentencia = conexion.createStatement();
+				ResultSet filas = sentencia.executeQuery(
+						"select version, suma from " + HISTORIAL + " where version <> " + VERSION_BLOQUEO)) {
+			while (filas.next()) {
+				aplicadas.put(filas.getInt(1), filas.getString(2));
+			}
+		}
+		return aplicadas;
+	}
+
+	/**
+	 * Crea el historial y su fila de bloqueo si aún no existen, e inicia en la
+	 * conexión una transacción que bloquea esa fila. Si otra instancia la tiene
+	 * bloqueada, espera a que termine de migrar o a que se agote el tiempo de
+	 * espera de bloqueos de la base de datos.
+	 *
+	 * @param conexion La conexión que mantiene el bloqueo.
+	 * @throws SQLException Si falla el acceso a la base de datos o se agota la
+	 *                      espera.
+	 */
+	private static void bloquear(Connection conexion) throws SQLException {
+		try (Statement sentencia = conexion.createStatement()) {
+			sentencia.execute("create table if not exists " + HISTORIAL + " (version integer not null, "
+					+ "descripcion varchar(200) not null, suma char(64) not null, aplicada_en timestamp not null, "
+					+ "duracion_ms bigint not null, primary key (version))");
+		}
+		conexion.setAutoCommit(false);
+		if (!bloquearFila(conexion)) {
+			try (PreparedStatement fila = conexion.prepareStatement("insert into " + HISTORIAL
+					+ " (version, descripcion, suma, aplicada_en, duracion_ms) values (?, 'bloqueo', ?, ?, 0)")) {
+				fila.setInt(1, VERSION_BLOQUEO);
+				fila.setString(2, "-");
+				fila.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+				fila.executeUpdate();
+				conexion.commit();
+			} catch (SQLException e) {
+				// Otra instancia ha creado la fila a la vez
+				conexion.rollback();
+			}
+			if (!bloquearFila(conexion)) {
+				throw new IllegalStateException("No se pudo crear la fila de bloqueo del historial de migraciones");
+			}
+		}
+	}
+
+	/**
+	 * Bloquea la fila de bloqueo del historial hasta el final de la transacción.
+	 *
+	 * @param conexion La conexión que mantiene el bloqueo.
+	 * @return false si la fila no existe.
+	 * @throws SQLException Si falla el acceso a la base de datos o se agota la
+	 *                      espera.
+	 */
+	private static boolean bloquearFila(Connection conexion) throws SQLException {
+		try (Statement sentencia = conexion.createStatement();
+				ResultSet fila = sentencia.executeQuery(
+						"select version from " + HISTORIAL + " where version = " + VERSION_BLOQUEO + " for update")) {
+			return fila.next();
+		}
+	}
+
+	/**
+	 * Comprueba si la base de datos ya tiene el esquema inicial.
+	 *
+	 * @param conexion La conexión a la base de datos.
+	 * @return true si existe la tabla {@value #TABLA_INICIAL}.
+	 */
+	private static boolean existeEsquemaInicial(Connection conexion) {
+		try (Statement sentencia = conexion.createStatement();
+				ResultSet filas = sentencia.executeQuery("select 1 from " + TABLA_INICIAL + " where 1 = 0")) {
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Aplica una migración y la anota en el historial.
+	 *
+	 * @param conexion  La conexión a la base de datos.
+	 * @param migracion La migración a aplicar.
+	 * @throws SQLException Si falla alguna sentencia.
+	 */
+	private static void aplicar(Connection conexion, Migracion migracion) throws SQLException {
+		long inicio = System.currentTimeMillis();
+		boolean autoCommit = conexion.getAutoCommit();
+		conexion.setAutoCommit(false);
+		try (Statement sentencia = conexion.createStatement()) {
+			for (Sentencia sql : dividir(migracion.sql)) {
+				if (!sql.repetir) {
+					sentencia.execute(sql.sql);
+					continue;
+				}
+				int filas;
+				do {
+					filas = sentencia.executeUpdate(sql.sql);
+					conexion.commit();
+				} while (filas > 0);
+			}
+			long duracion = System.currentTimeMillis() - inicio;
+			anotar(conexion, migracion, inicio, duracion);
+			conexion.commit();
+			LOGGER.info("Aplicada la migración V{} ({}) en {} ms", migracion.version, migracion.descripcion,
+					duracion);
+		} catch (SQLException | RuntimeException e) {
+			conexion.rollback();
+			throw new IllegalStateException("Falló la migración V" + migracion.version + " ("
+					+ migracion.descripcion + ")", e);
+		} finally {
+			conexion.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Anota una migración en el historial.
+	 *
+	 * @param conexion  La conexión a la base de datos.
+	 * @param migracion La migración aplicada.
+	 * @param inicio    El instante en que empezó a aplicarse, en milisegundos.
+	 * @param duracion  Lo que tardó en aplicarse, en milisegundos.
+	 * @throws SQLException Si falla la inserción.
+	 */
+	private static void anotar(Connection conexion, Migracion migracion, long inicio, long duracion)
+			throws SQLException {
+		try (PreparedStatement anotacion = conexion.prepareStatement("insert into " + HISTORIAL
+				+ " (version, descripcion, suma, aplicada_en, duracion_ms) values (?, ?, ?, ?, ?)")) {
+			anotacion.setInt(1, migracion.version);
+			anotacion.setString(2, migracion.descripcion);
+			anotacion.setString(3, migracion.suma);
+			anotacion.setTimestamp(4, new Timestamp(inicio));
+			anotacion.setLong(5, duracion);
+			anotacion.executeUpdate();
+		}
+	}
+
+	/**
+	 * Divide un script en sentencias. Cada sentencia termina con un punto y coma
+	 * al final de una línea; las líneas que empiezan por -- son comentarios,
+	 * salvo {@value #REPETIR}, que marca la sentencia siguiente.
+	 *
+	 * @param script El contenido del script.
+	 * @return Las sentencias, sin el punto y coma final.
+	 */
+	private static List<Sentencia> dividir(String script) {
+		List<Sentencia> sentencias = new ArrayList<>();
+		StringBuilder actual = new StringBuilder();
+		boolean repetir = false;
+		try (BufferedReader lector = new BufferedReader(new StringReader(script))) {
+			String linea;
+			while ((linea = lector.readLine()) != null) {
+				String recortada = linea.trim();
+				if (recortada.equals(REPETIR)) {
+					repetir = true;
+					continue;
+				}
+				if (recortada.isEmpty() || recortada.startsWith("--")) {
+					continue;
+				}
+				if (recortada.endsWith(";")) {
+					actual.append(recortada, 0, recortada.length() - 1);
+					sentencias.add(new Sentencia(actual.toString(), repetir));
+					actual.setLength(0);
+					repetir = false;
+				} else {
+					actual.append(recortada).append(' ');
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		if (actual.toString().trim().length() > 0) {
+			sentencias.add(new Sentencia(actual.toString().trim(), repetir));
+		}
+		return sentencias;
+	}
+
+	/**
+	 * Lee del classpath los scripts listados en el índice de migraciones.
+	 *
+	 * @return Las migraciones en orden de versión.
+	 */
+	private static List<Migracion> leerMigraciones() {
+		List<Migracion> migraciones = new ArrayList<>();
+		int anterior = 0;
+		for (String linea : leerRecurso(INDICE).split("\\R")) {
+			String nombre = linea.trim();
+			if (nombre.isEmpty() || nombre.startsWith("#")) {
+				continue;
+			}
+			Matcher partes = NOMBRE.matcher(nombre);
+			if (!partes.matches()) {
+				throw new IllegalStateException("Nombre de migración no válido: " + nombre);
+			}
+			int version = Integer.parseInt(partes.group(1));
+			if (version <= anterior) {
+				throw new IllegalStateException("Las migraciones deben listarse en orden creciente: " + nombre);
+			}
+			anterior = version;
+			String sql = leerRecurso(CARPETA + nombre);
+			migraciones.add(new Migracion(version, partes.group(2), sql, suma(sql)));
+		}
+		return migraciones;
+	}
+
+	/**
+	 * Lee un recurso de texto del classpath.
+	 *
+	 * @param recurso El nombre del recurso.
+	 * @return Su contenido.
+	 */
+	private static String leerRecurso(String recurso) {
+		try (InputStream entrada = MigradorEsquema.class.getClassLoader().getResourceAsStream(recurso)) {
+			if (entrada == null) {
+				throw new IllegalStateException("No se encuentra el recurso " + recurso);
+			}
+			ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+			byte[] bloque = new byte[8192];
+			int leidos;
+			while ((leidos = entrada.read(bloque)) != -1) {
+				contenido.write(bloque, 0, leidos);
+			}
+			return new String(contenido.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException("No se pudo leer " + recurso, e);
+		}
+	}
+
+	/**
+	 * Calcula la suma SHA-256 de un script, sin tener en cuenta los finales de
+	 * línea para que no cambie entre sistemas operativos.
+	 *
+	 * @param sql El contenido del script.
+	 * @return La suma en hexadecimal.
+	 */
+	private static String suma(String sql) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return CacheArranque.hexadecimal(
+					digest.digest(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package utiles;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Unidad de trabajo que mantiene una sesión de Hibernate asociada al hilo
+ * actual mientras está abierta. Se obtiene con
+ * {@link HibernateUtil#abrirUnidadDeTrabajo()} y debe usarse con
+ * try-with-resources para que la sesión y su conexión se liberen siempre:
+ *
+ * <pre>
+ * try (UnidadDeTrabajo unidad = HibernateUtil.abrirUnidadDeTrabajo()) {
+ * 	unidad.iniciarTransaccion();
+ * 	estudianteDao.update(harry);
+ * 	casaMagicaDao.update(gryffindor);
+ * 	unidad.confirmar();
+ * }
+ * </pre>
+ */
+public class UnidadDeTrabajo implements AutoCloseable {
+
+	/**
+	 * Sesión compartida por las operaciones de la unidad de trabajo.
+	 */
+	private final Session sesion;
+
+	/**
+	 * Indica si esta unidad abrió la sesión y, por tanto, debe cerrarla.
+	 */
+	private final boolean propietaria;
+
+	/**
+	 * Crea una unidad de trabajo sobre una sesión.
+	 *
+	 * @param sesion      La sesión asociada al hilo actual.
+	 * @param propietaria true si la unidad abrió la sesión y debe cerrarla.
+	 */
+	UnidadDeTrabajo(Session sesion, boolean propietaria) {
+		this.sesion = sesion;
+		this.propietaria = propietaria;
+	}
+
+	/**
+	 * Obtiene la sesión de la unidad de trabajo.
+	 *
+	 * @return La sesión compartida.
+	 */
+	public Session getSesion() {
+		return sesion;
+	}
+
+	/**
+	 * Inicia una transacción que engloba todas las operaciones siguientes de la
+	 * unidad de trabajo. Si ya hay una transacción activa no hace nada.
+	 */
+	public void iniciarTransaccion() {
+		Transaction tx = sesion.getTransaction();
+		if (!tx.isActive()) {
+			tx.begin();
+		}
+	}
+
+	/**
+	 * Confirma la transacción activa de la unidad de trabajo, si la hay.
+	 */
+	public void confirmar() {
+		Transaction tx = sesion.getTransaction();
+		if (tx.isActive()) {
+			tx.commit();
+		}
+	}
+
+	/**
+	 * Cierra la unidad de trabajo. Si es la propietaria de la sesión, deshace la
+	 * transacción que no se haya confirmado, cierra la sesión y la desasocia del
+	 * hilo actual.
+	 */
+	@Override
+	public void close() {
+		if (propietaria) {
+			HibernateUtil.setSesionActual(null);
+			HibernateUtil.cerrarSesion(sesion);
+		}
+	}
+}
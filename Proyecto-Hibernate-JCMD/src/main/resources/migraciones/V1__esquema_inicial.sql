@@ -0,0 +1,139 @@
+-- Esquema inicial de la base de datos de Hogwarts, equivalente al que generaba
+-- hibernate.hbm2ddl.auto=create. Solo crea tablas, sin eliminar antes las que
+-- existan, para no borrar nunca datos.
+
+create table casas_magicas (
+	idCasaMagica integer not null,
+	lemaCasaMagica varchar(255),
+	nombreCasaMagica varchar(255),
+	puntuacionTotalCasaMagica integer not null,
+	primary key (idCasaMagica)
+) engine=InnoDB;
+
+create table criaturas_magicas (
+	idCriaturaMagica integer not null,
+	descripcionCriaturaMagica varchar(255),
+	habitatCriaturaMagica varchar(255),
+	nombreCriaturaMagica varchar(255),
+	tipoCriaturaMagica varchar(255),
+	primary key (idCriaturaMagica)
+) engine=InnoDB;
+
+create table cursos_magicos (
+	idCursoMagico integer not null,
+	duracionCursoMagico integer not null,
+	nivelCursoMagico varchar(255),
+	nombreCursoMagico varchar(255),
+	profesor_id integer,
+	primary key (idCursoMagico)
+) engine=InnoDB;
+
+create table estudiantes (
+	idEstudiante integer not null,
+	edadEstudiante integer not null,
+	nivelMagicoEstudiante varchar(255),
+	nombreEstudiante varchar(255),
+	varitaEstudiante varchar(255),
+	casa_id integer,
+	primary key (idEstudiante)
+) engine=InnoDB;
+
+create table estudiantes_cursos (
+	curso_id integer not null,
+	estudiante_id integer not null,
+	primary key (curso_id, estudiante_id)
+) engine=InnoDB;
+
+create table eventos_criaturas (
+	id_evento_magico integer not null,
+	id_criatura_magica integer not null,
+	primary key (id_evento_magico, id_criatura_magica)
+) engine=InnoDB;
+
+create table eventos_estudiantes (
+	id_evento_magico integer not null,
+	id_estudiante integer not null,
+	primary key (id_evento_magico, id_estudiante)
+) engine=InnoDB;
+
+create table eventos_magicos (
+	idEventoMagico integer not null,
+	descripcionEventoMagico varchar(255),
+	fechaEventoMagico varchar(255),
+	nombreEventoMagico varchar(255),
+	ubicacionEventoMagico varchar(255),
+	primary key (idEventoMagico)
+) engine=InnoDB;
+
+create table generador_ids (
+	entidad varchar(255) not null,
+	siguiente_id bigint,
+	primary key (entidad)
+) engine=InnoDB;
+
+insert into generador_ids(entidad, siguiente_id) values ('profesores',0);
+
+insert into generador_ids(entidad, siguiente_id) values ('criaturas_magicas',0);
+
+insert into generador_ids(entidad, siguiente_id) values ('estudiantes',0);
+
+insert into generador_ids(entidad, siguiente_id) values ('casas_magicas',0);
+
+insert into generador_ids(entidad, siguiente_id) values ('cursos_magicos',0);
+
+insert into generador_ids(entidad, siguiente_id) values ('eventos_magicos',0);
+
+create table profesores (
+	idProfesor integer not null,
+	especialidadProfesor varchar(255),
+	experienciaProfesor integer not null,
+	nivelMagicoProfesor varchar(255),
+	nombreProfesor varchar(255),
+	casa_id integer,
+	primary key (idProfesor)
+) engine=InnoDB;
+
+alter table cursos_magicos
+	add constraint FKmjdcgj9w2lfbicqampa4oi7dl
+	foreign key (profesor_id)
+	references profesores (idProfesor);
+
+alter table estudiantes
+	add constraint FKjyd7lkambxwebkdfq8ky0pp16
+	foreign key (casa_id)
+	references casas_magicas (idCasaMagica);
+
+alter table estudiantes_cursos
+	add constraint FKcxjg10s01498k3gq1954mg130
+	foreign key (estudiante_id)
+	references estudiantes (idEstudiante);
+
+alter table estudiantes_cursos
+	add constraint FK9wgs3vfvtrsutgxfjx2b5p103
+	foreign key (curso_id)
+	references cursos_magicos (idCursoMagico);
+
+alter table eventos_criaturas
+	add constraint FKnh75nmyklytb2hala4r98k8hg
+	foreign key (id_criatura_magica)
+	references criaturas_magicas (idCriaturaMagica);
+
+alter table eventos_criaturas
+	add constraint FKryf48fmf7ksgwyheicmf5d694
+	foreign key (id_evento_magico)
+	references eventos_magicos (idEventoMagico);
+
+alter table eventos_estudiantes
+	add constraint FKtcuji6e2dbichpk3l01vuto35
+	foreign key (id_estudiante)
+	references estudiantes (idEstudiante);
+
+alter table eventos_estudiantes
+	add constraint FK9k1de66sstpkti06niijjn0hp
+	foreign key (id_evento_magico)
+	references eventos_magicos (idEventoMagico);
+
+alter table profesores
+	add constraint FKl3ipmdfead4c9cc20wq11xwe4
+	foreign key (casa_id)
+	references casas_magicas (idCasaMagica);
@@ -0,0 +1,5 @@
+-- Índice para las consultas de casas por puntuación. Incluye el nombre para que
+-- el filtro por puntuación mínima y la clasificación se resuelvan recorriendo
+-- solo el índice, sin leer las filas de la tabla.
+
+create index idx_casas_puntuacion on casas_magicas (puntuacionTotalCasaMagica, nombreCasaMagica);
@@ -0,0 +1,9 @@
+-- Índices de las columnas por las que filtran y ordenan los DAOs: el borrado de
+-- estudiantes por nombre, la actualización de la puntuación de una casa por su
+-- nombre y los eventos de una ubicación ordenados por fecha.
+
+create index idx_estudiantes_nombre on estudiantes (nombreEstudiante);
+
+create index idx_casas_nombre on casas_magicas (nombreCasaMagica);
+
+create index idx_eventos_ubicacion_fecha on eventos_magicos (ubicacionEventoMagico, fechaEventoMagico);
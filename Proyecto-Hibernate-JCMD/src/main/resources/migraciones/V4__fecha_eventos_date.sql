@@ -0,0 +1,25 @@
+-- La fecha de los eventos pasa de varchar ('yyyy-MM-dd') a date sin detener la
+-- aplicación, en dos fases (expansión y contracción).
+--
+-- Esta es la expansión: se añade la columna date diaEventoMagico junto a la de
+-- texto fechaEventoMagico, que no se toca, y se rellena por tramos de 1000
+-- filas, cada uno en su propia transacción, en lugar de con una sola sentencia
+-- que bloquee toda la tabla. Los índices se crean antes del relleno para que
+-- cada tramo encuentre sus filas pendientes por el índice y no recorriendo la
+-- tabla. Desde esta versión la aplicación lee la columna date y escribe las
+-- dos, así que las instancias anteriores que sigan en marcha durante el
+-- despliegue leen y escriben la de texto como siempre.
+--
+-- La contracción, V7__fecha_eventos_contraccion.sql, rellena las filas que
+-- esas instancias hayan escrito entretanto y elimina la columna de texto. Se
+-- aplica en la versión siguiente, cuando ya no queda ninguna que la use.
+
+alter table eventos_magicos add column diaEventoMagico date;
+
+create index idx_eventos_dia on eventos_magicos (diaEventoMagico, nombreEventoMagico);
+
+create index idx_eventos_ubicacion_dia on eventos_magicos (ubicacionEventoMagico, diaEventoMagico);
+
+-- @repetir
+update eventos_magicos set diaEventoMagico = cast(fechaEventoMagico as date)
+	where diaEventoMagico is null and fechaEventoMagico is not null limit 1000;
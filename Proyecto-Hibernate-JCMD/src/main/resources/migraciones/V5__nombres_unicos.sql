@@ -0,0 +1,10 @@
+-- Los nombres de las casas y de los cursos pasan a ser su identificador
+-- natural, único. Si hay nombres repetidos hay que renombrarlos antes de
+-- aplicar esta migración. El índice único de las casas sustituye al índice
+-- simple por nombre.
+
+alter table casas_magicas drop index idx_casas_nombre;
+
+alter table casas_magicas add constraint uk_casas_nombre unique (nombreCasaMagica);
+
+alter table cursos_magicos add constraint uk_cursos_nombre unique (nombreCursoMagico);
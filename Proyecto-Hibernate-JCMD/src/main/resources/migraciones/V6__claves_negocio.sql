@@ -0,0 +1,31 @@
+-- Estudiantes, profesores, criaturas y eventos reciben una clave de negocio,
+-- un UUID que la aplicación asigna antes de guardarlos y del que calcula su
+-- código hash. Las filas existentes reciben un UUID aleatorio cada una.
+--
+-- Migración fuera de línea: el relleno actualiza cada tabla en una sola
+-- sentencia y hacer la columna obligatoria reconstruye la tabla, así que debe
+-- aplicarse con la aplicación detenida.
+
+alter table estudiantes add column uuidEstudiante varchar(36);
+
+update estudiantes set uuidEstudiante = uuid() where uuidEstudiante is null;
+
+alter table estudiantes modify column uuidEstudiante varchar(36) not null;
+
+alter table profesores add column uuidProfesor varchar(36);
+
+update profesores set uuidProfesor = uuid() where uuidProfesor is null;
+
+alter table profesores modify column uuidProfesor varchar(36) not null;
+
+alter table criaturas_magicas add column uuidCriaturaMagica varchar(36);
+
+update criaturas_magicas set uuidCriaturaMagica = uuid() where uuidCriaturaMagica is null;
+
+alter table criaturas_magicas modify column uuidCriaturaMagica varchar(36) not null;
+
+alter table eventos_magicos add column uuidEventoMagico varchar(36);
+
+update eventos_magicos set uuidEventoMagico = uuid() where uuidEventoMagico is null;
+
+alter table eventos_magicos modify column uuidEventoMagico varchar(36) not null;
@@ -0,0 +1,15 @@
+-- Contracción del paso de la fecha de los eventos a date que empezó V4.
+--
+-- Aún no figura en migraciones.txt: se añade en la versión siguiente a la que
+-- introdujo V4, cuando todas las instancias en marcha escriben ya la columna
+-- date, junto con la retirada del campo fechaEventoMagicoTexto de EventoMagico.
+-- Antes de eliminar la columna de texto rellena, también por tramos, la fecha de
+-- los eventos que escribieron las instancias anteriores durante el despliegue.
+
+-- @repetir
+update eventos_magicos set diaEventoMagico = cast(fechaEventoMagico as date)
+	where diaEventoMagico is null and fechaEventoMagico is not null limit 1000;
+
+alter table eventos_magicos drop index idx_eventos_ubicacion_fecha;
+
+alter table eventos_magicos drop column fechaEventoMagico;
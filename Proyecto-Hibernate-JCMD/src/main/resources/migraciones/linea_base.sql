@@ -0,0 +1,36 @@
+-- Línea base de una base de datos creada por hibernate.hbm2ddl.auto antes de
+-- existir las migraciones. MigradorEsquema la ejecuta en lugar de V1 y la anota
+-- como V1. Esas bases de datos ya tienen las tablas de V1 salvo generador_ids,
+-- porque sus identificadores eran IDENTITY: se crea y cada generador empieza
+-- por el mayor identificador de su tabla, para que los nuevos no choquen con
+-- los existentes. Los generadores que ya existan se conservan.
+
+create table if not exists generador_ids (
+	entidad varchar(255) not null,
+	siguiente_id bigint,
+	primary key (entidad)
+) engine=InnoDB;
+
+insert into generador_ids (entidad, siguiente_id)
+	select 'profesores', coalesce(max(idProfesor), 0) from profesores
+	where not exists (select 1 from generador_ids where entidad = 'profesores');
+
+insert into generador_ids (entidad, siguiente_id)
+	select 'criaturas_magicas', coalesce(max(idCriaturaMagica), 0) from criaturas_magicas
+	where not exists (select 1 from generador_ids where entidad = 'criaturas_magicas');
+
+insert into generador_ids (entidad, siguiente_id)
+	select 'estudiantes', coalesce(max(idEstudiante), 0) from estudiantes
+	where not exists (select 1 from generador_ids where entidad = 'estudiantes');
+
+insert into generador_ids (entidad, siguiente_id)
+	select 'casas_magicas', coalesce(max(idCasaMagica), 0) from casas_magicas
+	where not exists (select 1 from generador_ids where entidad = 'casas_magicas');
+
+insert into generador_ids (entidad, siguiente_id)
+	select 'cursos_magicos', coalesce(max(idCursoMagico), 0) from cursos_magicos
+	where not exists (select 1 from generador_ids where entidad = 'cursos_magicos');
+
+insert into generador_ids (entidad, siguiente_id)
+	select 'eventos_magicos', coalesce(max(idEventoMagico), 0) from eventos_magicos
+	where not exists (select 1 from generador_ids where entidad = 'eventos_magicos');
@@ -0,0 +1,120 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import modelo.CursoMagico;
+import modelo.Estudiante;
+import utiles.GeneradorDatos;
+import utiles.HibernateUtil;
+
+/**
+ * Pruebas de los recorridos de {@link AbstractDao} sobre una base de datos H2
+ * en memoria, con la carga por lotes de hibernate.cfg.xml activada.
+ */
+class AbstractDaoTest {
+
+	/**
+	 * Número de filas de cada bloque de los recorridos, mucho menor que el de
+	 * estudiantes para que el cursor atraviese varios bloques.
+	 */
+	private static final int TAMANO_FETCH = 50;
+
+	/**
+	 * Arranca Hibernate sobre una base de datos en memoria y la rellena.
+	 */
+	@BeforeAll
+	static void arrancar() {
+		System.setProperty("hibernate.connection.url", "jdbc:h2:mem:recorridos;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		System.setProperty("hibernate.connection.username", "sa");
+		System.setProperty("hibernate.connection.password", "");
+		System.setProperty("hibernate.show_sql", "false");
+		System.setProperty("hogwarts.arranque.cache", "");
+		HibernateUtil.iniciar();
+		new GeneradorDatos(42, 300).generar();
+	}
+
+	/**
+	 * Cierra Hibernate.
+	 */
+	@AfterAll
+	static void cerrar() {
+		HibernateUtil.shutdown();
+	}
+
+	/**
+	 * Un flujo que atraviesa varios bloques, y por tanto varias limpiezas de la
+	 * sesión, devuelve todas las filas, permite navegar a las asociaciones a uno
+	 * y se cierra sin errores.
+	 */
+	@Test
+	void elFlujoRecorreVariosBloquesYSeCierra() {
+		EstudianteDao estudianteDao = new EstudianteDao();
+		estudianteDao.setTamanoFetch(TAMANO_FETCH);
+		int estudiantes = estudianteDao.getAll().size();
+		assertTrue(estudiantes > TAMANO_FETCH, () -> "Solo hay " + estudiantes + " estudiantes");
+
+		Set<String> casas;
+		try (Stream<Estudiante> flujo = estudianteDao.stream()) {
+			casas = flujo.filter(e -> e.getCasa() != null).map(e -> e.getCasa().getNombreCasaMagica())
+					.collect(Collectors.toSet());
+		}
+		assertEquals(4, casas.size(), casas::toString);
+		try (Stream<Estudiante> flujo = estudianteDao.stream()) {
+			assertEquals(estudiantes, flujo.count());
+		}
+	}
+
+	/**
+	 * {@link AbstractDao#forEach(java.util.function.Consumer)} recorre todas las
+	 * entidades de cada DAO aunque ocupen varios bloques.
+	 */
+	@Test
+	void forEachRecorreTodasLasEntidadesDeCadaDao() {
+		for (AbstractDao<?> dao : List.of(new EstudianteDao(), new ProfesorDao(), new CursoMagicoDao(),
+				new CasaMagicaDao(), new CriaturaMagicaDao(), new EventoMagicoDao())) {
+			dao.setTamanoFetch(7);
+			AtomicInteger recorridas = new AtomicInteger();
+			dao.forEach(entidad -> recorridas.incrementAndGet());
+			assertEquals(dao.getAll().size(), recorridas.get(), dao.getClass().getSimpleName());
+		}
+		CursoMagicoDao cursoDao = new CursoMagicoDao();
+		cursoDao.setTamanoFetch(3);
+		AtomicInteger conProfesor = new AtomicInteger();
+		cursoDao.forEach((CursoMagico curso) -> {
+			if (curso.getProfesor() != null && curso.getProfesor().getNombreProfesor() != null) {
+				conProfesor.incrementAndGet();
+			}
+		});
+		assertTrue(conProfesor.get() > 0);
+	}
+
+	/**
+	 * Las páginas rechazan los límites fuera de rango, incluido el que
+	 * desbordaría al pedir la fila de más, y aceptan los extremos.
+	 */
+	@Test
+	void getPageRechazaLosLimitesFueraDeRango() {
+		EstudianteDao estudianteDao = new EstudianteDao();
+		for (int limite : new int[] { 0, -1, AbstractDao.MAX_LIMITE_PAGINA + 1, Integer.MAX_VALUE }) {
+			assertThrows(IllegalArgumentException.class, () -> estudianteDao.getPage(0, limite),
+					() -> "Límite " + limite);
+			assertThrows(IllegalArgumentException.class,
+					() -> estudianteDao.getPage("nombreEstudiante", null, 0, limite), () -> "Límite " + limite);
+		}
+		assertEquals(1, estudianteDao.getPage(0, 1).getElementos().size());
+		assertEquals(Math.min(estudianteDao.getAll().size(), AbstractDao.MAX_LIMITE_PAGINA),
+				estudianteDao.getPage(0, AbstractDao.MAX_LIMITE_PAGINA).getElementos().size());
+	}
+}
@@ -0,0 +1,110 @@
+package utiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de los volcados de {@link AcumuladorPuntos} cuando falla la escritura
+ * de una clave, sin base de datos: los deltas se escriben en un mapa.
+ */
+class AcumuladorPuntosTest {
+
+	/**
+	 * Clave cuya escritura falla siempre.
+	 */
+	private static final String MALA = "Inexistente";
+
+	/**
+	 * Puntos escritos de cada clave.
+	 */
+	private final Map<String, Long> escritos = new ConcurrentHashMap<>();
+
+	/**
+	 * Acumulador de las pruebas, con volcados periódicos tan espaciados que solo
+	 * vuelca cuando se le pide.
+	 */
+	private AcumuladorPuntos acumulador;
+
+	/**
+	 * Crea el acumulador, que falla al escribir cualquier volcado con
+	 * {@link #MALA}.
+	 */
+	@BeforeEach
+	void crear() {
+		acumulador = new AcumuladorPuntos(this::escribir, 3_600_000, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Detiene el acumulador.
+	 */
+	@AfterEach
+	void detener() {
+		acumulador.detener();
+	}
+
+	/**
+	 * Una clave que falla siempre no impide escribir las demás, y su delta se
+	 * descarta tras {@link AcumuladorPuntos#MAX_FALLOS} volcados en lugar de
+	 * reintentarse indefinidamente.
+	 */
+	@Test
+	void unaClaveQueFallaSiempreSeDescartaSinBloquearLasDemas() {
+		acumulador.sumar("Gryffindor", 10);
+		acumulador.sumar(MALA, 5);
+		assertThrows(IllegalStateException.class, acumulador::volcar);
+		assertEquals(10, escritos.get("Gryffindor"));
+
+		for (int i = 1; i < AcumuladorPuntos.MAX_FALLOS - 1; i++) {
+			acumulador.sumar("Slytherin", 1);
+			assertThrows(IllegalStateException.class, acumulador::volcar);
+		}
+		assertEquals(AcumuladorPuntos.MAX_FALLOS - 2, escritos.get("Slytherin"));
+
+		// El último fallo permitido descarta el delta y ya no queda nada pendiente
+		assertThrows(IllegalStateException.class, acumulador::volcar);
+		assertEquals(0, acumulador.volcar());
+	}
+
+	/**
+	 * Un fallo pasajero de un volcado no pierde puntos: se escriben todos al
+	 * reintentar cada clave por separado.
+	 */
+	@Test
+	void unFalloPasajeroNoPierdePuntos() {
+		boolean[] fallar = { true };
+		acumulador.detener();
+		acumulador = new AcumuladorPuntos(deltas -> {
+			if (fallar[0]) {
+				fallar[0] = false;
+				throw new IllegalStateException("Conexión perdida");
+			}
+			escribir(deltas);
+		}, 3_600_000, Long.MAX_VALUE);
+		acumulador.sumar("Gryffindor", 10);
+		acumulador.sumar("Hufflepuff", 3);
+		assertEquals(2, acumulador.volcar());
+		assertEquals(Map.of("Gryffindor", 10L, "Hufflepuff", 3L), escritos);
+		assertEquals(2, acumulador.getSumasVolcadas());
+	}
+
+	/**
+	 * Escribe los deltas de un volcado, o falla sin escribir ninguno si incluye
+	 * {@link #MALA}.
+	 *
+	 * @param deltas Los deltas del volcado.
+	 */
+	private void escribir(SortedMap<String, Long> deltas) {
+		if (deltas.containsKey(MALA)) {
+			throw new IllegalStateException("No existe la casa " + MALA);
+		}
+		deltas.forEach((clave, delta) -> escritos.merge(clave, delta, Long::sum));
+	}
+}
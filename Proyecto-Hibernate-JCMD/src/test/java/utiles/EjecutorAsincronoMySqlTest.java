@@ -0,0 +1,82 @@
+package utiles;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import dao.CasaMagicaDao;
+import dao.EstudianteDao;
+import jdk.jfr.consumer.RecordedEvent;
+
+/**
+ * Pruebas de {@link EjecutorAsincrono} con el controlador de MySQL del
+ * proyecto, que es el que decide si una consulta fija el hilo virtual. Solo se
+ * ejecutan con hilos virtuales y si se indica una base de datos MySQL de
+ * pruebas, que se migra y se rellena, con las propiedades
+ * {@value #URL}, {@value #USUARIO} y {@value #CLAVE}; si no, se omiten.
+ */
+class EjecutorAsincronoMySqlTest {
+
+	/**
+	 * Propiedad con la URL JDBC de la base de datos MySQL de pruebas.
+	 */
+	private static final String URL = "hogwarts.prueba.mysql.url";
+
+	/**
+	 * Propiedad con el usuario de la base de datos MySQL de pruebas.
+	 */
+	private static final String USUARIO = "hogwarts.prueba.mysql.usuario";
+
+	/**
+	 * Propiedad con la contraseña de la base de datos MySQL de pruebas.
+	 */
+	private static final String CLAVE = "hogwarts.prueba.mysql.clave";
+
+	/**
+	 * Arranca Hibernate sobre la base de datos MySQL de pruebas y la rellena.
+	 */
+	@BeforeAll
+	static void arrancar() {
+		assumeTrue(EjecutorAsincrono.usaHilosVirtuales(), "La máquina virtual no tiene hilos virtuales");
+		assumeTrue(System.getProperty(URL) != null, "No se ha indicado una base de datos MySQL de pruebas");
+		System.setProperty("hibernate.connection.url", System.getProperty(URL));
+		System.setProperty("hibernate.connection.username", System.getProperty(USUARIO, "root"));
+		System.setProperty("hibernate.connection.password", System.getProperty(CLAVE, ""));
+		System.setProperty("hibernate.show_sql", "false");
+		System.setProperty("hibernate.hikari.maximumPoolSize", "2");
+		System.setProperty("hogwarts.arranque.cache", "");
+		HibernateUtil.iniciar();
+		new GeneradorDatos(42, 500).generar();
+	}
+
+	/**
+	 * Cierra Hibernate si se ha arrancado.
+	 */
+	@AfterAll
+	static void cerrar() {
+		if (System.getProperty(URL) != null) {
+			HibernateUtil.shutdown();
+		}
+	}
+
+	/**
+	 * Las consultas a MySQL no fijan los hilos virtuales: el controlador espera
+	 * la respuesta del servidor sin retener ningún monitor.
+	 *
+	 * @throws IOException Si falla la lectura de la grabación.
+	 */
+	@Test
+	void lasConsultasAMySqlNoFijanLosHilosVirtuales() throws IOException {
+		EstudianteDao estudianteDao = new EstudianteDao();
+		int idCasa = new CasaMagicaDao().obtenerPorNombre("Gryffindor").orElseThrow().getId();
+		List<RecordedEvent> fijados = EjecutorAsincronoTest
+				.grabarHilosFijados(() -> estudianteDao.obtenerEstudiantesPorCasa(idCasa));
+		assertTrue(fijados.isEmpty(), () -> "Hilos virtuales fijados: " + fijados.get(0));
+	}
+}
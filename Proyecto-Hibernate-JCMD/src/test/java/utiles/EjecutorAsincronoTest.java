@@ -0,0 +1,150 @@
+package utiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import dao.CasaMagicaDao;
+import dao.EstudianteDao;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Pruebas de {@link EjecutorAsincrono} sobre una base de datos H2 en memoria
+ * con un pool de conexiones más pequeño que el límite de operaciones
+ * simultáneas, de modo que las operaciones esperan una conexión libre.
+ */
+class EjecutorAsincronoTest {
+
+	/**
+	 * Número máximo de operaciones asíncronas simultáneas.
+	 */
+	private static final int MAX_CONCURRENCIA = 8;
+
+	/**
+	 * Número de operaciones que se lanzan a la vez en cada prueba.
+	 */
+	private static final int OPERACIONES = 200;
+
+	/**
+	 * DAO con el que se accede a la base de datos, con consultas que no pasan por
+	 * la caché.
+	 */
+	private static EstudianteDao estudianteDao;
+
+	/**
+	 * Identificador de la casa cuyos estudiantes se consultan.
+	 */
+	private static int idCasa;
+
+	/**
+	 * Número de estudiantes de la casa, contados de forma síncrona.
+	 */
+	private static int estudiantes;
+
+	/**
+	 * Arranca Hibernate sobre una base de datos en memoria y la rellena.
+	 */
+	@BeforeAll
+	static void arrancar() {
+		System.setProperty("hibernate.connection.url", "jdbc:h2:mem:asincrono;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		System.setProperty("hibernate.connection.username", "sa");
+		System.setProperty("hibernate.connection.password", "");
+		System.setProperty("hibernate.show_sql", "false");
+		System.setProperty("hibernate.hikari.maximumPoolSize", "2");
+		System.setProperty("hogwarts.arranque.cache", "");
+		System.setProperty(EjecutorAsincrono.MAX_CONCURRENCIA, String.valueOf(MAX_CONCURRENCIA));
+		HibernateUtil.iniciar();
+		new GeneradorDatos(42, 500).generar();
+		estudianteDao = new EstudianteDao();
+		idCasa = new CasaMagicaDao().obtenerPorNombre("Gryffindor").orElseThrow().getId();
+		estudiantes = estudianteDao.obtenerEstudiantesPorCasa(idCasa).size();
+	}
+
+	/**
+	 * Cierra Hibernate.
+	 */
+	@AfterAll
+	static void cerrar() {
+		HibernateUtil.shutdown();
+	}
+
+	/**
+	 * Sin hilos virtuales, las operaciones se reparten entre tantos hilos de
+	 * plataforma como permite el límite, por muchas que se lancen a la vez.
+	 */
+	@Test
+	void sinHilosVirtualesNoSeCreaUnHiloPorOperacion() {
+		assumeFalse(EjecutorAsincrono.usaHilosVirtuales(), "La máquina virtual tiene hilos virtuales");
+		Set<String> hilos = ConcurrentHashMap.newKeySet();
+		List<CompletableFuture<List<String>>> futuros = new ArrayList<>();
+		for (int i = 0; i < OPERACIONES; i++) {
+			futuros.add(EjecutorAsincrono.ejecutar(() -> {
+				hilos.add(Thread.currentThread().getName());
+				return estudianteDao.obtenerEstudiantesPorCasa(idCasa);
+			}));
+		}
+		CompletableFuture.allOf(futuros.toArray(new CompletableFuture[0])).join();
+
+		assertEquals(OPERACIONES, futuros.stream().filter(f -> f.join().size() == estudiantes).count());
+		assertTrue(hilos.size() <= MAX_CONCURRENCIA, () -> "Hilos usados: " + hilos);
+	}
+
+	/**
+	 * Con hilos virtuales, las operaciones que esperan una conexión o acceden a
+	 * la base de datos no fijan su hilo virtual al de plataforma: no se registra
+	 * ningún evento jdk.VirtualThreadPinned.
+	 *
+	 * @throws IOException Si falla la lectura de la grabación.
+	 */
+	@Test
+	void lasOperacionesNoFijanLosHilosVirtuales() throws IOException {
+		assumeTrue(EjecutorAsincrono.usaHilosVirtuales(), "La máquina virtual no tiene hilos virtuales");
+		List<RecordedEvent> fijados = grabarHilosFijados(
+				() -> estudianteDao.obtenerEstudiantesPorCasa(idCasa));
+		assertTrue(fijados.isEmpty(), () -> "Hilos virtuales fijados: " + fijados.get(0));
+	}
+
+	/**
+	 * Lanza a la vez {@link #OPERACIONES} operaciones asíncronas, espera a que
+	 * terminen y devuelve los eventos jdk.VirtualThreadPinned registrados
+	 * mientras tanto.
+	 *
+	 * @param operacion La operación que se lanza.
+	 * @return Los eventos de hilos virtuales fijados.
+	 * @throws IOException Si falla la lectura de la grabación.
+	 */
+	static List<RecordedEvent> grabarHilosFijados(Runnable operacion) throws IOException {
+		Path fichero = Files.createTempFile("hilos-fijados", ".jfr");
+		try (Recording grabacion = new Recording()) {
+			grabacion.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+			grabacion.start();
+			List<CompletableFuture<Void>> futuros = new ArrayList<>();
+			for (int i = 0; i < OPERACIONES; i++) {
+				futuros.add(EjecutorAsincrono.ejecutar(operacion));
+			}
+			CompletableFuture.allOf(futuros.toArray(new CompletableFuture[0])).join();
+			grabacion.stop();
+			grabacion.dump(fichero);
+			return RecordingFile.readAllEvents(fichero);
+		} finally {
+			Files.deleteIfExists(fichero);
+		}
+	}
+}
@@ -0,0 +1,257 @@
+package utiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import dao.CasaMagicaDao;
+import dao.EstudianteDao;
+import dao.EventoMagicoDao;
+import dao.EventoResumen;
+import modelo.CasaMagica;
+import modelo.Estudiante;
+import modelo.EventoMagico;
+
+/**
+ * Pruebas de {@link MigradorEsquema} al adoptar una base de datos H2 en memoria
+ * que creó hibernate.hbm2ddl.auto antes de existir las migraciones, con
+ * identificadores IDENTITY, sin la tabla generador_ids y con datos.
+ */
+class MigradorEsquemaTest {
+
+	/**
+	 * URL de la base de datos de las pruebas.
+	 */
+	private static final String URL = "jdbc:h2:mem:anterior;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	/**
+	 * Número de estudiantes que ya había en la base de datos, con
+	 * identificadores del 1 a este.
+	 */
+	private static final int ESTUDIANTES = 120;
+
+	/**
+	 * Número de eventos con fecha que ya había en la base de datos, más que los
+	 * de un tramo del relleno de V4.
+	 */
+	private static final int EVENTOS = 2500;
+
+	/**
+	 * Fecha del primer evento; cada uno es un día posterior al anterior.
+	 */
+	private static final LocalDate PRIMERA_FECHA = LocalDate.of(1991, 9, 1);
+
+	/**
+	 * Crea la base de datos con el esquema anterior a las migraciones y sus datos,
+	 * y arranca Hibernate sobre ella, lo que la migra.
+	 *
+	 * @throws SQLException Si falla la creación de la base de datos.
+	 * @throws IOException  Si falla la lectura del esquema.
+	 */
+	@BeforeAll
+	static void arrancar() throws SQLException, IOException {
+		System.setProperty("hibernate.connection.url", URL);
+		System.setProperty("hibernate.connection.username", "sa");
+		System.setProperty("hibernate.connection.password", "");
+		System.setProperty("hibernate.show_sql", "false");
+		System.setProperty("hogwarts.arranque.cache", "");
+		try (Connection conexion = DriverManager.getConnection(URL, "sa", "");
+				Statement sentencia = conexion.createStatement()) {
+			for (String sql : leerEsquemaAnterior()) {
+				sentencia.execute(sql);
+			}
+			sentencia.execute("insert into casas_magicas (idCasaMagica, nombreCasaMagica, puntuacionTotalCasaMagica) "
+					+ "values (1, 'Gryffindor', 10), (2, 'Slytherin', 5)");
+			sentencia.execute("insert into eventos_magicos (idEventoMagico, nombreEventoMagico, fechaEventoMagico) "
+					+ "values (7, 'Baile de Navidad', '1994-12-25'), (8, 'Sin fecha', null)");
+			try (PreparedStatement insercion = conexion.prepareStatement("insert into eventos_magicos "
+					+ "(idEventoMagico, nombreEventoMagico, fechaEventoMagico) values (?, 'Clase', ?)")) {
+				for (int i = 0; i < EVENTOS; i++) {
+					insercion.setInt(1, 100 + i);
+					insercion.setString(2, PRIMERA_FECHA.plusDays(i).toString());
+					insercion.addBatch();
+				}
+				insercion.executeBatch();
+			}
+			try (PreparedStatement insercion = conexion.prepareStatement("insert into estudiantes (idEstudiante, "
+					+ "edadEstudiante, nombreEstudiante, casa_id) values (?, 14, ?, 1)")) {
+				for (int id = 1; id <= ESTUDIANTES; id++) {
+					insercion.setInt(1, id);
+					insercion.setString(2, "Estudiante " + id);
+					insercion.addBatch();
+				}
+				insercion.executeBatch();
+			}
+		}
+		HibernateUtil.iniciar();
+	}
+
+	/**
+	 * Cierra Hibernate.
+	 */
+	@AfterAll
+	static void cerrar() {
+		HibernateUtil.shutdown();
+	}
+
+	/**
+	 * En lugar de la primera migración se aplica la línea base, que crea
+	 * generador_ids empezando por el mayor identificador de cada tabla, y después
+	 * el resto de migraciones, sin perder los datos.
+	 *
+	 * @throws SQLException Si falla la consulta.
+	 */
+	@Test
+	void seAplicaLaLineaBaseSinPerderDatos() throws SQLException {
+		try (Connection conexion = DriverManager.getConnection(URL, "sa", "");
+				Statement sentencia = conexion.createStatement()) {
+			try (ResultSet filas = sentencia
+					.executeQuery("select count(*) from historial_esquema where version > 0")) {
+				filas.next();
+				assertEquals(6, filas.getInt(1));
+			}
+			try (ResultSet filas = sentencia.executeQuery("select count(*), min(siguiente_id) from generador_ids "
+					+ "where entidad in ('estudiantes', 'eventos_magicos')")) {
+				filas.next();
+				assertEquals(2, filas.getInt(1));
+				// Las pruebas que crean entidades pueden haber reservado ya otro bloque
+				assertTrue(filas.getLong(2) >= 7, "Los generadores empiezan por el mayor identificador");
+			}
+			try (ResultSet filas = sentencia.executeQuery("select siguiente_id from generador_ids "
+					+ "where entidad = 'estudiantes'")) {
+				filas.next();
+				assertTrue(filas.getLong(1) >= ESTUDIANTES, "El generador empieza por el mayor identificador");
+			}
+			try (ResultSet filas = sentencia
+					.executeQuery("select count(*) from estudiantes where idEstudiante <= " + ESTUDIANTES)) {
+				filas.next();
+				assertEquals(ESTUDIANTES, filas.getInt(1));
+			}
+		}
+	}
+
+	/**
+	 * V4 rellena por tramos la columna date de todos los eventos con fecha y
+	 * conserva la de texto para las instancias anteriores.
+	 *
+	 * @throws SQLException Si falla la consulta.
+	 */
+	@Test
+	void laExpansionDeV4RellenaLaFechaDeTodosLosEventos() throws SQLException {
+		try (Connection conexion = DriverManager.getConnection(URL, "sa", "");
+				Statement sentencia = conexion.createStatement()) {
+			try (ResultSet filas = sentencia.executeQuery("select diaEventoMagico, fechaEventoMagico "
+					+ "from eventos_magicos where idEventoMagico in (7, 8) order by idEventoMagico")) {
+				filas.next();
+				assertEquals(LocalDate.of(1994, 12, 25), filas.getObject(1, LocalDate.class));
+				assertEquals("1994-12-25", filas.getString(2));
+				filas.next();
+				assertNull(filas.getObject(1));
+			}
+			try (ResultSet filas = sentencia.executeQuery("select count(*) from eventos_magicos "
+					+ "where idEventoMagico between 100 and " + (100 + EVENTOS - 1)
+					+ " and diaEventoMagico = cast(fechaEventoMagico as date)")) {
+				filas.next();
+				assertEquals(EVENTOS, filas.getInt(1));
+			}
+		}
+	}
+
+	/**
+	 * Los eventos que se guardan después de V4 escriben la fecha en las dos
+	 * columnas, y las consultas por fecha leen la columna date.
+	 *
+	 * @throws SQLException Si falla la consulta.
+	 */
+	@Test
+	void losEventosNuevosEscribenLasDosColumnas() throws SQLException {
+		EventoMagico evento = new EventoMagico("Torneo de los Tres Magos", "Primera prueba",
+				LocalDate.of(1994, 11, 24), "Bosque Prohibido");
+		new EventoMagicoDao().create(evento);
+		try (Connection conexion = DriverManager.getConnection(URL, "sa", "");
+				PreparedStatement consulta = conexion.prepareStatement(
+						"select diaEventoMagico, fechaEventoMagico from eventos_magicos where idEventoMagico = ?")) {
+			consulta.setInt(1, evento.getId());
+			try (ResultSet filas = consulta.executeQuery()) {
+				filas.next();
+				assertEquals(LocalDate.of(1994, 11, 24), filas.getObject(1, LocalDate.class));
+				assertEquals("1994-11-24", filas.getString(2));
+			}
+		}
+		List<EventoResumen> eventos = new EventoMagicoDao().obtenerEventosEntre(LocalDate.of(1994, 11, 1),
+				LocalDate.of(1994, 12, 31));
+		assertTrue(eventos.contains(new EventoResumen("Torneo de los Tres Magos", LocalDate.of(1994, 11, 24))),
+				eventos::toString);
+		assertTrue(eventos.contains(new EventoResumen("Baile de Navidad", LocalDate.of(1994, 12, 25))),
+				eventos::toString);
+	}
+
+	/**
+	 * Las entidades nuevas reciben identificadores mayores que los que ya había.
+	 */
+	@Test
+	void losNuevosIdentificadoresNoChocanConLosExistentes() {
+		CasaMagicaDao casaDao = new CasaMagicaDao();
+		CasaMagica casa = new CasaMagica("Hufflepuff");
+		casaDao.create(casa);
+		assertTrue(casa.getId() > 2, () -> "Id de la casa nueva: " + casa.getId());
+
+		Estudiante estudiante = new Estudiante("Cedric Diggory", 17, "Avanzado", "Fresno");
+		estudiante.setCasa(casa);
+		new EstudianteDao().create(estudiante);
+		assertTrue(estudiante.getId() > ESTUDIANTES, () -> "Id del estudiante nuevo: " + estudiante.getId());
+		assertEquals(ESTUDIANTES + 1, new EstudianteDao().getAll().size());
+	}
+
+	/**
+	 * El esquema migrado coincide con las entidades: Hibernate arranca en modo
+	 * validar, que contrasta cada tabla y columna con el mapeo.
+	 */
+	@Test
+	void elEsquemaMigradoCoincideConLasEntidades() {
+		HibernateUtil.shutdown();
+		System.setProperty(MigradorEsquema.MODO, "validar");
+		try {
+			HibernateUtil.iniciar();
+		} finally {
+			System.clearProperty(MigradorEsquema.MODO);
+		}
+	}
+
+	/**
+	 * Lee las sentencias del esquema anterior a las migraciones.
+	 *
+	 * @return Las sentencias, sin comentarios.
+	 * @throws IOException Si falla la lectura.
+	 */
+	private static List<String> leerEsquemaAnterior() throws IOException {
+		try (InputStream entrada = MigradorEsquemaTest.class.getClassLoader()
+				.getResourceAsStream("esquema_anterior.sql")) {
+			String script = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+			List<String> sentencias = new ArrayList<>();
+			for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+				if (!sql.isBlank()) {
+					sentencias.add(sql.trim());
+				}
+			}
+			return sentencias;
+		}
+	}
+}